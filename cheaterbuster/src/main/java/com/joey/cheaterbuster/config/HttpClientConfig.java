@@ -0,0 +1,115 @@
+package com.joey.cheaterbuster.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * HTTP clients for the upstream services.
+ * Each upstream gets its own pooled keep-alive connection manager and timeouts, so a slow ML service
+ * can't exhaust the connections the crawler needs for Leetify. Apache HttpClient negotiates gzip/deflate
+ * and transparently decompresses responses.
+ * <p>
+ * Apache's classic client, which {@link RestTemplate} drives, only speaks HTTP/1.1. Upstreams with
+ * {@code http.<name>.http2=true} use the JDK {@link HttpClient} instead, which offers HTTP/2 through ALPN and falls
+ * back to HTTP/1.1 when the server doesn't accept it. Requests then share one multiplexed connection per host, so
+ * {@code max-connections} doesn't apply. It is off for every upstream by default: Leetify and VacList requests are
+ * rate limited to a few per second and already reuse keep-alive connections, so multiplexing saves little, while
+ * {@code HttpClientBenchmark} measures the JDK client at about three times the CPU per request of the pooled one.
+ * The ML service is plain HTTP behind a WSGI server without h2c, so HTTP/2 can't be negotiated with it at all.
+ */
+@Slf4j
+@Configuration
+public class HttpClientConfig {
+
+    private static final TimeValue IDLE_EVICTION = TimeValue.ofSeconds(30);
+
+    @Bean
+    public RestTemplate leetifyRestTemplate(
+            @Value("${http.leetify.connect-timeout-ms:3000}") int connectTimeoutMs,
+            @Value("${http.leetify.read-timeout-ms:10000}") int readTimeoutMs,
+            @Value("${http.leetify.http2:false}") boolean http2,
+            @Value("${http.leetify.max-connections:32}") int maxConnections) {
+        return http2
+                ? buildHttp2RestTemplate("leetify", connectTimeoutMs, readTimeoutMs)
+                : buildRestTemplate("leetify", connectTimeoutMs, readTimeoutMs, maxConnections);
+    }
+
+    @Bean
+    public RestTemplate vaclistRestTemplate(
+            @Value("${http.vaclist.connect-timeout-ms:5000}") int connectTimeoutMs,
+            @Value("${http.vaclist.read-timeout-ms:20000}") int readTimeoutMs,
+            @Value("${http.vaclist.http2:false}") boolean http2,
+            @Value("${http.vaclist.max-connections:4}") int maxConnections) {
+        return http2
+                ? buildHttp2RestTemplate("vaclist", connectTimeoutMs, readTimeoutMs)
+                : buildRestTemplate("vaclist", connectTimeoutMs, readTimeoutMs, maxConnections);
+    }
+
+    @Bean
+    public RestTemplate mlRestTemplate(
+            @Value("${http.ml.connect-timeout-ms:1000}") int connectTimeoutMs,
+            @Value("${http.ml.read-timeout-ms:5000}") int readTimeoutMs,
+            @Value("${http.ml.http2:false}") boolean http2,
+            @Value("${http.ml.max-connections:16}") int maxConnections) {
+        return http2
+                ? buildHttp2RestTemplate("ml", connectTimeoutMs, readTimeoutMs)
+                : buildRestTemplate("ml", connectTimeoutMs, readTimeoutMs, maxConnections);
+    }
+
+    private RestTemplate buildRestTemplate(String name, int connectTimeoutMs, int readTimeoutMs, int maxConnections) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .build())
+                .build();
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(IDLE_EVICTION)
+                .build();
+
+        log.info("Configured {} HTTP client - connect timeout: {}ms, read timeout: {}ms, max connections: {}",
+                name, connectTimeoutMs, readTimeoutMs, maxConnections);
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    private RestTemplate buildHttp2RestTemplate(String name, int connectTimeoutMs, int readTimeoutMs) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(new GzipResponseInterceptor());
+        log.info("Configured {} HTTP/2 client - connect timeout: {}ms, read timeout: {}ms", name, connectTimeoutMs, readTimeoutMs);
+        return restTemplate;
+    }
+}
@@ -1,6 +1,7 @@
 package com.joey.cheaterbuster.controller;
 
 import com.joey.cheaterbuster.service.DataGatheringService;
+import com.joey.cheaterbuster.service.player.SeedSampler;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
@@ -22,26 +23,43 @@ public class GatheringController {
     /**
      * Start data gathering
      *
-     * @param mode gathering mode (BANNED or RANDOM)
-     * @param batchSize number of profiles to gather per batch
+     * @param mode gathering mode (BANNED, RANDOM, REPLAY to backfill from the response archive, REFRESH to re-fetch stale profiles,
+     *             or SCORE to store risk predictions for every stored player)
+     * @param batchSize number of profiles to gather, or stale profiles to refresh, per batch
+     * @param concurrency number of crawl workers used for RANDOM mode, or segments replayed at once in REPLAY mode
+     * @param seed group of stored players RANDOM mode seeds the crawl from (ANY, BANNED, RANK_BAND or STALE)
      * @return status of the operation
      */
     @PostMapping("/start")
     public ResponseEntity<Map<String, Object>> startGathering(
             @RequestParam(defaultValue = "RANDOM") String mode,
-            @RequestParam(defaultValue = "50") @Min(value = 1, message = "Batch size must be at least 1") @Max(value = 50, message = "Batch size cannot exceed 50") int batchSize) {
-        log.info("POST /api/gathering/start - Mode: {}, Batch size: {}", mode, batchSize);
+            @RequestParam(defaultValue = "50") @Min(value = 1, message = "Batch size must be at least 1") @Max(value = 50, message = "Batch size cannot exceed 50") int batchSize,
+            @RequestParam(defaultValue = "${gathering.concurrency:4}") @Min(value = 1, message = "Concurrency must be at least 1") @Max(value = 16, message = "Concurrency cannot exceed 16") int concurrency,
+            @RequestParam(defaultValue = "${gathering.seed.stratum:ANY}") String seed) {
+        log.info("POST /api/gathering/start - Mode: {}, Batch size: {}, Concurrency: {}, Seed: {}", mode, batchSize, concurrency, seed);
+
+        SeedSampler.Stratum seedStratum;
+        try {
+            seedStratum = SeedSampler.Stratum.valueOf(seed);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", "Invalid seed stratum. Use ANY, BANNED, RANK_BAND or STALE"
+            ));
+        }
 
         try {
             DataGatheringService.GatheringMode gatheringMode = DataGatheringService.GatheringMode.valueOf(mode);
-            boolean started = dataGatheringService.start(gatheringMode, batchSize);
+            boolean started = dataGatheringService.start(gatheringMode, batchSize, concurrency, seedStratum);
 
             if (started) {
                 return ResponseEntity.ok(Map.of(
                         "success", true,
                         "message", "Data gathering started successfully",
                         "mode", mode,
-                        "batchSize", batchSize
+                        "batchSize", batchSize,
+                        "concurrency", concurrency,
+                        "seed", seed
                 ));
             } else {
                 return ResponseEntity.badRequest().body(Map.of(
@@ -52,7 +70,7 @@ public class GatheringController {
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of(
                     "success", false,
-                    "message", "Invalid gathering mode. Use BANNED or RANDOM"
+                    "message", "Invalid gathering mode. Use BANNED, RANDOM, REPLAY, REFRESH or SCORE"
             ));
         }
     }
@@ -4,6 +4,7 @@ import com.joey.cheaterbuster.dto.leetify.player.PlayerDataDTO;
 import com.joey.cheaterbuster.dto.model.PredictionResultDTO;
 import com.joey.cheaterbuster.service.ModelService;
 import com.joey.cheaterbuster.service.player.LeetifyPlayerService;
+import com.joey.cheaterbuster.service.player.ProfileRefreshService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -22,13 +23,19 @@ public class ModelController {
 
     private final ModelService modelService;
     private final LeetifyPlayerService leetifyPlayerService;
+    private final ProfileRefreshService profileRefreshService;
 
     @PostMapping("/predict")
     public ResponseEntity<PredictionResultDTO> predict(
-            @RequestParam(name = "steamId") String steamId
+            @RequestParam(name = "steamId") String steamId,
+            @RequestParam(defaultValue = "false") boolean refreshStale
     ) {
         log.info("POST /api/model/predict - Received prediction request for Steam ID: {}", steamId);
         PlayerDataDTO playerData = leetifyPlayerService.getPlayerProfile(steamId);
+        if (refreshStale) {
+            // Predict from the stored profile now; the next prediction sees the refreshed one
+            profileRefreshService.refreshIfStale(steamId);
+        }
         PredictionResultDTO result = modelService.getPrediction(playerData);
         return ResponseEntity.ok(result);
     }
@@ -4,6 +4,7 @@ import com.joey.cheaterbuster.dto.leetify.match.MatchDTO;
 import com.joey.cheaterbuster.dto.leetify.player.PlayerDataDTO;
 import com.joey.cheaterbuster.service.match.LeetifyMatchService;
 import com.joey.cheaterbuster.service.player.LeetifyPlayerService;
+import com.joey.cheaterbuster.service.player.ProfileRefreshService;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -22,16 +23,24 @@ import java.util.List;
 public class PlayerController {
     private final LeetifyPlayerService leetifyPlayerService;
     private final LeetifyMatchService leetifyMatchService;
+    private final ProfileRefreshService profileRefreshService;
 
     /**
      * Get a single player's profile by Steam ID
-     * GET /api/players/{steamId}
+     * GET /api/players/{steamId}?refreshStale=true
+     *
+     * @param refreshStale serve the stored profile now and re-fetch it in the background if it is stale
      */
     @GetMapping("/players/{steamId}")
     public PlayerDataDTO getPlayer(
-            @PathVariable @NotBlank(message = "Steam ID cannot be blank") String steamId) {
+            @PathVariable @NotBlank(message = "Steam ID cannot be blank") String steamId,
+            @RequestParam(defaultValue = "false") boolean refreshStale) {
         log.info("GET /api/players/{} - Fetching player profile", steamId);
-        return leetifyPlayerService.getPlayerProfile(steamId);
+        PlayerDataDTO profile = leetifyPlayerService.getPlayerProfile(steamId);
+        if (refreshStale) {
+            profileRefreshService.refreshIfStale(steamId);
+        }
+        return profile;
     }
 
     /**
@@ -47,14 +56,15 @@ public class PlayerController {
     }
 
     /**
-     * Get a list of banned players
+     * Gather the next VacList page of banned players
+     * GET /api/players/banned
      *
-     * @return List of banned players
+     * @return the page's newly fetched and already known banned players, with their counts
      */
     @GetMapping("/players/banned")
-    public List<PlayerDataDTO> getBannedPlayers() {
+    public LeetifyPlayerService.BannedPageResult getBannedPlayers() {
         log.info("GET /api/players/banned - Fetching banned players");
-        return leetifyPlayerService.getBannedPlayerProfiles();
+        return leetifyPlayerService.getBannedPlayerProfiles(true);
     }
 
     /**
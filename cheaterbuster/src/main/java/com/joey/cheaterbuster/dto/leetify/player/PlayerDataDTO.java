@@ -1,8 +1,10 @@
 package com.joey.cheaterbuster.dto.leetify.player;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -33,4 +35,8 @@ public class PlayerDataDTO {
 
     @JsonProperty("recent_teammates")
     private List<TeammateDTO> recentTeammates;
+
+    // When the stored row's content last changed, null until the profile has been written
+    @JsonIgnore
+    private LocalDateTime updatedAt;
 }
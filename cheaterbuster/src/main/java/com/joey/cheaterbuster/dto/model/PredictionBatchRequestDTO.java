@@ -0,0 +1,14 @@
+package com.joey.cheaterbuster.dto.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PredictionBatchRequestDTO {
+    private List<PredictionRequestDTO> players;
+}
@@ -0,0 +1,12 @@
+package com.joey.cheaterbuster.dto.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class PredictionBatchResultDTO {
+    private List<PredictionResultDTO> predictions;
+}
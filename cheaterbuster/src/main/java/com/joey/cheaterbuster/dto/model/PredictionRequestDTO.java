@@ -45,6 +45,9 @@ public class PredictionRequestDTO {
     @JsonProperty("he_foes_damage_avg")
     private Double heFoesDamageAvg;
 
+    @JsonProperty("he_friends_damage_avg")
+    private Double heFriendsDamageAvg;
+
     @JsonProperty("preaim")
     private Double preaim;
 
@@ -1,9 +1,13 @@
 package com.joey.cheaterbuster.dto.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class PredictionResultDTO {
     private int prediction;
     private double probability;
@@ -0,0 +1,41 @@
+package com.joey.cheaterbuster.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Named position shared by every node, e.g. the next VacList page to hand out.
+ */
+@Entity
+@Table(name = "crawl_cursor")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrawlCursor {
+
+    public static final String VACLIST_PAGE = "vaclist_page";
+    // Steam ID the bulk scoring job has scored every player up to, in key_position; empty at the start of a pass
+    public static final String BULK_SCORING = "bulk_scoring";
+
+    @Id
+    @Column(name = "name", nullable = false, length = 64)
+    private String name;
+
+    @Column(name = "position", nullable = false)
+    private Long position;
+
+    // For cursors over string keys, which are compared as the database orders them
+    @Column(name = "key_position", length = 64)
+    private String keyPosition;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
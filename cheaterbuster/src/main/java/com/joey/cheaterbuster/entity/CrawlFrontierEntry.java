@@ -0,0 +1,71 @@
+package com.joey.cheaterbuster.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "crawl_frontier", indexes = {
+        @Index(name = "idx_frontier_state_priority", columnList = "state, priority, created_at"),
+        @Index(name = "idx_frontier_lease", columnList = "state, lease_expires_at"),
+        @Index(name = "idx_frontier_lease_owner", columnList = "lease_owner")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrawlFrontierEntry {
+
+    @Id
+    @Column(name = "steam_id", nullable = false, length = 20)
+    private String steamId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "source", nullable = false, length = 16)
+    private DiscoverySource source;
+
+    @Column(name = "depth", nullable = false)
+    private Integer depth;
+
+    @Column(name = "priority", nullable = false)
+    private Integer priority;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", nullable = false, length = 16)
+    private State state;
+
+    // Lease held by the node crawling this entry, only set while IN_PROGRESS
+    @Column(name = "lease_owner", length = 64)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    // Audit timestamps
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum DiscoverySource {
+        SEED,
+        TEAMMATE,
+        MATCH
+    }
+
+    public enum State {
+        PENDING,
+        IN_PROGRESS,
+        DONE,
+        FAILED
+    }
+}
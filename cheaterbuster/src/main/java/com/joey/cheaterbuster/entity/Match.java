@@ -0,0 +1,35 @@
+package com.joey.cheaterbuster.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A finished match whose details have been fetched from Leetify.
+ * Matches never change once finished, so a stored match is never fetched again.
+ */
+@Entity
+// match is a reserved word in MySQL
+@Table(name = "`match`")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Match {
+
+    @Id
+    @Column(name = "match_id", nullable = false, length = 64)
+    private String matchId;
+
+    @Column(name = "participant_count", nullable = false)
+    private Integer participantCount;
+
+    @CreationTimestamp
+    @Column(name = "fetched_at", nullable = false, updatable = false)
+    private LocalDateTime fetchedAt;
+}
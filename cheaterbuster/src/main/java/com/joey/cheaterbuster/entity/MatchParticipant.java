@@ -0,0 +1,43 @@
+package com.joey.cheaterbuster.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * A player who took part in a stored {@link Match}.
+ */
+@Entity
+@Table(name = "match_participant", indexes = {
+        @Index(name = "idx_match_participant_steam_id", columnList = "steam_id")
+})
+@IdClass(MatchParticipant.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatchParticipant {
+
+    @Id
+    @Column(name = "match_id", nullable = false, length = 64)
+    private String matchId;
+
+    @Id
+    @Column(name = "steam_id", nullable = false, length = 20)
+    private String steamId;
+
+    @Column(name = "name", length = 100)
+    private String name;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String matchId;
+        private String steamId;
+    }
+}
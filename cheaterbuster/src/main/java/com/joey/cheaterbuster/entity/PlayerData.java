@@ -14,7 +14,10 @@ import java.time.LocalDateTime;
 @Table(name = "player_data", indexes = {
         @Index(name = "idx_player_name", columnList = "name"),
         @Index(name = "idx_rank_premier", columnList = "rank_premier"),
-        @Index(name = "idx_created_at", columnList = "created_at")
+        @Index(name = "idx_created_at", columnList = "created_at"),
+        @Index(name = "idx_updated_at", columnList = "updated_at"),
+        @Index(name = "idx_has_ban_steam_id", columnList = "has_ban, steam_id"),
+        @Index(name = "idx_checked_at", columnList = "checked_at")
 })
 @Data
 @Builder
@@ -134,6 +137,14 @@ public class PlayerData {
     @Column(name = "has_ban")
     private Boolean hasBan;
 
+    // Hash of the profile as last fetched, so a re-fetch that changed nothing skips the write
+    @Column(name = "content_hash")
+    private Long contentHash;
+
+    // When the profile was last fetched from Leetify, whether or not it had changed since
+    @Column(name = "checked_at")
+    private LocalDateTime checkedAt;
+
     // Audit timestamps
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
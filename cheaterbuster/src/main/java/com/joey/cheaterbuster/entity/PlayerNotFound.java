@@ -0,0 +1,34 @@
+package com.joey.cheaterbuster.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Steam ID Leetify reported as not found, remembered until it expires so it isn't requested again.
+ * Expiry lets players who later make their profile public be picked up again.
+ */
+@Entity
+@Table(name = "player_not_found", indexes = {
+        @Index(name = "idx_player_not_found_expires_at", columnList = "expires_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayerNotFound {
+
+    @Id
+    @Column(name = "steam_id", nullable = false, length = 20)
+    private String steamId;
+
+    @Column(name = "not_found_at", nullable = false)
+    private LocalDateTime notFoundAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,51 @@
+package com.joey.cheaterbuster.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The latest prediction for a player, valid while the stored profile and the model are the ones it was made from:
+ * {@code profile_updated_at} matches {@code player_data.updated_at} and {@code model_version} the current model.
+ * Filled in for every stored player by the bulk scoring job, so risk can be queried without scoring.
+ */
+@Entity
+@Table(name = "player_prediction", indexes = {
+        @Index(name = "idx_player_prediction_probability", columnList = "probability"),
+        @Index(name = "idx_player_prediction_risk_level", columnList = "risk_level, probability")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayerPrediction {
+
+    @Id
+    @Column(name = "steam_id", nullable = false, length = 20)
+    private String steamId;
+
+    @Column(name = "profile_updated_at", nullable = false)
+    private LocalDateTime profileUpdatedAt;
+
+    @Column(name = "model_version", nullable = false, length = 64)
+    private String modelVersion;
+
+    @Column(name = "prediction", nullable = false)
+    private Integer prediction;
+
+    @Column(name = "probability", nullable = false)
+    private Double probability;
+
+    @Column(name = "confidence", nullable = false)
+    private Double confidence;
+
+    @Column(name = "risk_level", nullable = false, length = 16)
+    private String riskLevel;
+
+    @Column(name = "scored_at", nullable = false)
+    private LocalDateTime scoredAt;
+}
@@ -0,0 +1,45 @@
+package com.joey.cheaterbuster.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * A recent-teammate edge reported by a player's Leetify profile.
+ * Stored so graph expansion through already known players doesn't need any API calls.
+ */
+@Entity
+@Table(name = "player_teammate")
+@IdClass(PlayerTeammate.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayerTeammate {
+
+    @Id
+    @Column(name = "steam_id", nullable = false, length = 20)
+    private String steamId;
+
+    @Id
+    @Column(name = "teammate_steam_id", nullable = false, length = 20)
+    private String teammateSteamId;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String steamId;
+        private String teammateSteamId;
+    }
+}
@@ -0,0 +1,57 @@
+package com.joey.cheaterbuster.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "vaclist_page_lease", indexes = {
+        @Index(name = "idx_page_lease_state", columnList = "state, lease_expires_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VaclistPageLease {
+
+    @Id
+    @Column(name = "page", nullable = false)
+    private Integer page;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", nullable = false, length = 16)
+    private State state;
+
+    @Column(name = "lease_owner", length = 64)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    // First and last Steam IDs the page listed when it was fetched, used to detect listing drift on the next page
+    @Column(name = "first_steam_id", length = 20)
+    private String firstSteamId;
+
+    @Column(name = "last_steam_id", length = 20)
+    private String lastSteamId;
+
+    // Audit timestamps
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum State {
+        IN_PROGRESS,
+        DONE
+    }
+}
@@ -0,0 +1,19 @@
+package com.joey.cheaterbuster.exception;
+
+import com.joey.cheaterbuster.service.outbound.Upstream;
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class UpstreamThrottledException extends RuntimeException {
+
+    private final Upstream upstream;
+    private final Duration retryAfter;
+
+    public UpstreamThrottledException(Upstream upstream, Duration retryAfter, Throwable cause) {
+        super(upstream + " throttled or failed the request, retry after " + retryAfter.toMillis() + "ms", cause);
+        this.upstream = upstream;
+        this.retryAfter = retryAfter;
+    }
+}
@@ -112,6 +112,17 @@ public class PlayerDataMapper {
      * @return PlayerDataDTO for API response
      */
     public PlayerDataDTO toDTO(PlayerData entity) {
+        return toDTO(entity, Collections.emptyList());
+    }
+
+    /**
+     * Maps a PlayerData entity from database to a PlayerDataDTO, hydrating its stored recent teammates.
+     *
+     * @param entity The PlayerData entity from database
+     * @param teammateIds The Steam64 IDs stored in player_teammate for this player
+     * @return PlayerDataDTO for API response
+     */
+    public PlayerDataDTO toDTO(PlayerData entity, List<String> teammateIds) {
         if (entity == null) {
             log.warn("Attempted to map null PlayerData entity to DTO");
             return null;
@@ -124,6 +135,7 @@ public class PlayerDataMapper {
         dto.setName(entity.getName());
         dto.setWinRate(entity.getWinRate());
         dto.setTotalMatches(entity.getTotalMatches());
+        dto.setUpdatedAt(entity.getUpdatedAt());
 
         // Map ranks
         RanksDTO ranks = new RanksDTO();
@@ -167,9 +179,15 @@ public class PlayerDataMapper {
         stats.setTradeKillOpportunitiesPerRound(entity.getTradeKillOpportunitiesPerRound());
         dto.setStats(stats);
 
-        // Note: We don't store bans or recentTeammates in the database, so these will be empty/null
+        // Note: We don't store individual bans in the database, so these will be empty
         dto.setBans(Collections.emptyList());
-        dto.setRecentTeammates(Collections.emptyList());
+        dto.setRecentTeammates(teammateIds == null ? Collections.emptyList() : teammateIds.stream()
+                .map(teammateId -> {
+                    TeammateDTO teammate = new TeammateDTO();
+                    teammate.setSteamId(teammateId);
+                    return teammate;
+                })
+                .toList());
 
         log.debug("Successfully mapped DTO for Steam ID: {} ({})", entity.getSteamId(), entity.getName());
         return dto;
@@ -0,0 +1,19 @@
+package com.joey.cheaterbuster.repository;
+
+import com.joey.cheaterbuster.entity.CrawlCursor;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CrawlCursorRepository extends JpaRepository<CrawlCursor, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM CrawlCursor c WHERE c.name = :name")
+    Optional<CrawlCursor> findForUpdate(@Param("name") String name);
+}
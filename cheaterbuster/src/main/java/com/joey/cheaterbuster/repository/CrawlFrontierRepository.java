@@ -0,0 +1,81 @@
+package com.joey.cheaterbuster.repository;
+
+import com.joey.cheaterbuster.entity.CrawlFrontierEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CrawlFrontierRepository extends JpaRepository<CrawlFrontierEntry, String> {
+
+    /**
+     * Locks the highest priority pending entries, skipping rows another node is claiming at the same time.
+     */
+    @Query(value = "SELECT steam_id FROM crawl_frontier WHERE state = 'PENDING' " +
+            "ORDER BY priority DESC, created_at ASC LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<String> lockPendingSteamIds(@Param("limit") int limit);
+
+    @Query("SELECT e.steamId FROM CrawlFrontierEntry e WHERE e.steamId IN :steamIds")
+    List<String> findExistingSteamIds(@Param("steamIds") Collection<String> steamIds);
+
+    @Query("SELECT e.steamId FROM CrawlFrontierEntry e WHERE e.steamId IN :steamIds AND e.leaseOwner = :owner " +
+            "AND e.state = com.joey.cheaterbuster.entity.CrawlFrontierEntry.State.IN_PROGRESS")
+    List<String> findLeasedSteamIds(@Param("steamIds") Collection<String> steamIds, @Param("owner") String owner);
+
+    @Modifying
+    @Query("UPDATE CrawlFrontierEntry e SET e.state = com.joey.cheaterbuster.entity.CrawlFrontierEntry.State.IN_PROGRESS, " +
+            "e.leaseOwner = :owner, e.leaseExpiresAt = :expiresAt, e.updatedAt = :now WHERE e.steamId IN :steamIds")
+    int lease(@Param("steamIds") Collection<String> steamIds,
+              @Param("owner") String owner,
+              @Param("expiresAt") LocalDateTime expiresAt,
+              @Param("now") LocalDateTime now);
+
+    /**
+     * Leases one entry to a node unless another node holds an unexpired lease on it.
+     */
+    @Modifying
+    @Query("UPDATE CrawlFrontierEntry e SET e.state = com.joey.cheaterbuster.entity.CrawlFrontierEntry.State.IN_PROGRESS, " +
+            "e.leaseOwner = :owner, e.leaseExpiresAt = :expiresAt, e.updatedAt = :now WHERE e.steamId = :steamId " +
+            "AND (e.leaseOwner IS NULL OR e.leaseOwner = :owner OR e.leaseExpiresAt < :now)")
+    int leaseUnlessHeld(@Param("steamId") String steamId,
+                        @Param("owner") String owner,
+                        @Param("expiresAt") LocalDateTime expiresAt,
+                        @Param("now") LocalDateTime now);
+
+    /**
+     * Moves entries leased to a node to a new state, releasing the lease. Entries whose lease has since passed to
+     * another node are left alone.
+     */
+    @Modifying
+    @Query("UPDATE CrawlFrontierEntry e SET e.state = :state, e.leaseOwner = NULL, e.leaseExpiresAt = NULL, e.updatedAt = :now " +
+            "WHERE e.steamId IN :steamIds AND e.leaseOwner = :owner")
+    int updateState(@Param("steamIds") Collection<String> steamIds,
+                    @Param("owner") String owner,
+                    @Param("state") CrawlFrontierEntry.State state,
+                    @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CrawlFrontierEntry e SET e.leaseExpiresAt = :expiresAt " +
+            "WHERE e.leaseOwner = :owner AND e.state = com.joey.cheaterbuster.entity.CrawlFrontierEntry.State.IN_PROGRESS")
+    int extendLeases(@Param("owner") String owner, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE CrawlFrontierEntry e SET e.state = com.joey.cheaterbuster.entity.CrawlFrontierEntry.State.PENDING, " +
+            "e.leaseOwner = NULL, e.leaseExpiresAt = NULL, e.updatedAt = :now " +
+            "WHERE e.state = com.joey.cheaterbuster.entity.CrawlFrontierEntry.State.IN_PROGRESS AND e.leaseExpiresAt < :now")
+    int releaseExpiredLeases(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE CrawlFrontierEntry e SET e.state = com.joey.cheaterbuster.entity.CrawlFrontierEntry.State.PENDING, " +
+            "e.leaseOwner = NULL, e.leaseExpiresAt = NULL, e.updatedAt = :now " +
+            "WHERE e.state = com.joey.cheaterbuster.entity.CrawlFrontierEntry.State.IN_PROGRESS AND e.leaseOwner = :owner")
+    int releaseLeases(@Param("owner") String owner, @Param("now") LocalDateTime now);
+
+    long countByState(CrawlFrontierEntry.State state);
+}
@@ -0,0 +1,17 @@
+package com.joey.cheaterbuster.repository;
+
+import com.joey.cheaterbuster.entity.MatchParticipant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface MatchParticipantRepository extends JpaRepository<MatchParticipant, MatchParticipant.Key> {
+
+    /**
+     * @param matchId The match ID
+     * @return every participant of the match
+     */
+    List<MatchParticipant> findByMatchId(String matchId);
+}
@@ -3,8 +3,11 @@ package com.joey.cheaterbuster.repository;
 import com.joey.cheaterbuster.entity.PlayerData;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,6 +15,12 @@ public interface PlayerDataRepository extends JpaRepository<PlayerData, String>
     Optional<PlayerData> findBySteamId(String steamId);
     boolean existsBySteamId(String steamId);
 
-    @Query(value = "SELECT * FROM player_data ORDER BY RAND() LIMIT 1", nativeQuery = true)
-    Optional<PlayerData> findRandomPlayer();
+    /**
+     * Key-only existence check for a batch of Steam IDs, without loading the entities.
+     *
+     * @param steamIds The Steam64 IDs to check
+     * @return the subset of the IDs that are stored
+     */
+    @Query("SELECT p.steamId FROM PlayerData p WHERE p.steamId IN :steamIds")
+    List<String> findExistingSteamIds(@Param("steamIds") Collection<String> steamIds);
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.joey.cheaterbuster.repository;
+
+import com.joey.cheaterbuster.entity.PlayerTeammate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PlayerTeammateRepository extends JpaRepository<PlayerTeammate, PlayerTeammate.Key> {
+
+    /**
+     * @param steamId The player's Steam64 ID
+     * @return the Steam64 IDs of the player's stored recent teammates
+     */
+    @Query("SELECT t.teammateSteamId FROM PlayerTeammate t WHERE t.steamId = :steamId")
+    List<String> findTeammateSteamIds(@Param("steamId") String steamId);
+}
@@ -0,0 +1,24 @@
+package com.joey.cheaterbuster.repository;
+
+import com.joey.cheaterbuster.entity.VaclistPageLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface VaclistPageLeaseRepository extends JpaRepository<VaclistPageLease, Integer> {
+
+    @Query(value = "SELECT page FROM vaclist_page_lease WHERE state = 'IN_PROGRESS' AND lease_expires_at < :now " +
+            "ORDER BY page LIMIT 1 FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<Integer> lockExpiredPage(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE VaclistPageLease l SET l.leaseExpiresAt = :expiresAt, l.updatedAt = :now " +
+            "WHERE l.leaseOwner = :owner AND l.state = com.joey.cheaterbuster.entity.VaclistPageLease.State.IN_PROGRESS")
+    int extendLeases(@Param("owner") String owner, @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+}
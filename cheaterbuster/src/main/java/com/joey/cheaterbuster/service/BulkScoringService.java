@@ -0,0 +1,322 @@
+package com.joey.cheaterbuster.service;
+
+import com.joey.cheaterbuster.dto.leetify.player.PlayerDataDTO;
+import com.joey.cheaterbuster.dto.model.PredictionResultDTO;
+import com.joey.cheaterbuster.entity.CrawlCursor;
+import com.joey.cheaterbuster.mapper.PlayerDataMapper;
+import com.joey.cheaterbuster.repository.PlayerDataRepository;
+import com.joey.cheaterbuster.service.model.LocalModelScorer;
+import com.joey.cheaterbuster.service.model.PredictionCache;
+import com.joey.cheaterbuster.service.pipeline.PipelineStage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Scores every stored player and writes the predictions to the player_prediction table, so risk can be read and
+ * queried there instead of calling the predict endpoint one player at a time.
+ * <p>
+ * A pass streams player_data in Steam ID order through a single cursor, skipping players whose stored prediction
+ * is already for their current profile and the current model, and cuts the rows into chunks of feature vectors.
+ * The chunks are scored in parallel, one worker per core by default, with the local model's batch evaluator;
+ * rows the local model can't score go to the ML service in batches. Each scored chunk is written as one JDBC batch.
+ * <p>
+ * The Steam ID every earlier chunk has been written up to is kept in crawl_cursor, so a stopped or failed pass
+ * resumes where it left off, and the cursor is reset once a pass completes. Players that fail to score are left
+ * for the next pass, which only picks up stale predictions.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkScoringService {
+
+    private static final String SELECT_CURSOR_SQL = "SELECT key_position FROM crawl_cursor WHERE name = ?";
+    // The numeric position column is unused by this cursor
+    private static final String SAVE_CURSOR_SQL =
+            "INSERT INTO crawl_cursor (name, position, key_position, updated_at) VALUES (?, 0, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE key_position = VALUES(key_position), updated_at = VALUES(updated_at)";
+    // Feature names come from the model config and are used as column names
+    private static final Pattern COLUMN_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LocalModelScorer localModelScorer;
+    private final ModelService modelService;
+    private final PredictionCache predictionCache;
+    private final PlayerDataRepository playerDataRepository;
+    private final PlayerDataMapper playerDataMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${scoring.chunk-size:1024}")
+    private int chunkSize;
+
+    @Value("${scoring.fetch-size:1000}")
+    private int fetchSize;
+
+    // 0 for one worker per core
+    @Value("${scoring.workers:0}")
+    private int workers;
+
+    private Counter localScored;
+    private Counter remoteScored;
+    private Counter scoringFailures;
+
+    /**
+     * Feature rows of consecutive players, in the order they were read.
+     */
+    private record Chunk(long sequence, String[] steamIds, LocalDateTime[] updatedAt, float[] rows, int count) {
+    }
+
+    @PostConstruct
+    public void initMetrics() {
+        localScored = Counter.builder("scoring.players")
+                .description("Players scored by the bulk scoring job, by where the model was evaluated")
+                .tag("engine", "local")
+                .register(meterRegistry);
+        remoteScored = Counter.builder("scoring.players")
+                .description("Players scored by the bulk scoring job, by where the model was evaluated")
+                .tag("engine", "remote")
+                .register(meterRegistry);
+        scoringFailures = Counter.builder("scoring.failures")
+                .description("Players the bulk scoring job failed to score, left for the next pass")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Scores the stored players without a current prediction, resuming an unfinished pass.
+     *
+     * @param shouldStop Checked between rows so a long pass can be stopped; the cursor keeps its progress
+     * @return the number of players scored
+     */
+    public long scorePass(BooleanSupplier shouldStop) {
+        String modelVersion = modelService.modelVersion();
+        if (modelVersion == null) {
+            log.warn("Model version is unknown, so predictions can't be stored; skipping bulk scoring");
+            return 0;
+        }
+        List<String> features = localModelScorer.featureNames();
+        if (!features.stream().allMatch(feature -> COLUMN_NAME.matcher(feature).matches())) {
+            log.error("Model features aren't plain column names, skipping bulk scoring: {}", features);
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        String resumeAfter = readCursor();
+        int workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicLong scored = new AtomicLong();
+        ChunkProgress progress = new ChunkProgress();
+        PipelineStage<Chunk> scoreStage = new PipelineStage<>("bulk-score", workerCount * 2, workerCount, 1, 0,
+                batch -> batch.forEach(chunk -> {
+                    scored.addAndGet(scoreChunk(chunk, modelVersion));
+                    progress.complete(chunk.sequence(), chunk.steamIds()[chunk.count() - 1]);
+                }),
+                meterRegistry);
+        log.info("Bulk scoring with model {} ({} features locally, {} workers), resuming after Steam ID '{}'",
+                modelVersion, features.size(), workerCount, resumeAfter);
+
+        scoreStage.start();
+        long chunks;
+        try {
+            chunks = streamChunks(features, modelVersion, resumeAfter, scoreStage, shouldStop);
+        } finally {
+            scoreStage.stop(TimeUnit.MINUTES.toMillis(5));
+        }
+        boolean finished = chunks >= 0 && progress.isCommittedThrough(chunks);
+        if (finished) {
+            saveCursor("");
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info("Bulk scoring {} - {} players scored in {}s ({} players/s)", finished ? "pass finished" : "stopped",
+                scored.get(), String.format("%.1f", seconds), String.format("%.0f", scored.get() / Math.max(seconds, 1e-3)));
+        return scored.get();
+    }
+
+    /**
+     * Reads the players needing a score through one forward-only cursor and queues them in chunks.
+     *
+     * @return the number of chunks queued, or -1 if the pass was stopped before every row was read
+     */
+    private long streamChunks(List<String> features, String modelVersion, String resumeAfter,
+                              PipelineStage<Chunk> scoreStage, BooleanSupplier shouldStop) {
+        String sql = "SELECT pd.steam_id, pd.updated_at"
+                + features.stream().map(feature -> ", pd." + feature).collect(Collectors.joining())
+                + " FROM player_data pd LEFT JOIN player_prediction pp ON pp.steam_id = pd.steam_id"
+                + " WHERE pd.steam_id > ? AND pd.updated_at IS NOT NULL"
+                + " AND (pp.steam_id IS NULL OR pp.model_version <> ? OR pp.profile_updated_at <> pd.updated_at)"
+                + " ORDER BY pd.steam_id";
+        int numFeatures = features.size();
+        Long chunks = jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // With useCursorFetch, rows arrive fetchSize at a time instead of the whole result at once
+            ps.setFetchSize(fetchSize);
+            ps.setString(1, resumeAfter);
+            ps.setString(2, modelVersion);
+            return ps;
+        }, rs -> {
+            long sequence = 0;
+            String[] steamIds = new String[chunkSize];
+            LocalDateTime[] updatedAt = new LocalDateTime[chunkSize];
+            float[] rows = new float[chunkSize * numFeatures];
+            int count = 0;
+            while (rs.next()) {
+                if (shouldStop.getAsBoolean()) {
+                    return -1L;
+                }
+                steamIds[count] = rs.getString(1);
+                updatedAt[count] = rs.getTimestamp(2).toLocalDateTime();
+                for (int i = 0; i < numFeatures; i++) {
+                    // Missing values are 0, as for profiles scored through ModelService
+                    rows[count * numFeatures + i] = rs.getFloat(3 + i);
+                }
+                if (++count == chunkSize) {
+                    if (!submit(scoreStage, new Chunk(sequence++, steamIds, updatedAt, rows, count))) {
+                        return -1L;
+                    }
+                    steamIds = new String[chunkSize];
+                    updatedAt = new LocalDateTime[chunkSize];
+                    rows = new float[chunkSize * numFeatures];
+                    count = 0;
+                }
+            }
+            if (count > 0 && !submit(scoreStage, new Chunk(sequence++, steamIds, updatedAt, rows, count))) {
+                return -1L;
+            }
+            return sequence;
+        });
+        return chunks == null ? -1 : chunks;
+    }
+
+    private static boolean submit(PipelineStage<Chunk> scoreStage, Chunk chunk) {
+        if (!scoreStage.submit(chunk)) {
+            log.warn("Bulk scoring stage stopped, ending the pass early");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Scores a chunk locally where the model allows, the rest through the ML service, and stores the predictions.
+     *
+     * @return the number of players scored
+     */
+    private int scoreChunk(Chunk chunk, String modelVersion) {
+        double[] probabilities = new double[chunk.count()];
+        if (!localModelScorer.scoreBatch(chunk.rows(), chunk.count(), probabilities)) {
+            Arrays.fill(probabilities, Double.NaN);
+        }
+
+        List<PredictionCache.ScoredProfile> local = new ArrayList<>(chunk.count());
+        List<String> remote = new ArrayList<>();
+        for (int r = 0; r < chunk.count(); r++) {
+            if (Double.isNaN(probabilities[r])) {
+                remote.add(chunk.steamIds()[r]);
+            } else {
+                local.add(new PredictionCache.ScoredProfile(chunk.steamIds()[r], chunk.updatedAt()[r],
+                        ModelService.toResult(probabilities[r])));
+            }
+        }
+
+        int scored = 0;
+        try {
+            predictionCache.persist(local, modelVersion);
+            localScored.increment(local.size());
+            scored += local.size();
+        } catch (Exception e) {
+            scoringFailures.increment(local.size());
+            log.error("Failed to store {} bulk predictions - {}", local.size(), e.getMessage());
+        }
+        if (!remote.isEmpty()) {
+            try {
+                // Batched to the ML service, then stored like the local scores, without filling the in-memory cache
+                List<PlayerDataDTO> profiles = playerDataRepository.findAllById(remote).stream()
+                        .map(playerDataMapper::toDTO)
+                        .toList();
+                List<PredictionResultDTO> results = modelService.predictRemotely(profiles);
+                List<PredictionCache.ScoredProfile> remoteScores = new ArrayList<>(profiles.size());
+                for (int i = 0; i < profiles.size(); i++) {
+                    remoteScores.add(new PredictionCache.ScoredProfile(profiles.get(i).getSteamId(),
+                            profiles.get(i).getUpdatedAt(), results.get(i)));
+                }
+                predictionCache.persist(remoteScores, modelVersion);
+                remoteScored.increment(profiles.size());
+                scored += profiles.size();
+            } catch (Exception e) {
+                scoringFailures.increment(remote.size());
+                log.warn("Failed to score {} players through the ML service - {}", remote.size(), e.getMessage());
+            }
+        }
+        return scored;
+    }
+
+    /**
+     * @return the Steam ID to resume after, or an empty string to start from the first player
+     */
+    private String readCursor() {
+        List<String> positions = jdbcTemplate.queryForList(SELECT_CURSOR_SQL, String.class, CrawlCursor.BULK_SCORING);
+        return positions.isEmpty() || positions.getFirst() == null ? "" : positions.getFirst();
+    }
+
+    private void saveCursor(String steamId) {
+        jdbcTemplate.update(SAVE_CURSOR_SQL, CrawlCursor.BULK_SCORING, steamId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * Tracks chunks finishing out of order and moves the cursor to the end of the last chunk every earlier one
+     * has also finished, so a resumed pass never skips an unwritten chunk.
+     */
+    private final class ChunkProgress {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        // Last Steam ID of each finished chunk still waiting for an earlier one
+        private final Map<Long, String> finished = new HashMap<>();
+        private long nextSequence = 0;
+
+        void complete(long sequence, String lastSteamId) {
+            lock.lock();
+            try {
+                finished.put(sequence, lastSteamId);
+                String committed = null;
+                while (finished.containsKey(nextSequence)) {
+                    committed = finished.remove(nextSequence++);
+                }
+                if (committed != null) {
+                    // Kept as the key itself, so the resumed query compares it the way the pass ordered the rows
+                    saveCursor(committed);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to save the bulk scoring cursor - {}", e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return true if the first {@code chunks} chunks have all finished
+         */
+        boolean isCommittedThrough(long chunks) {
+            lock.lock();
+            try {
+                return nextSequence == chunks;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
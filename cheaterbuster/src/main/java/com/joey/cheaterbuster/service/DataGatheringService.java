@@ -1,9 +1,14 @@
 package com.joey.cheaterbuster.service;
 
 import com.joey.cheaterbuster.dto.leetify.player.PlayerDataDTO;
-import com.joey.cheaterbuster.entity.PlayerData;
 import com.joey.cheaterbuster.repository.PlayerDataRepository;
+import com.joey.cheaterbuster.service.archive.ArchiveReplayService;
+import com.joey.cheaterbuster.service.outbound.RequestPriority;
+import com.joey.cheaterbuster.service.player.CrawlFrontierStore;
 import com.joey.cheaterbuster.service.player.LeetifyPlayerService;
+import com.joey.cheaterbuster.service.player.ProfileRefreshService;
+import com.joey.cheaterbuster.service.player.SeedSampler;
+import com.joey.cheaterbuster.service.player.VaclistPagePrefetcher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -17,6 +22,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @Service
@@ -25,6 +31,12 @@ public class DataGatheringService {
 
     private final LeetifyPlayerService leetifyPlayerService;
     private final PlayerDataRepository playerDataRepository;
+    private final CrawlFrontierStore crawlFrontierStore;
+    private final VaclistPagePrefetcher vaclistPagePrefetcher;
+    private final ArchiveReplayService archiveReplayService;
+    private final SeedSampler seedSampler;
+    private final ProfileRefreshService profileRefreshService;
+    private final BulkScoringService bulkScoringService;
 
     @Value("${gathering.delay-between-batches:5000}")
     private long delayBetweenBatches;
@@ -35,21 +47,28 @@ public class DataGatheringService {
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
     private final AtomicBoolean shouldStop = new AtomicBoolean(false);
     private final AtomicInteger totalGathered = new AtomicInteger(0);
+    private final AtomicLong bannedNewProfiles = new AtomicLong(0);
+    private final AtomicLong bannedAlreadyKnown = new AtomicLong(0);
     private final ExecutorService executor = Executors.newSingleThreadExecutor();
 
     private Instant startTime;
     private GatheringMode currentMode = GatheringMode.BANNED;
     private int batchSize;
+    private int concurrency;
+    private SeedSampler.Stratum seedStratum = SeedSampler.Stratum.ANY;
 
     public enum GatheringMode {
         BANNED,
-        RANDOM
+        RANDOM,
+        REPLAY,
+        REFRESH,
+        SCORE
     }
 
     /**
      * Start the data gathering process in the background
      */
-    public synchronized boolean start(GatheringMode mode, int batchSize) {
+    public synchronized boolean start(GatheringMode mode, int batchSize, int concurrency, SeedSampler.Stratum seedStratum) {
         if (isRunning.get()) {
             log.warn("Data gathering is already running");
             return false;
@@ -57,15 +76,20 @@ public class DataGatheringService {
 
         this.currentMode = mode;
         this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.seedStratum = seedStratum;
         this.shouldStop.set(false);
         this.totalGathered.set(0);
+        this.bannedNewProfiles.set(0);
+        this.bannedAlreadyKnown.set(0);
         this.startTime = Instant.now();
 
         isRunning.set(true);
 
         executor.submit(() -> {
             try {
-                runGatheringLoop();
+                // Gathering traffic queues behind interactive requests in the outbound scheduler
+                RequestPriority.BACKGROUND.runAs(this::runGatheringLoop);
             } catch (Exception e) {
                 log.error("Data gathering failed with exception", e);
             } finally {
@@ -74,7 +98,7 @@ public class DataGatheringService {
             }
         });
 
-        log.info("Data gathering started - Mode: {}, Batch size: {}", mode, batchSize);
+        log.info("Data gathering started - Mode: {}, Batch size: {}, Concurrency: {}", mode, batchSize, concurrency);
         return true;
     }
 
@@ -96,13 +120,16 @@ public class DataGatheringService {
      * Main gathering loop that runs continuously
      */
     private void runGatheringLoop() {
-        log.info("Starting gathering loop - Mode: {}, Batch size: {}", currentMode, batchSize);
+        log.info("Starting gathering loop - Mode: {}, Batch size: {}, Concurrency: {}", currentMode, batchSize, concurrency);
 
         while (!shouldStop.get()) {
             try {
                 int gathered = switch (currentMode) {
                     case BANNED -> gatherBannedPlayers();
                     case RANDOM -> gatherRandomPlayers();
+                    case REPLAY -> replayArchive();
+                    case REFRESH -> refreshStaleProfiles();
+                    case SCORE -> scoreStoredPlayers();
                 };
 
                 totalGathered.addAndGet(gathered);
@@ -129,6 +156,8 @@ public class DataGatheringService {
             }
         }
 
+        // Hand back any VacList pages fetched ahead so other nodes can take them
+        vaclistPagePrefetcher.stop();
         log.info("Gathering loop finished - Total profiles gathered: {}", totalGathered.get());
     }
 
@@ -137,9 +166,12 @@ public class DataGatheringService {
      */
     private int gatherBannedPlayers() {
         try {
-            List<PlayerDataDTO> profiles = leetifyPlayerService.getBannedPlayerProfiles();
-            log.info("Successfully gathered {} banned player profiles", profiles.size());
-            return profiles.size();
+            LeetifyPlayerService.BannedPageResult result = leetifyPlayerService.getBannedPlayerProfiles();
+            bannedNewProfiles.addAndGet(result.getNewCount());
+            bannedAlreadyKnown.addAndGet(result.getAlreadyKnownCount());
+            log.info("Successfully gathered {} new banned player profiles from page {} ({} already known)",
+                    result.getNewCount(), result.getPage(), result.getAlreadyKnownCount());
+            return result.getNewCount();
         } catch (Exception e) {
             log.error("Failed to gather banned players", e);
             return 0;
@@ -147,24 +179,28 @@ public class DataGatheringService {
     }
 
     /**
-     * Gather a batch of random players
+     * Gather a batch of random players by continuing the durable crawl frontier.
+     * A random stored player from the selected seed stratum is only used as a seed when the frontier has nothing pending.
      */
     private int gatherRandomPlayers() {
-        log.debug("Fetching batch of {} players via random network traversal", batchSize);
+        log.debug("Fetching batch of {} players via network traversal", batchSize);
 
         try {
-            // Get a random player from database as seed
-            Optional<PlayerData> randomPlayer = playerDataRepository.findRandomPlayer();
+            String seedSteamId = null;
+            if (!leetifyPlayerService.hasPendingFrontier()) {
+                // Frontier exhausted, get a random player from database as seed
+                Optional<String> randomSeed = seedSampler.sample(seedStratum);
+
+                if (randomSeed.isEmpty()) {
+                    log.warn("No {} players in database to use as seed for random gathering. Please add some players first.", seedStratum);
+                    return 0;
+                }
 
-            if (randomPlayer.isEmpty()) {
-                log.warn("No players in database to use as seed for random gathering. Please add some players first.");
-                return 0;
+                seedSteamId = randomSeed.get();
+                log.info("Crawl frontier is empty, using {} player {} as seed for network traversal", seedStratum, seedSteamId);
             }
 
-            String seedSteamId = randomPlayer.get().getSteamId();
-            log.info("Using player {} as seed for network traversal", seedSteamId);
-
-            List<PlayerDataDTO> profiles = leetifyPlayerService.getPlayerProfiles(batchSize, seedSteamId);
+            List<PlayerDataDTO> profiles = leetifyPlayerService.getPlayerProfilesFromFrontier(batchSize, seedSteamId, concurrency);
             log.info("Successfully gathered {} player profiles via network traversal", profiles.size());
             return profiles.size();
 
@@ -174,6 +210,38 @@ public class DataGatheringService {
         }
     }
 
+    /**
+     * Backfill player_data from the raw response archive without calling Leetify.
+     * A replay is a single pass, so the loop stops once it finishes.
+     */
+    private int replayArchive() {
+        long replayed = archiveReplayService.replayProfiles(concurrency, shouldStop::get);
+        shouldStop.set(true);
+        return (int) replayed;
+    }
+
+    /**
+     * Re-fetch a batch of stale stored profiles, ranked by staleness, activity and predicted risk
+     */
+    private int refreshStaleProfiles() {
+        try {
+            return profileRefreshService.refreshStalest(batchSize, shouldStop::get);
+        } catch (Exception e) {
+            log.error("Failed to refresh stale profiles", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Precompute risk for every stored player without a current prediction.
+     * A scoring pass resumes where the last one stopped and covers the whole table, so the loop stops once it finishes.
+     */
+    private int scoreStoredPlayers() {
+        long scored = bulkScoringService.scorePass(shouldStop::get);
+        shouldStop.set(true);
+        return (int) scored;
+    }
+
     /**
      * Get current status of data gathering
      */
@@ -182,7 +250,12 @@ public class DataGatheringService {
                 .isRunning(isRunning.get())
                 .mode(currentMode)
                 .batchSize(batchSize)
+                .concurrency(concurrency)
+                .seedStratum(seedStratum)
                 .totalProfilesGathered(totalGathered.get())
+                .bannedNewProfiles(bannedNewProfiles.get())
+                .bannedAlreadyKnown(bannedAlreadyKnown.get())
+                .frontierPending(crawlFrontierStore.cachedPendingCount())
                 .uptime(isRunning.get() && startTime != null ?
                         Duration.between(startTime, Instant.now()).getSeconds() : 0)
                 .build();
@@ -204,7 +277,12 @@ public class DataGatheringService {
         private boolean isRunning;
         private GatheringMode mode;
         private int batchSize;
+        private int concurrency;
+        private SeedSampler.Stratum seedStratum;
         private int totalProfilesGathered;
+        private long bannedNewProfiles;
+        private long bannedAlreadyKnown;
+        private long frontierPending;
         private long uptime; // in seconds
     }
 }
\ No newline at end of file
@@ -1,32 +1,267 @@
 package com.joey.cheaterbuster.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.joey.cheaterbuster.dto.leetify.player.PlayerDataDTO;
+import com.joey.cheaterbuster.dto.model.PredictionBatchRequestDTO;
+import com.joey.cheaterbuster.dto.model.PredictionBatchResultDTO;
 import com.joey.cheaterbuster.dto.model.PredictionRequestDTO;
 import com.joey.cheaterbuster.dto.model.PredictionResultDTO;
-import com.joey.cheaterbuster.entity.PlayerData;
+import com.joey.cheaterbuster.service.model.LocalModelScorer;
+import com.joey.cheaterbuster.service.model.PredictionCache;
+import com.joey.cheaterbuster.service.pipeline.PipelineStage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Predicts whether players are cheating, in-process when the exported model allows it and otherwise through the
+ * ML service.
+ * <p>
+ * Requests for the ML service go through a micro-batching stage: concurrent callers are collected for up to
+ * {@code ml.batch.max-wait-ms}, or until {@code ml.batch.max-size} are waiting, and sent as one
+ * {@code /predict_batch} request. Each caller blocks on its own future, which is resolved from its position
+ * in the batch response. If the ML service predates {@code /predict_batch}, requests fall back to {@code /predict}.
+ * <p>
+ * Predictions for stored profiles are cached by {@link PredictionCache} against the profile's {@code updated_at} and
+ * the model version: the local model's when it is loaded, otherwise the one the ML service reports on
+ * {@code /model-info}, which is polled so a redeployed model is noticed.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ModelService {
 
+    @Qualifier("mlRestTemplate")
     private final RestTemplate restTemplate;
+    private final LocalModelScorer localModelScorer;
+    private final PredictionCache predictionCache;
+    private final MeterRegistry meterRegistry;
 
     @Value("${ml.service.url}")
     private String mlServiceUrl;
 
+    @Value("${ml.batch.enabled:true}")
+    private boolean batchEnabled;
+
+    @Value("${ml.batch.max-size:64}")
+    private int batchMaxSize;
+
+    @Value("${ml.batch.max-wait-ms:5}")
+    private long batchMaxWaitMs;
+
+    @Value("${ml.batch.concurrency:4}")
+    private int batchConcurrency;
+
+    @Value("${ml.batch.queue-capacity:1000}")
+    private int batchQueueCapacity;
+
+    private Counter localPredictions;
+    private Counter remotePredictions;
+    private PipelineStage<PendingPrediction> batchStage;
+    // Cleared if the ML service answers 404, so an older deployment is called one player at a time
+    private volatile boolean batchEndpointAvailable = true;
+    // Model version reported by the ML service, null until it has answered
+    private volatile String remoteModelVersion;
+
+    /**
+     * A request waiting for the next batch to the ML service, and the caller's future for its result.
+     */
+    private record PendingPrediction(PredictionRequestDTO request, CompletableFuture<PredictionResultDTO> result) {
+    }
+
+    @PostConstruct
+    public void start() {
+        localPredictions = Counter.builder("model.predictions")
+                .description("Predictions made, by where the model was evaluated")
+                .tag("engine", "local")
+                .register(meterRegistry);
+        remotePredictions = Counter.builder("model.predictions")
+                .description("Predictions made, by where the model was evaluated")
+                .tag("engine", "remote")
+                .register(meterRegistry);
+        if (batchEnabled) {
+            batchStage = new PipelineStage<>("ml-batch", batchQueueCapacity, batchConcurrency, batchMaxSize,
+                    batchMaxWaitMs, this::callMLServiceBatch, meterRegistry);
+            batchStage.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (batchStage != null) {
+            batchStage.stop(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    /**
+     * Predicts whether a player is cheating. Returns the cached prediction if this version of the profile was already
+     * scored by the current model; otherwise scores it in-process when the exported model can reproduce the ML
+     * service's result for this profile, or by the ML service.
+     *
+     * @param playerData The player's profile
+     * @return the prediction
+     */
     public PredictionResultDTO getPrediction(PlayerDataDTO playerData) {
         log.debug("Getting prediction for player: {} ({})", playerData.getName(), playerData.getSteamId());
 
+        String modelVersion = modelVersion();
+        Optional<PredictionResultDTO> cached = predictionCache.get(playerData, modelVersion);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        PredictionResultDTO result = await(predict(playerData));
+        predictionCache.put(playerData, modelVersion, result);
+        return result;
+    }
+
+    /**
+     * Predicts for several players at once. Cached predictions are looked up together, and profiles the exported
+     * model can't score are queued for the ML service together, so they share batches instead of each waiting
+     * for its own round trip.
+     *
+     * @param players The players' profiles
+     * @return the predictions, in the same order
+     */
+    public List<PredictionResultDTO> getPredictions(List<PlayerDataDTO> players) {
+        String modelVersion = modelVersion();
+        Map<String, PredictionResultDTO> cached = predictionCache.getAll(players, modelVersion);
+        List<CompletableFuture<PredictionResultDTO>> futures = new ArrayList<>(players.size());
+        List<PlayerDataDTO> scored = new ArrayList<>();
+        List<CompletableFuture<PredictionResultDTO>> scoredFutures = new ArrayList<>();
+        for (PlayerDataDTO playerData : players) {
+            PredictionResultDTO hit = playerData.getSteamId() == null ? null : cached.get(playerData.getSteamId());
+            if (hit != null) {
+                futures.add(CompletableFuture.completedFuture(hit));
+            } else {
+                CompletableFuture<PredictionResultDTO> result = predict(playerData);
+                futures.add(result);
+                scored.add(playerData);
+                scoredFutures.add(result);
+            }
+        }
+        List<PredictionResultDTO> results = futures.stream().map(ModelService::await).toList();
+        List<PredictionResultDTO> scoredResults = scoredFutures.stream().map(CompletableFuture::join).toList();
+        predictionCache.putAll(scored, modelVersion, scoredResults);
+        return results;
+    }
+
+    /**
+     * Scores profiles through the ML service only, without reading or filling the prediction cache, for callers that
+     * store the predictions themselves. The profiles are queued together, so they share batches.
+     *
+     * @param players The players' profiles
+     * @return the predictions, in the same order
+     */
+    public List<PredictionResultDTO> predictRemotely(List<PlayerDataDTO> players) {
+        List<CompletableFuture<PredictionResultDTO>> futures = players.stream().map(this::predictRemotely).toList();
+        return futures.stream().map(ModelService::await).toList();
+    }
+
+    /**
+     * @return the version of the model predictions currently come from, or null if it isn't known yet
+     */
+    public String modelVersion() {
+        return localModelScorer.modelVersion().orElse(remoteModelVersion);
+    }
+
+    /**
+     * Polls the ML service for the version of the model it serves.
+     */
+    @Scheduled(fixedDelayString = "${ml.version.refresh-interval-ms:60000}")
+    public void refreshModelVersion() {
+        try {
+            JsonNode info = restTemplate.getForObject(mlServiceUrl + "/model-info", JsonNode.class);
+            String version = info == null ? null : info.path("version").asText(null);
+            if (version != null && !version.equals(remoteModelVersion)) {
+                log.info("ML service is serving model version {}", version);
+                remoteModelVersion = version;
+            }
+        } catch (Exception e) {
+            log.debug("Failed to read the ML service's model version - {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Scores a profile in-process if the exported model can, otherwise through the ML service.
+     */
+    private CompletableFuture<PredictionResultDTO> predict(PlayerDataDTO playerData) {
+        OptionalDouble localProbability = localModelScorer.score(playerData);
+        if (localProbability.isPresent()) {
+            localPredictions.increment();
+            return CompletableFuture.completedFuture(toResult(localProbability.getAsDouble()));
+        }
+        return predictRemotely(playerData);
+    }
+
+    /**
+     * Queues a profile for the next batch to the ML service, or calls the service straight away if batching is off
+     * or shutting down.
+     */
+    private CompletableFuture<PredictionResultDTO> predictRemotely(PlayerDataDTO playerData) {
         PredictionRequestDTO request = buildPredictionRequest(playerData);
-        return callMLService(request);
+        remotePredictions.increment();
+        if (batchStage != null) {
+            CompletableFuture<PredictionResultDTO> result = new CompletableFuture<>();
+            if (batchStage.submit(new PendingPrediction(request, result))) {
+                return result;
+            }
+        }
+        try {
+            return CompletableFuture.completedFuture(callMLService(request));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Waits for a prediction, rethrowing the failure the ML service call ended with.
+     */
+    private static PredictionResultDTO await(CompletableFuture<PredictionResultDTO> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Builds the response the ML service would return for a probability: XGBoost's predict labels
+     * probabilities above 0.5 as cheaters, and the risk bands are the service's.
+     */
+    static PredictionResultDTO toResult(double probability) {
+        String riskLevel;
+        if (probability >= 0.8) {
+            riskLevel = "HIGH";
+        } else if (probability >= 0.5) {
+            riskLevel = "MEDIUM";
+        } else if (probability >= 0.3) {
+            riskLevel = "LOW";
+        } else {
+            riskLevel = "MINIMAL";
+        }
+        return new PredictionResultDTO(probability > 0.5 ? 1 : 0, probability, Math.max(probability, 1 - probability), riskLevel);
     }
 
     private PredictionRequestDTO buildPredictionRequest(PlayerDataDTO dto) {
@@ -46,6 +281,7 @@ public class ModelService {
                     .flashbangLeadingToKill(dto.getStats().getFlashbangLeadingToKill())
                     .flashbangThrown(dto.getStats().getFlashbangThrown())
                     .heFoesDamageAvg(dto.getStats().getHeFoesDamageAvg())
+                    .heFriendsDamageAvg(dto.getStats().getHeFriendsDamageAvg())
                     .preaim(dto.getStats().getPreaim())
                     .reactionTimeMs(dto.getStats().getReactionTimeMs())
                     .sprayAccuracy(dto.getStats().getSprayAccuracy())
@@ -104,5 +340,61 @@ public class ModelService {
             throw new RuntimeException("Failed to call ML service", e);
         }
     }
-}
 
+    /**
+     * Sends a batch of queued requests as one {@code /predict_batch} call and resolves each caller's future.
+     * Runs on the batch stage's workers; never throws, since a failure has to reach every waiting caller.
+     */
+    private void callMLServiceBatch(List<PendingPrediction> batch) {
+        if (batch.size() == 1 || !batchEndpointAvailable) {
+            for (PendingPrediction pending : batch) {
+                try {
+                    pending.result().complete(callMLService(pending.request()));
+                } catch (RuntimeException e) {
+                    pending.result().completeExceptionally(e);
+                }
+            }
+            return;
+        }
+
+        String url = mlServiceUrl + "/predict_batch";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<PredictionBatchRequestDTO> entity = new HttpEntity<>(
+                new PredictionBatchRequestDTO(batch.stream().map(PendingPrediction::request).toList()), headers);
+
+        try {
+            log.debug("Calling ML service at: {} for {} players", url, batch.size());
+            PredictionBatchResultDTO response = restTemplate.exchange(
+                    url,
+                    HttpMethod.POST,
+                    entity,
+                    PredictionBatchResultDTO.class
+            ).getBody();
+
+            List<PredictionResultDTO> results = response == null ? null : response.getPredictions();
+            if (results == null || results.size() != batch.size()) {
+                throw new IllegalStateException("ML service returned " + (results == null ? "no" : results.size())
+                        + " predictions for " + batch.size() + " players");
+            }
+            log.info("ML batch prediction received for {} players", results.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(results.get(i));
+            }
+        } catch (HttpClientErrorException.NotFound e) {
+            log.warn("ML service has no batch endpoint, falling back to one request per player");
+            batchEndpointAvailable = false;
+            callMLServiceBatch(batch);
+        } catch (HttpClientErrorException e) {
+            log.error("ML service error: {} - {}", e.getStatusCode(), e.getMessage());
+            fail(batch, new RuntimeException("ML service error: " + e.getStatusCode(), e));
+        } catch (Exception e) {
+            log.error("Unexpected error calling ML service for {} players: {}", batch.size(), e.getMessage(), e);
+            fail(batch, new RuntimeException("Failed to call ML service", e));
+        }
+    }
+
+    private static void fail(List<PendingPrediction> batch, RuntimeException failure) {
+        batch.forEach(pending -> pending.result().completeExceptionally(failure));
+    }
+}
@@ -0,0 +1,175 @@
+package com.joey.cheaterbuster.service.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joey.cheaterbuster.dto.leetify.player.PlayerDataDTO;
+import com.joey.cheaterbuster.service.archive.RawResponseArchive.Kind;
+import com.joey.cheaterbuster.service.player.PlayerDataWriter;
+import com.joey.cheaterbuster.service.player.PlayerDataWriter.ArchivedProfile;
+import com.joey.cheaterbuster.util.LongHashSet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+/**
+ * Backfills player_data from the raw response archive without calling Leetify, so new {@code PlayerData} columns
+ * can be populated for every player already fetched.
+ * <p>
+ * The segment indexes are read newest first to pick each player's latest archived profile; the segments are then
+ * replayed in parallel, each read sequentially, parsed, mapped through {@code PlayerDataMapper} and upserted in batches.
+ * The archive is per node, so a profile fetched before its row was last checked is skipped rather than written over a
+ * newer one.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ArchiveReplayService {
+
+    private final RawResponseArchive rawResponseArchive;
+    private final PlayerDataWriter playerDataWriter;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${pipeline.persist.batch-size:100}")
+    private int batchSize;
+
+    // A response is archived before its profile is written, so its own write stamps a slightly later checked_at
+    @Value("${archive.replay.write-lag-ms:60000}")
+    private long writeLagMs;
+
+    private Counter replayedProfiles;
+    private Counter replayFailures;
+    private Counter skippedProfiles;
+
+    @PostConstruct
+    public void initMetrics() {
+        replayedProfiles = Counter.builder("archive.replay.profiles")
+                .description("Archived player profiles replayed into player_data")
+                .register(meterRegistry);
+        replayFailures = Counter.builder("archive.replay.failures")
+                .description("Archived player profiles that could not be parsed or written")
+                .register(meterRegistry);
+        skippedProfiles = Counter.builder("archive.replay.skipped")
+                .description("Archived player profiles older than the stored row, which were not written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Replays the latest archived profile of every player into player_data.
+     *
+     * @param concurrency Number of segments replayed at once
+     * @param shouldStop Checked between batches so a long replay can be stopped
+     * @return the number of profiles written
+     */
+    public long replayProfiles(int concurrency, BooleanSupplier shouldStop) {
+        long start = System.nanoTime();
+        Map<Long, int[]> latestOffsets = selectLatestProfiles();
+        int selected = latestOffsets.values().stream().mapToInt(offsets -> offsets.length).sum();
+        log.info("Replaying {} archived profiles from {} segments with concurrency {}", selected, latestOffsets.size(), concurrency);
+
+        AtomicLong written = new AtomicLong();
+        List<Future<?>> segments = new ArrayList<>();
+        try (ExecutorService workers = Executors.newFixedThreadPool(concurrency, Thread.ofVirtual().name("archive-replay-", 0).factory())) {
+            latestOffsets.forEach((segmentId, offsets) ->
+                    segments.add(workers.submit(() -> replaySegment(segmentId, offsets, written, shouldStop))));
+        }
+        for (Future<?> segment : segments) {
+            try {
+                segment.get();
+            } catch (Exception e) {
+                log.error("Archive segment replay failed - {}", e.getMessage(), e);
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info("Archive replay finished - {} of {} profiles written in {}s ({} profiles/s)",
+                written.get(), selected, String.format("%.1f", seconds), String.format("%.0f", written.get() / Math.max(seconds, 1e-3)));
+        return written.get();
+    }
+
+    /**
+     * Walks the indexes newest entry first, keeping only the first (latest) profile seen for each Steam ID.
+     *
+     * @return the offsets to replay, by segment
+     */
+    private Map<Long, int[]> selectLatestProfiles() {
+        LongHashSet seen = new LongHashSet();
+        Map<Long, int[]> latestOffsets = new TreeMap<>();
+        List<Long> segmentIds = rawResponseArchive.segmentIds();
+        for (int i = segmentIds.size() - 1; i >= 0; i--) {
+            long segmentId = segmentIds.get(i);
+            List<RawResponseArchive.IndexEntry> profiles = new ArrayList<>();
+            rawResponseArchive.forEachIndexEntry(segmentId, entry -> {
+                if (entry.kind() == Kind.PROFILE) {
+                    profiles.add(entry);
+                }
+            });
+            IntStream.Builder offsets = IntStream.builder();
+            for (int j = profiles.size() - 1; j >= 0; j--) {
+                if (seen.add(profiles.get(j).steamId())) {
+                    offsets.add(profiles.get(j).offset());
+                }
+            }
+            int[] segmentOffsets = offsets.build().toArray();
+            if (segmentOffsets.length > 0) {
+                latestOffsets.put(segmentId, segmentOffsets);
+            }
+        }
+        return latestOffsets;
+    }
+
+    private void replaySegment(long segmentId, int[] offsets, AtomicLong written, BooleanSupplier shouldStop) {
+        List<ArchivedProfile> batch = new ArrayList<>(batchSize);
+        rawResponseArchive.readAll(segmentId, offsets, response -> {
+            if (shouldStop.getAsBoolean()) {
+                return;
+            }
+            try {
+                LocalDateTime fetchedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(response.fetchedAt()), ZoneId.systemDefault());
+                batch.add(new ArchivedProfile(objectMapper.readValue(response.body(), PlayerDataDTO.class), fetchedAt));
+            } catch (Exception e) {
+                replayFailures.increment();
+                log.warn("Skipping archived profile {} that could not be parsed - {}", response.key(), e.getMessage());
+                return;
+            }
+            if (batch.size() >= batchSize) {
+                flush(batch, written);
+            }
+        });
+        if (!shouldStop.getAsBoolean()) {
+            flush(batch, written);
+        }
+        log.debug("Replayed archive segment {} ({} profiles)", segmentId, offsets.length);
+    }
+
+    private void flush(List<ArchivedProfile> batch, AtomicLong written) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            int stored = playerDataWriter.upsert(batch, Duration.ofMillis(writeLagMs));
+            written.addAndGet(stored);
+            replayedProfiles.increment(stored);
+            skippedProfiles.increment(batch.size() - stored);
+        } catch (Exception e) {
+            replayFailures.increment(batch.size());
+            log.error("Failed to write batch of {} archived profiles - {}", batch.size(), e.getMessage());
+        }
+        batch.clear();
+    }
+}
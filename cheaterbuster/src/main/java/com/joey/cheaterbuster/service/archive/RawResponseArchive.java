@@ -0,0 +1,403 @@
+package com.joey.cheaterbuster.service.archive;
+
+import com.joey.cheaterbuster.util.Utils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only archive of every raw Leetify response, so new {@code PlayerData} columns can be backfilled from what
+ * was already fetched instead of re-crawling.
+ * <p>
+ * Responses are deflate-compressed one record at a time and appended to segment files as
+ * {@code [length][crc32][kind][fetchedAt][key][rawLength][compressed body]}. Every segment has an index file of
+ * fixed-width {@code [steamId][kind][offset][fetchedAt]} entries, one per Steam ID the response belongs to, so
+ * a player's responses can be found without decompressing the segments.
+ * Each run appends to a new segment, so a torn write from a crash is only ever at the end of a sealed segment.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RawResponseArchive {
+
+    private static final String SEGMENT_PREFIX = "archive-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int INDEX_ENTRY_BYTES = 24;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${archive.directory:./data/archive}")
+    private String directory;
+
+    @Value("${archive.segment-size-bytes:67108864}")
+    private long segmentSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final NavigableSet<Long> segmentIds = new TreeSet<>();
+    private Path archiveDirectory;
+    private long activeSegmentId;
+    private FileChannel activeSegment;
+    private FileChannel activeIndex;
+    private Counter archivedResponses;
+    private Counter rawBytes;
+    private Counter storedBytes;
+    private Counter archiveFailures;
+
+    /**
+     * The Leetify endpoint a response came from.
+     */
+    public enum Kind {
+        PROFILE,
+        MATCH_HISTORY,
+        MATCH_DETAILS
+    }
+
+    /**
+     * A raw response read back from the archive.
+     *
+     * @param kind The endpoint the response came from
+     * @param key The Steam ID or game ID the response was requested for
+     * @param fetchedAt When the response was fetched, in epoch milliseconds
+     * @param body The response body as received
+     */
+    public record ArchivedResponse(Kind kind, String key, long fetchedAt, byte[] body) {
+    }
+
+    /**
+     * An index entry: one of the Steam IDs a response belongs to and where the response is stored.
+     *
+     * @param steamId The Steam64 ID
+     * @param kind The endpoint the response came from
+     * @param segmentId The segment holding the response
+     * @param offset The response's offset in the segment
+     * @param fetchedAt When the response was fetched, in epoch milliseconds
+     */
+    public record IndexEntry(long steamId, Kind kind, long segmentId, int offset, long fetchedAt) {
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            log.info("Raw response archive is disabled");
+            return;
+        }
+        archiveDirectory = Path.of(directory);
+        Files.createDirectories(archiveDirectory);
+        try (Stream<Path> files = Files.list(archiveDirectory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .forEach(segmentIds::add);
+        }
+        activeSegmentId = segmentIds.isEmpty() ? 0 : segmentIds.last() + 1;
+        openActiveSegment();
+
+        archivedResponses = Counter.builder("archive.responses")
+                .description("Raw Leetify responses appended to the archive")
+                .register(meterRegistry);
+        rawBytes = Counter.builder("archive.bytes.raw")
+                .description("Uncompressed size of archived responses")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        storedBytes = Counter.builder("archive.bytes.stored")
+                .description("Compressed size of archived responses as written to disk")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        archiveFailures = Counter.builder("archive.failures")
+                .description("Raw responses that could not be archived")
+                .register(meterRegistry);
+        log.info("Raw response archive opened at {} ({} existing segments)", archiveDirectory.toAbsolutePath(), segmentIds.size() - 1);
+    }
+
+    /**
+     * Appends a raw response. Archiving never fails the fetch that produced the response; errors are logged and counted.
+     *
+     * @param kind The endpoint the response came from
+     * @param key The Steam ID or game ID the response was requested for
+     * @param steamIds The Steam IDs to index the response under
+     * @param body The response body as received
+     */
+    public void archive(Kind kind, String key, Collection<String> steamIds, byte[] body) {
+        if (!enabled || body == null || body.length == 0) {
+            return;
+        }
+        long fetchedAt = System.currentTimeMillis();
+        ByteBuffer record = encode(kind, key, fetchedAt, body);
+        lock.lock();
+        try {
+            if (activeSegment.position() + record.remaining() > segmentSize && activeSegment.position() > 0) {
+                rollSegment();
+            }
+            int offset = (int) activeSegment.position();
+            int recordBytes = record.remaining();
+            while (record.hasRemaining()) {
+                activeSegment.write(record);
+            }
+            ByteBuffer index = ByteBuffer.allocate(steamIds.size() * INDEX_ENTRY_BYTES);
+            for (String steamId : steamIds) {
+                long id = Utils.parseSteamId(steamId);
+                if (id >= 0) {
+                    index.putLong(id).put((byte) kind.ordinal()).put(new byte[3]).putInt(offset).putLong(fetchedAt);
+                }
+            }
+            index.flip();
+            while (index.hasRemaining()) {
+                activeIndex.write(index);
+            }
+            archivedResponses.increment();
+            rawBytes.increment(body.length);
+            storedBytes.increment(recordBytes);
+        } catch (IOException e) {
+            archiveFailures.increment();
+            log.error("Failed to archive {} response for {} - {}", kind, key, e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Finds every archived response indexed under a Steam ID.
+     *
+     * @param steamId The Steam64 ID
+     * @return the responses, oldest first
+     */
+    public List<ArchivedResponse> findBySteamId(String steamId) {
+        long id = Utils.parseSteamId(steamId);
+        List<IndexEntry> matches = new ArrayList<>();
+        if (enabled && id >= 0) {
+            for (long segmentId : segmentIds()) {
+                forEachIndexEntry(segmentId, entry -> {
+                    if (entry.steamId() == id) {
+                        matches.add(entry);
+                    }
+                });
+            }
+        }
+        List<ArchivedResponse> responses = new ArrayList<>(matches.size());
+        for (IndexEntry entry : matches) {
+            read(entry.segmentId(), entry.offset()).ifPresent(responses::add);
+        }
+        return responses;
+    }
+
+    /**
+     * @return the IDs of all segments, oldest first, including the one being appended to
+     */
+    public List<Long> segmentIds() {
+        lock.lock();
+        try {
+            return new ArrayList<>(segmentIds);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads a segment's index entries in the order the responses were appended.
+     *
+     * @param segmentId The segment
+     * @param consumer Receives each entry
+     */
+    public void forEachIndexEntry(long segmentId, Consumer<IndexEntry> consumer) {
+        Path path = indexPath(segmentId);
+        if (!Files.exists(path)) {
+            return;
+        }
+        Kind[] kinds = Kind.values();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // A torn entry at the end of the file is ignored
+            long entries = channel.size() / INDEX_ENTRY_BYTES;
+            MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, 0, entries * INDEX_ENTRY_BYTES);
+            for (int i = 0; i < entries; i++) {
+                int base = i * INDEX_ENTRY_BYTES;
+                int kind = index.get(base + Long.BYTES);
+                if (kind < 0 || kind >= kinds.length) {
+                    continue;
+                }
+                consumer.accept(new IndexEntry(index.getLong(base), kinds[kind], segmentId,
+                        index.getInt(base + 12), index.getLong(base + 16)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive index " + path, e);
+        }
+    }
+
+    /**
+     * Reads a batch of responses from one segment. Offsets are read in ascending order so the segment is read sequentially.
+     *
+     * @param segmentId The segment
+     * @param offsets The offsets of the responses
+     * @param consumer Receives each intact response; torn or corrupt records are skipped
+     */
+    public void readAll(long segmentId, int[] offsets, Consumer<ArchivedResponse> consumer) {
+        int[] sorted = offsets.clone();
+        Arrays.sort(sorted);
+        try (FileChannel channel = FileChannel.open(segmentPath(segmentId), StandardOpenOption.READ)) {
+            for (int offset : sorted) {
+                ArchivedResponse response = readRecord(channel, offset);
+                if (response != null) {
+                    consumer.accept(response);
+                } else {
+                    log.warn("Skipping unreadable archive record in segment {} at offset {}", segmentId, offset);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive segment " + segmentId, e);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            activeSegment.force(false);
+            activeIndex.force(false);
+            activeSegment.close();
+            activeIndex.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Optional<ArchivedResponse> read(long segmentId, int offset) {
+        try (FileChannel channel = FileChannel.open(segmentPath(segmentId), StandardOpenOption.READ)) {
+            return Optional.ofNullable(readRecord(channel, offset));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read archive segment " + segmentId, e);
+        }
+    }
+
+    static ByteBuffer encode(Kind kind, String key, long fetchedAt, byte[] body) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        byte[] compressed;
+        try {
+            deflater.setInput(body);
+            deflater.finish();
+            // JSON shrinks several times over; the buffer grows for the rare body that doesn't
+            byte[] buffer = new byte[Math.max(64, body.length / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            compressed = Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.end();
+        }
+
+        int payloadBytes = 1 + Long.BYTES + Short.BYTES + keyBytes.length + Integer.BYTES + compressed.length;
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payloadBytes);
+        record.putInt(payloadBytes).putInt(0)
+                .put((byte) kind.ordinal())
+                .putLong(fetchedAt)
+                .putShort((short) keyBytes.length).put(keyBytes)
+                .putInt(body.length)
+                .put(compressed);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_BYTES, payloadBytes);
+        record.putInt(Integer.BYTES, (int) crc.getValue());
+        return record.flip();
+    }
+
+    /**
+     * @return the record at the offset, or null if it is torn or corrupt
+     */
+    static ArchivedResponse readRecord(FileChannel channel, int offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (offset + HEADER_BYTES > channel.size() || channel.read(header, offset) < HEADER_BYTES) {
+            return null;
+        }
+        int payloadBytes = header.getInt(0);
+        if (payloadBytes <= 0 || offset + HEADER_BYTES + (long) payloadBytes > channel.size()) {
+            return null;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(payloadBytes);
+        while (payload.hasRemaining()) {
+            if (channel.read(payload, offset + HEADER_BYTES + payload.position()) < 0) {
+                return null;
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+        if ((int) crc.getValue() != header.getInt(Integer.BYTES)) {
+            return null;
+        }
+
+        payload.flip();
+        Kind kind = Kind.values()[payload.get()];
+        long fetchedAt = payload.getLong();
+        byte[] keyBytes = new byte[payload.getShort()];
+        payload.get(keyBytes);
+        byte[] body = new byte[payload.getInt()];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload);
+            inflater.inflate(body);
+            if (!inflater.finished()) {
+                return null;
+            }
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+        return new ArchivedResponse(kind, new String(keyBytes, StandardCharsets.UTF_8), fetchedAt, body);
+    }
+
+    private void rollSegment() throws IOException {
+        activeSegment.force(false);
+        activeIndex.force(false);
+        activeSegment.close();
+        activeIndex.close();
+        activeSegmentId++;
+        openActiveSegment();
+    }
+
+    private void openActiveSegment() throws IOException {
+        activeSegment = FileChannel.open(segmentPath(activeSegmentId), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        activeIndex = FileChannel.open(indexPath(activeSegmentId), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segmentIds.add(activeSegmentId);
+    }
+
+    private Path segmentPath(long segmentId) {
+        return archiveDirectory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, segmentId, SEGMENT_SUFFIX));
+    }
+
+    private Path indexPath(long segmentId) {
+        return archiveDirectory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, segmentId, INDEX_SUFFIX));
+    }
+}
@@ -0,0 +1,216 @@
+package com.joey.cheaterbuster.service.cluster;
+
+import com.joey.cheaterbuster.entity.CrawlCursor;
+import com.joey.cheaterbuster.entity.VaclistPageLease;
+import com.joey.cheaterbuster.repository.CrawlCursorRepository;
+import com.joey.cheaterbuster.repository.CrawlFrontierRepository;
+import com.joey.cheaterbuster.repository.VaclistPageLeaseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Distributes crawl work between CheaterBuster nodes sharing one database.
+ * Frontier entries and VacList pages are leased to the node working on them; the node keeps its leases alive
+ * with heartbeats, and leases of a node that stops heart-beating expire and are handed to other nodes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkLeaseService {
+
+    private static final String INIT_CURSOR_SQL =
+            "INSERT IGNORE INTO crawl_cursor (name, position, updated_at) VALUES (?, ?, ?)";
+    private static final String RELEASE_LEASES_SQL =
+            "UPDATE crawl_frontier SET state = 'PENDING', lease_owner = NULL, lease_expires_at = NULL, updated_at = ? " +
+            "WHERE state = 'IN_PROGRESS' AND lease_owner = ?";
+
+    private final CrawlFrontierRepository crawlFrontierRepository;
+    private final VaclistPageLeaseRepository vaclistPageLeaseRepository;
+    private final CrawlCursorRepository crawlCursorRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${crawl.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${crawl.lease.duration-ms:60000}")
+    private long leaseDurationMs;
+
+    @Value("${gathering.vaclist.initial-page:3490}")
+    private int initialVaclistPage;
+
+    @Getter
+    private String nodeId;
+
+    @PostConstruct
+    public void initNodeId() {
+        if (configuredNodeId != null && !configuredNodeId.isBlank()) {
+            nodeId = configuredNodeId;
+        } else {
+            nodeId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+        log.info("Crawl node ID: {} (lease duration: {}ms)", nodeId, leaseDurationMs);
+    }
+
+    /**
+     * Creates the shared VacList page cursor if no node has done so yet, and releases leases this node
+     * held before a restart (only possible when crawl.node-id is fixed).
+     */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void initCluster() {
+        jdbcTemplate.update(INIT_CURSOR_SQL, CrawlCursor.VACLIST_PAGE, initialVaclistPage, Timestamp.valueOf(LocalDateTime.now()));
+        int released = crawlFrontierRepository.releaseLeases(nodeId, LocalDateTime.now());
+        if (released > 0) {
+            log.info("Released {} crawl frontier entries leased to this node before restart", released);
+        }
+    }
+
+    /**
+     * @return the expiry time for a lease taken now
+     */
+    public LocalDateTime leaseExpiry() {
+        return LocalDateTime.now().plus(Duration.ofMillis(leaseDurationMs));
+    }
+
+    /**
+     * Leases the next VacList page to this node. Pages whose lease expired on another node are reclaimed first,
+     * otherwise the shared page cursor is advanced.
+     *
+     * @return the leased page number
+     */
+    @Transactional
+    public int claimVaclistPage() {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<Integer> expiredPage = vaclistPageLeaseRepository.lockExpiredPage(now);
+        int page;
+        if (expiredPage.isPresent()) {
+            page = expiredPage.get();
+            log.info("Reclaiming VacList page {} from an expired lease", page);
+        } else {
+            CrawlCursor cursor = crawlCursorRepository.findForUpdate(CrawlCursor.VACLIST_PAGE)
+                    .orElseGet(() -> CrawlCursor.builder().name(CrawlCursor.VACLIST_PAGE).position((long) initialVaclistPage).build());
+            page = cursor.getPosition().intValue();
+            cursor.setPosition(cursor.getPosition() + 1);
+            crawlCursorRepository.save(cursor);
+        }
+
+        vaclistPageLeaseRepository.save(VaclistPageLease.builder()
+                .page(page)
+                .state(VaclistPageLease.State.IN_PROGRESS)
+                .leaseOwner(nodeId)
+                .leaseExpiresAt(leaseExpiry())
+                .build());
+        return page;
+    }
+
+    /**
+     * Marks a VacList page as fully processed.
+     *
+     * @param page The page number
+     */
+    @Transactional
+    public void completeVaclistPage(int page) {
+        vaclistPageLeaseRepository.findById(page).ifPresent(lease -> {
+            lease.setState(VaclistPageLease.State.DONE);
+            lease.setLeaseOwner(null);
+            lease.setLeaseExpiresAt(null);
+            vaclistPageLeaseRepository.save(lease);
+        });
+    }
+
+    /**
+     * Gives up the lease on a VacList page so any node can retry it. The owner is cleared so this node's heartbeat
+     * stops extending the lease, which is left expired for the next claim to reclaim.
+     *
+     * @param page The page number
+     */
+    @Transactional
+    public void releaseVaclistPage(int page) {
+        vaclistPageLeaseRepository.findById(page).ifPresent(lease -> {
+            lease.setLeaseOwner(null);
+            lease.setLeaseExpiresAt(LocalDateTime.now());
+            vaclistPageLeaseRepository.save(lease);
+        });
+    }
+
+    /**
+     * Records the first and last Steam IDs a fetched VacList page listed.
+     *
+     * @param page The page number
+     * @param firstSteamId The first Steam64 ID on the page
+     * @param lastSteamId The last Steam64 ID on the page
+     */
+    @Transactional
+    public void recordVaclistPageAnchors(int page, String firstSteamId, String lastSteamId) {
+        vaclistPageLeaseRepository.findById(page).ifPresent(lease -> {
+            lease.setFirstSteamId(firstSteamId);
+            lease.setLastSteamId(lastSteamId);
+            vaclistPageLeaseRepository.save(lease);
+        });
+    }
+
+    /**
+     * @param page The page number
+     * @return the last Steam ID the page listed when it was fetched, if it has been fetched
+     */
+    public Optional<String> findVaclistPageLastSteamId(int page) {
+        return vaclistPageLeaseRepository.findById(page).map(VaclistPageLease::getLastSteamId);
+    }
+
+    /**
+     * Extends every lease held by this node and returns expired leases of other nodes to the pending pool.
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${crawl.lease.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = leaseExpiry();
+        int frontierLeases = crawlFrontierRepository.extendLeases(nodeId, expiresAt);
+        int pageLeases = vaclistPageLeaseRepository.extendLeases(nodeId, expiresAt, now);
+        int expired = crawlFrontierRepository.releaseExpiredLeases(now);
+        if (expired > 0) {
+            log.info("Returned {} crawl frontier entries from expired leases to the pending pool", expired);
+        }
+        log.debug("Heartbeat extended {} frontier and {} page leases for node {}", frontierLeases, pageLeases, nodeId);
+    }
+
+    /**
+     * Hands this node's frontier leases back on shutdown so other nodes don't have to wait for them to expire.
+     */
+    @PreDestroy
+    public void releaseOnShutdown() {
+        try {
+            // Plain JDBC: transactional proxies are no longer usable while the context is shutting down
+            int released = jdbcTemplate.update(RELEASE_LEASES_SQL, Timestamp.valueOf(LocalDateTime.now()), nodeId);
+            log.info("Released {} crawl frontier leases on shutdown", released);
+        } catch (Exception e) {
+            log.warn("Failed to release crawl frontier leases on shutdown - they will expire instead: {}", e.getMessage());
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "node";
+        }
+    }
+}
@@ -1,11 +1,23 @@
 package com.joey.cheaterbuster.service.match;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.joey.cheaterbuster.config.LeetifyConfig;
 import com.joey.cheaterbuster.dto.leetify.match.MatchDTO;
+import com.joey.cheaterbuster.dto.leetify.match.StatsDTO;
+import com.joey.cheaterbuster.service.archive.RawResponseArchive;
+import com.joey.cheaterbuster.service.outbound.OutboundRequestScheduler;
+import com.joey.cheaterbuster.service.outbound.SingleFlight;
+import com.joey.cheaterbuster.service.outbound.Upstream;
 import com.joey.cheaterbuster.util.Utils;
-import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -14,9 +26,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 
 @Slf4j
 @Service
@@ -25,18 +41,46 @@ public class LeetifyMatchService {
     private static final String GET_MATCH_DETAILS_PATH = "/v2/matches/";
     private static final String GET_MATCH_HISTORY_PATH = "/v3/profile/matches?steam64_id=";
 
+    @Qualifier("leetifyRestTemplate")
     private final RestTemplate restTemplate;
     private final LeetifyConfig config;
+    private final OutboundRequestScheduler outboundRequestScheduler;
+    private final MatchStore matchStore;
+    private final MeterRegistry meterRegistry;
+    private final RawResponseArchive rawResponseArchive;
+    private final ObjectMapper objectMapper;
+
+    @Value("${match.cache.max-size:10000}")
+    private long matchCacheMaxSize;
+
+    private Cache<String, MatchDTO> matchCache;
+    // Concurrent lookups of the same player's history or the same match share one Leetify request
+    private SingleFlight<String, List<MatchDTO>> matchHistoryFlight;
+    private SingleFlight<String, MatchDTO> matchDetailsFlight;
+
+    @PostConstruct
+    public void initCache() {
+        matchCache = Caffeine.newBuilder()
+                .maximumSize(matchCacheMaxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, matchCache, "match.details");
+        matchHistoryFlight = new SingleFlight<>("leetify.match-history", outboundRequestScheduler, meterRegistry);
+        matchDetailsFlight = new SingleFlight<>("leetify.match-details", outboundRequestScheduler, meterRegistry);
+    }
 
     /**
      * Fetches the match history for a player given their Steam64 ID.
-     * Rate limited to 1 call per second.
+     * Sent through the shared Leetify request budget, joining the request already in flight for the player if any.
      *
      * @param steamId The Steam64 ID of the player
      * @return List of MatchDTO containing the player's match history
      */
-    @RateLimiter(name = "leetifyApi")
     public List<MatchDTO> getMatchHistory(String steamId) {
+        return matchHistoryFlight.execute(steamId, () -> fetchMatchHistory(steamId));
+    }
+
+    private List<MatchDTO> fetchMatchHistory(String steamId) {
         log.debug("Fetching match history for Steam ID: {}", steamId);
         String url = config.getBaseUrl() + GET_MATCH_HISTORY_PATH + steamId;
 
@@ -44,15 +88,20 @@ public class LeetifyMatchService {
         HttpEntity<String> entity = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<MatchDTO[]> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    MatchDTO[].class
-            );
-
-            MatchDTO[] body = response.getBody();
-            List<MatchDTO> matches = body == null ? Collections.emptyList() : Arrays.asList(body);
+            ResponseEntity<byte[]> response = outboundRequestScheduler.execute(Upstream.LEETIFY,
+                    () -> restTemplate.exchange(
+                            url,
+                            HttpMethod.GET,
+                            entity,
+                            byte[].class
+                    ));
+
+            byte[] body = response.getBody();
+            List<MatchDTO> matches = Collections.emptyList();
+            if (body != null && body.length > 0) {
+                rawResponseArchive.archive(RawResponseArchive.Kind.MATCH_HISTORY, steamId, List.of(steamId), body);
+                matches = Arrays.asList(parse(body, MatchDTO[].class));
+            }
             log.info("Successfully fetched {} matches for Steam ID: {}", matches.size(), steamId);
             return matches;
         } catch (HttpClientErrorException.NotFound e) {
@@ -65,12 +114,56 @@ public class LeetifyMatchService {
     }
 
     /**
-     * Fetches detailed match information by game ID.*
+     * Gets detailed match information by game ID.
+     * Finished matches never change, so details are read through an in-memory cache and the match tables,
+     * and only fetched from Leetify the first time a match is seen. Concurrent misses for the same match share one load.
+     *
      * @param gameId The game ID of the match
-     * @return MatchDTO containing detailed match information
+     * @return MatchDTO containing detailed match information, or null if Leetify doesn't know the match
      */
-    @RateLimiter(name = "leetifyApi")
     public MatchDTO getMatchDetails(String gameId) {
+        MatchDTO cached = matchCache.getIfPresent(gameId);
+        if (cached != null) {
+            return cached;
+        }
+        return matchDetailsFlight.execute(gameId, () -> loadMatchDetails(gameId));
+    }
+
+    /**
+     * Loads match details from the match tables, or from Leetify if the match hasn't been stored yet.
+     */
+    private MatchDTO loadMatchDetails(String gameId) {
+        Optional<MatchDTO> stored = matchStore.find(gameId);
+        if (stored.isPresent()) {
+            log.debug("Match details found in database for Game ID: {}", gameId);
+            matchCache.put(gameId, stored.get());
+            return stored.get();
+        }
+
+        MatchDTO fetched = fetchMatchDetails(gameId);
+        if (fetched != null) {
+            if (fetched.getMatchId() == null) {
+                fetched.setMatchId(gameId);
+            }
+            try {
+                matchStore.save(fetched);
+            } catch (Exception e) {
+                // The details are still usable even if they couldn't be stored
+                log.error("Failed to store match details for Game ID: {} - {}", gameId, e.getMessage(), e);
+            }
+            matchCache.put(gameId, fetched);
+        }
+        return fetched;
+    }
+
+    /**
+     * Fetches detailed match information by game ID from Leetify.
+     * Sent through the shared Leetify request budget.
+     *
+     * @param gameId The game ID of the match
+     * @return MatchDTO containing detailed match information
+     */
+    private MatchDTO fetchMatchDetails(String gameId) {
         log.debug("Fetching match details for Game ID: {}", gameId);
         String url = config.getBaseUrl() + GET_MATCH_DETAILS_PATH + gameId;
 
@@ -78,15 +171,21 @@ public class LeetifyMatchService {
         HttpEntity<String> entity = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<MatchDTO> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    MatchDTO.class
-            );
-
-            MatchDTO matchDetails = response.getBody();
+            ResponseEntity<byte[]> response = outboundRequestScheduler.execute(Upstream.LEETIFY,
+                    () -> restTemplate.exchange(
+                            url,
+                            HttpMethod.GET,
+                            entity,
+                            byte[].class
+                    ));
+
+            byte[] body = response.getBody();
+            MatchDTO matchDetails = body == null || body.length == 0 ? null : parse(body, MatchDTO.class);
             if (matchDetails != null) {
+                // Indexed under every participant, so a player's archive includes the matches they played in
+                List<String> participants = matchDetails.getStats() == null ? List.of()
+                        : matchDetails.getStats().stream().map(StatsDTO::getSteam64Id).filter(Objects::nonNull).toList();
+                rawResponseArchive.archive(RawResponseArchive.Kind.MATCH_DETAILS, gameId, participants, body);
                 int playerCount = matchDetails.getStats() != null ? matchDetails.getStats().size() : 0;
                 log.info("Successfully fetched match details for Game ID: {} ({} players)", gameId, playerCount);
                 return matchDetails;
@@ -103,4 +202,14 @@ public class LeetifyMatchService {
         }
     }
 
+    /**
+     * Parses a response body that was read as raw bytes so it could be archived.
+     */
+    private <T> T parse(byte[] body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to parse Leetify response as " + type.getSimpleName(), e);
+        }
+    }
 }
@@ -0,0 +1,83 @@
+package com.joey.cheaterbuster.service.match;
+
+import com.joey.cheaterbuster.dto.leetify.match.MatchDTO;
+import com.joey.cheaterbuster.dto.leetify.match.StatsDTO;
+import com.joey.cheaterbuster.repository.MatchParticipantRepository;
+import com.joey.cheaterbuster.repository.MatchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Persists fetched match details in the match and match_participant tables.
+ * Inserts are idempotent, so two nodes storing the same match at once is harmless.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MatchStore {
+
+    private static final String INSERT_MATCH_SQL =
+            "INSERT IGNORE INTO `match` (match_id, participant_count, fetched_at) VALUES (?, ?, ?)";
+    private static final String INSERT_PARTICIPANT_SQL =
+            "INSERT IGNORE INTO match_participant (match_id, steam_id, name) VALUES (?, ?, ?)";
+
+    private final MatchRepository matchRepository;
+    private final MatchParticipantRepository matchParticipantRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Loads a stored match with its participants.
+     *
+     * @param matchId The match ID
+     * @return the match details, or empty if the match has never been fetched
+     */
+    @Transactional(readOnly = true)
+    public Optional<MatchDTO> find(String matchId) {
+        if (!matchRepository.existsById(matchId)) {
+            return Optional.empty();
+        }
+        List<StatsDTO> stats = matchParticipantRepository.findByMatchId(matchId).stream()
+                .map(participant -> {
+                    StatsDTO dto = new StatsDTO();
+                    dto.setSteam64Id(participant.getSteamId());
+                    dto.setName(participant.getName());
+                    return dto;
+                })
+                .toList();
+        MatchDTO match = new MatchDTO();
+        match.setMatchId(matchId);
+        match.setStats(stats);
+        return Optional.of(match);
+    }
+
+    /**
+     * Stores a match and its participants.
+     *
+     * @param match The match details fetched from Leetify
+     */
+    @Transactional
+    public void save(MatchDTO match) {
+        List<StatsDTO> participants = match.getStats() == null ? List.of() : match.getStats().stream()
+                .filter(stats -> stats.getSteam64Id() != null)
+                .toList();
+        jdbcTemplate.update(INSERT_MATCH_SQL, match.getMatchId(), participants.size(), Timestamp.valueOf(LocalDateTime.now()));
+        jdbcTemplate.batchUpdate(INSERT_PARTICIPANT_SQL, participants, participants.size(), (ps, stats) -> {
+            ps.setString(1, match.getMatchId());
+            ps.setString(2, stats.getSteam64Id());
+            ps.setString(3, truncate(stats.getName()));
+        });
+        log.debug("Stored match {} with {} participants", match.getMatchId(), participants.size());
+    }
+
+    private String truncate(String name) {
+        return name == null || name.length() <= 100 ? name : name.substring(0, 100);
+    }
+}
@@ -0,0 +1,164 @@
+package com.joey.cheaterbuster.service.model;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * The trees of a model flattened into a few primitive arrays, one entry per node across all trees, so evaluation
+ * reads contiguous memory instead of chasing per-tree objects.
+ * <p>
+ * Each tree's nodes are numbered breadth first, so the top levels every row passes through share cache lines and
+ * the two children of a node get consecutive numbers: a step is {@code node = firstChildren[node] + goRight}.
+ * Leaves are their own first child and send every value left, so stepping from a leaf stays on it; the vector
+ * evaluator relies on that to move a whole vector of rows down a level without checking which of them are done.
+ * <p>
+ * Batches are evaluated a tree at a time across a block of rows, so each tree's nodes are loaded into cache once
+ * per block rather than once per row.
+ */
+final class CompiledForest {
+
+    /** Rows walked through each tree together; a block's feature values stay in L1 while all trees are walked */
+    static final int BLOCK_SIZE = 64;
+
+    final int numFeatures;
+    /** First node of each tree */
+    final int[] roots;
+    /** Steps from each tree's root to its deepest leaf */
+    final int[] depths;
+    /** Split feature shifted left by one, with the low bit set if missing values go right. 0 for leaves */
+    final int[] splitFeatures;
+    /** Rows whose feature value is below the threshold go left. NaN for leaves, so no value compares either way */
+    final float[] thresholds;
+    /** Left child of each node, whose right child follows it. A leaf is its own first child */
+    final int[] firstChildren;
+    /** Leaf values, 0 for internal nodes */
+    final float[] leafValues;
+
+    private CompiledForest(int numFeatures, int[] roots, int[] depths, int[] splitFeatures, float[] thresholds,
+                           int[] firstChildren, float[] leafValues) {
+        this.numFeatures = numFeatures;
+        this.roots = roots;
+        this.depths = depths;
+        this.splitFeatures = splitFeatures;
+        this.thresholds = thresholds;
+        this.firstChildren = firstChildren;
+        this.leafValues = leafValues;
+    }
+
+    /**
+     * Flattens trees parsed in XGBoost's layout.
+     */
+    static CompiledForest compile(XgboostModel.Tree[] trees, int numFeatures) {
+        int totalNodes = Arrays.stream(trees).mapToInt(tree -> tree.leftChildren().length).sum();
+        int[] roots = new int[trees.length];
+        int[] depths = new int[trees.length];
+        int[] splitFeatures = new int[totalNodes];
+        float[] thresholds = new float[totalNodes];
+        int[] firstChildren = new int[totalNodes];
+        float[] leafValues = new float[totalNodes];
+
+        int next = 0;
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int t = 0; t < trees.length; t++) {
+            XgboostModel.Tree tree = trees[t];
+            int size = tree.leftChildren().length;
+            // XGBoost node id -> flattened index, and depth per XGBoost node id
+            int[] flat = new int[size];
+            int[] level = new int[size];
+            roots[t] = next;
+
+            // Breadth-first numbering: number every node as it is queued, so children get consecutive indices
+            flat[0] = next++;
+            queue.add(0);
+            while (!queue.isEmpty()) {
+                int id = queue.poll();
+                int left = tree.leftChildren()[id];
+                if (left == -1) {
+                    continue;
+                }
+                int right = tree.rightChildren()[id];
+                flat[left] = next++;
+                flat[right] = next++;
+                level[left] = level[right] = level[id] + 1;
+                queue.add(left);
+                queue.add(right);
+            }
+
+            for (int id = 0; id < size; id++) {
+                int node = flat[id];
+                int left = tree.leftChildren()[id];
+                depths[t] = Math.max(depths[t], level[id]);
+                if (left == -1) {
+                    firstChildren[node] = node;
+                    thresholds[node] = Float.NaN;
+                    leafValues[node] = tree.splitConditions()[id];
+                } else {
+                    firstChildren[node] = flat[left];
+                    splitFeatures[node] = tree.splitIndices()[id] << 1 | (tree.defaultLeft()[id] ? 0 : 1);
+                    thresholds[node] = tree.splitConditions()[id];
+                }
+            }
+        }
+        return new CompiledForest(numFeatures, roots, depths, splitFeatures, thresholds, firstChildren, leafValues);
+    }
+
+    /**
+     * Sums the leaf values one row reaches, stopping at each leaf rather than walking the tree's full depth.
+     *
+     * @param rows Row-major feature values
+     * @param offset Index of the row's first feature
+     * @return the row's margin, excluding the base margin
+     */
+    double margin(float[] rows, int offset) {
+        double margin = 0;
+        for (int root : roots) {
+            int node = root;
+            int firstChild;
+            while ((firstChild = firstChildren[node]) != node) {
+                node = firstChild + step(splitFeatures[node], thresholds[node], rows, offset);
+            }
+            margin += leafValues[node];
+        }
+        return margin;
+    }
+
+    /**
+     * Computes the margin of every row, excluding the base margin, walking each tree across a block of rows at a time.
+     * Adds leaf values in the same tree order as {@link #margin(float[], int)}, so results are identical.
+     *
+     * @param rows Row-major feature values
+     * @param rowCount Number of rows
+     * @param margins Receives the margin of each row
+     */
+    void margins(float[] rows, int rowCount, double[] margins) {
+        for (int start = 0; start < rowCount; start += BLOCK_SIZE) {
+            int count = Math.min(BLOCK_SIZE, rowCount - start);
+            Arrays.fill(margins, start, start + count, 0);
+            for (int root : roots) {
+                for (int r = 0; r < count; r++) {
+                    int node = root;
+                    int offset = (start + r) * numFeatures;
+                    int firstChild;
+                    while ((firstChild = firstChildren[node]) != node) {
+                        node = firstChild + step(splitFeatures[node], thresholds[node], rows, offset);
+                    }
+                    margins[start + r] += leafValues[node];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 1 to go right, 0 to go left. Always 0 at a leaf: every value compares like a missing one against
+     * its NaN threshold, and its missing values go left
+     */
+    static int step(int splitFeature, float threshold, float[] rows, int offset) {
+        float value = rows[offset + (splitFeature >>> 1)];
+        if (value < threshold) {
+            return 0;
+        }
+        // Not below and not at or above the threshold: the value is missing
+        return value >= threshold ? 1 : splitFeature & 1;
+    }
+}
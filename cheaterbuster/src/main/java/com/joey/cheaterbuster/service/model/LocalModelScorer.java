@@ -0,0 +1,237 @@
+package com.joey.cheaterbuster.service.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joey.cheaterbuster.dto.leetify.player.PlayerDataDTO;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+/**
+ * Scores profiles in-process with the XGBoost model exported by {@code model/app/export_model.py}, so predictions
+ * don't need a round trip to the ML service.
+ * <p>
+ * The ML service replaces zero features with KNN imputations before predicting. The imputer can't be evaluated here,
+ * so when the exported config says it is in use, only rows without zeros, which the imputer leaves unchanged, are
+ * scored locally and the rest are left to the ML service.
+ * <p>
+ * At startup the exported parity fixtures are scored and compared with the ML service's predictions; local
+ * scoring stays off if any differs by more than the tolerance, if the model can't be loaded, or if there are no
+ * fixtures to check it against, unless unchecked models were explicitly allowed with {@code ml.local.allow-unchecked}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LocalModelScorer {
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${ml.local.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ml.local.model-dir:../model/app/models}")
+    private Path modelDir;
+
+    @Value("${ml.local.tolerance:1e-6}")
+    private double tolerance;
+
+    @Value("${ml.local.vector-api:true}")
+    private boolean vectorApi;
+
+    @Value("${ml.local.allow-unchecked:false}")
+    private boolean allowUnchecked;
+
+    private volatile XgboostModel model;
+    private ModelFeatures modelFeatures;
+    private List<String> featureNames = List.of();
+    private boolean usesImputer;
+    private String modelVersion;
+
+    @PostConstruct
+    public void load() {
+        if (!enabled) {
+            log.info("Local model scoring is disabled, predictions go to the ML service");
+            return;
+        }
+        Path configPath = modelDir.resolve("model_config.json");
+        try {
+            JsonNode config = objectMapper.readTree(configPath.toFile());
+            Path modelPath = modelDir.resolve(config.path("xgboost_json").asText("xgboost_model.json"));
+            if (!Files.exists(modelPath)) {
+                log.info("No exported model at {}, predictions go to the ML service", modelPath);
+                return;
+            }
+            List<String> featureNames = new ArrayList<>();
+            config.path("features").forEach(name -> featureNames.add(name.asText()));
+            // Without the flag, assume the imputer may be in use
+            boolean imputer = config.path("uses_imputer").asBoolean(true);
+            String version = config.path("version").asText(null);
+
+            XgboostModel loaded = XgboostModel.fromJson(objectMapper.readTree(modelPath.toFile()), vectorApi);
+            if (loaded.numFeatures() != featureNames.size()
+                    || (!loaded.featureNames().isEmpty() && !loaded.featureNames().equals(featureNames))) {
+                log.error("Exported model features don't match {}, predictions go to the ML service", configPath);
+                return;
+            }
+            ModelFeatures features = new ModelFeatures(featureNames);
+            if (!checkParity(loaded, imputer)) {
+                return;
+            }
+
+            modelFeatures = features;
+            this.featureNames = List.copyOf(featureNames);
+            usesImputer = imputer;
+            modelVersion = version;
+            model = loaded;
+            log.info("Loaded XGBoost model {} with {} trees over {} features for local scoring (imputer: {}, Vector API: {})",
+                    version, loaded.numTrees(), loaded.numFeatures(), imputer, loaded.usesVectorApi());
+        } catch (Exception e) {
+            log.warn("Failed to load the exported model from {}, predictions go to the ML service - {}", modelDir, e.getMessage());
+        }
+    }
+
+    /**
+     * Compares local predictions with the ML service's predictions recorded in the parity fixtures.
+     *
+     * @return false if any fixture differs by more than the tolerance, or if there are no fixtures and unchecked
+     * models aren't allowed
+     */
+    private boolean checkParity(XgboostModel candidate, boolean imputer) throws Exception {
+        Path fixturesPath = modelDir.resolve("parity_fixtures.json");
+        if (!Files.exists(fixturesPath)) {
+            if (allowUnchecked) {
+                log.warn("No parity fixtures at {}, local predictions are unchecked (ml.local.allow-unchecked)", fixturesPath);
+                return true;
+            }
+            log.error("No parity fixtures at {} to check the exported model against, predictions go to the ML service. " +
+                    "Re-export with model/app/export_model.py, or set ml.local.allow-unchecked=true", fixturesPath);
+            return false;
+        }
+        List<double[]> rows = new ArrayList<>();
+        List<Double> expected = new ArrayList<>();
+        for (JsonNode fixture : objectMapper.readTree(fixturesPath.toFile())) {
+            double[] features = objectMapper.treeToValue(fixture.path("features"), double[].class);
+            if (!(imputer && needsImputation(features))) {
+                rows.add(features);
+                expected.add(fixture.path("probability").asDouble());
+            }
+        }
+
+        int checked = rows.size();
+        if (checked == 0 && !allowUnchecked) {
+            log.error("None of the parity fixtures at {} can be scored locally, predictions go to the ML service", fixturesPath);
+            return false;
+        }
+        // Check the batch path as well as the single-row one, since bulk scoring goes through it
+        float[] batch = new float[checked * candidate.numFeatures()];
+        for (int r = 0; r < checked; r++) {
+            for (int i = 0; i < candidate.numFeatures(); i++) {
+                batch[r * candidate.numFeatures() + i] = (float) rows.get(r)[i];
+            }
+        }
+        double[] batchProbabilities = new double[checked];
+        candidate.predictProbabilities(batch, checked, batchProbabilities);
+        double maxDifference = 0;
+        for (int r = 0; r < checked; r++) {
+            maxDifference = Math.max(maxDifference, Math.abs(candidate.predictProbability(rows.get(r)) - expected.get(r)));
+            maxDifference = Math.max(maxDifference, Math.abs(batchProbabilities[r] - expected.get(r)));
+        }
+        if (maxDifference > tolerance) {
+            log.error("Local predictions differ from the ML service by up to {} (tolerance {}), predictions go to the ML service",
+                    maxDifference, tolerance);
+            return false;
+        }
+        log.info("Local predictions match the ML service on {} parity fixtures (max difference {})", checked, maxDifference);
+        return true;
+    }
+
+    /**
+     * @return true if a model is loaded
+     */
+    public boolean isAvailable() {
+        return model != null;
+    }
+
+    /**
+     * @return the {@code version} in the loaded model's config, if a model is loaded and its config has one
+     */
+    public Optional<String> modelVersion() {
+        return model == null ? Optional.empty() : Optional.ofNullable(modelVersion);
+    }
+
+    /**
+     * Scores a profile locally if the result would match the ML service.
+     *
+     * @param profile The player's profile
+     * @return the cheating probability, or empty if the profile has to be scored by the ML service
+     */
+    public OptionalDouble score(PlayerDataDTO profile) {
+        XgboostModel current = model;
+        if (current == null) {
+            return OptionalDouble.empty();
+        }
+        double[] features = modelFeatures.extract(profile);
+        if (usesImputer && needsImputation(features)) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of(current.predictProbability(features));
+    }
+
+    /**
+     * @return the model's feature names in column order, empty if no model is loaded. They match the player_data
+     * column names
+     */
+    public List<String> featureNames() {
+        return model == null ? List.of() : featureNames;
+    }
+
+    /**
+     * Scores a batch of feature rows in {@link #featureNames()} order with the batch evaluator.
+     *
+     * @param rows Row-major feature values
+     * @param rowCount Number of rows
+     * @param probabilities Receives each row's cheating probability, or NaN if the row has to be scored
+     *                      by the ML service
+     * @return false if no model is loaded and nothing was scored
+     */
+    public boolean scoreBatch(float[] rows, int rowCount, double[] probabilities) {
+        XgboostModel current = model;
+        if (current == null) {
+            return false;
+        }
+        current.predictProbabilities(rows, rowCount, probabilities);
+        if (usesImputer) {
+            int numFeatures = current.numFeatures();
+            for (int r = 0; r < rowCount; r++) {
+                for (int i = r * numFeatures; i < (r + 1) * numFeatures; i++) {
+                    if (rows[i] == 0) {
+                        probabilities[r] = Double.NaN;
+                        break;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The ML service treats zeros as missing and imputes them.
+     */
+    private static boolean needsImputation(double[] features) {
+        for (double feature : features) {
+            if (feature == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,84 @@
+package com.joey.cheaterbuster.service.model;
+
+import com.joey.cheaterbuster.dto.leetify.player.PlayerDataDTO;
+import com.joey.cheaterbuster.dto.leetify.player.RatingDTO;
+import com.joey.cheaterbuster.dto.leetify.player.StatsDTO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Builds model feature vectors straight from player profiles, by the feature names in {@code model_config.json}.
+ * Values the profile doesn't have are 0, as the ML service fills in for features missing from a request.
+ */
+public final class ModelFeatures {
+
+    private static final Map<String, ToDoubleFunction<PlayerDataDTO>> EXTRACTORS = Map.ofEntries(
+            Map.entry("accuracy_enemy_spotted", stats(StatsDTO::getAccuracyEnemySpotted)),
+            Map.entry("accuracy_head", stats(StatsDTO::getAccuracyHead)),
+            Map.entry("counter_strafing_good_shots_ratio", stats(StatsDTO::getCounterStrafingGoodShotsRatio)),
+            Map.entry("ct_opening_aggression_success_rate", stats(StatsDTO::getCtOpeningAggressionSuccessRate)),
+            Map.entry("ct_opening_duel_success_percentage", stats(StatsDTO::getCtOpeningDuelSuccessPercentage)),
+            Map.entry("flashbang_hit_foe_avg_duration", stats(StatsDTO::getFlashbangHitFoeAvgDuration)),
+            Map.entry("flashbang_hit_foe_per_flashbang", stats(StatsDTO::getFlashbangHitFoePerFlashbang)),
+            Map.entry("flashbang_hit_friend_per_flashbang", stats(StatsDTO::getFlashbangHitFriendPerFlashbang)),
+            Map.entry("flashbang_leading_to_kill", stats(StatsDTO::getFlashbangLeadingToKill)),
+            Map.entry("flashbang_thrown", stats(StatsDTO::getFlashbangThrown)),
+            Map.entry("he_foes_damage_avg", stats(StatsDTO::getHeFoesDamageAvg)),
+            Map.entry("he_friends_damage_avg", stats(StatsDTO::getHeFriendsDamageAvg)),
+            Map.entry("preaim", stats(StatsDTO::getPreaim)),
+            Map.entry("rating_aim", ratings(RatingDTO::getAim)),
+            Map.entry("rating_clutch", ratings(RatingDTO::getClutch)),
+            Map.entry("rating_ct_leetify", ratings(RatingDTO::getCtLeetify)),
+            Map.entry("rating_opening", ratings(RatingDTO::getOpening)),
+            Map.entry("rating_positioning", ratings(RatingDTO::getPositioning)),
+            Map.entry("rating_t_leetify", ratings(RatingDTO::getTLeetify)),
+            Map.entry("rating_utility", ratings(RatingDTO::getUtility)),
+            Map.entry("reaction_time_ms", stats(StatsDTO::getReactionTimeMs)),
+            Map.entry("spray_accuracy", stats(StatsDTO::getSprayAccuracy)),
+            Map.entry("t_opening_aggression_success_rate", stats(StatsDTO::getTOpeningAggressionSuccessRate)),
+            Map.entry("t_opening_duel_success_percentage", stats(StatsDTO::getTOpeningDuelSuccessPercentage)),
+            Map.entry("trade_kill_opportunities_per_round", stats(StatsDTO::getTradeKillOpportunitiesPerRound)),
+            Map.entry("trade_kills_success_percentage", stats(StatsDTO::getTradeKillsSuccessPercentage)),
+            Map.entry("traded_deaths_success_percentage", stats(StatsDTO::getTradedDeathsSuccessPercentage)),
+            Map.entry("utility_on_death_avg", stats(StatsDTO::getUtilityOnDeathAvg)),
+            Map.entry("win_rate", PlayerDataDTO::getWinRate));
+
+    private final ToDoubleFunction<PlayerDataDTO>[] extractors;
+
+    /**
+     * @param featureNames Feature names in the model's column order
+     * @throws IllegalArgumentException if a feature can't be read from a profile
+     */
+    @SuppressWarnings("unchecked")
+    public ModelFeatures(List<String> featureNames) {
+        extractors = new ToDoubleFunction[featureNames.size()];
+        for (int i = 0; i < extractors.length; i++) {
+            extractors[i] = EXTRACTORS.get(featureNames.get(i));
+            if (extractors[i] == null) {
+                throw new IllegalArgumentException("No profile field for model feature: " + featureNames.get(i));
+            }
+        }
+    }
+
+    /**
+     * @param profile The player's profile
+     * @return the feature vector in the model's column order
+     */
+    public double[] extract(PlayerDataDTO profile) {
+        double[] features = new double[extractors.length];
+        for (int i = 0; i < features.length; i++) {
+            features[i] = extractors[i].applyAsDouble(profile);
+        }
+        return features;
+    }
+
+    private static ToDoubleFunction<PlayerDataDTO> stats(ToDoubleFunction<StatsDTO> field) {
+        return profile -> profile.getStats() == null ? 0 : field.applyAsDouble(profile.getStats());
+    }
+
+    private static ToDoubleFunction<PlayerDataDTO> ratings(ToDoubleFunction<RatingDTO> field) {
+        return profile -> profile.getRatings() == null ? 0 : field.applyAsDouble(profile.getRatings());
+    }
+}
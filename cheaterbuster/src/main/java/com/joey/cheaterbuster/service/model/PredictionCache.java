@@ -0,0 +1,215 @@
+package com.joey.cheaterbuster.service.model;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.joey.cheaterbuster.dto.leetify.player.PlayerDataDTO;
+import com.joey.cheaterbuster.dto.model.PredictionResultDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Predictions keyed by player, the stored profile's {@code updated_at} and the model version, so a player whose stats
+ * haven't changed isn't scored again. An entry only answers for the exact profile version and model version it was
+ * made from: a rewritten profile or a new model misses and replaces it, without any explicit invalidation.
+ * <p>
+ * Predictions are held in memory, one per player, and persisted to the player_prediction table so they survive
+ * restarts and are shared by all nodes. Profiles that haven't been stored yet have no {@code updated_at} and are
+ * never cached.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PredictionCache {
+
+    private static final String SELECT_SQL =
+            "SELECT steam_id, profile_updated_at, model_version, prediction, probability, confidence, risk_level " +
+            "FROM player_prediction WHERE steam_id IN (:steamIds) AND model_version = :modelVersion";
+    private static final String UPSERT_SQL =
+            "INSERT INTO player_prediction (steam_id, profile_updated_at, model_version, prediction, probability, " +
+            "confidence, risk_level, scored_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "profile_updated_at = VALUES(profile_updated_at), model_version = VALUES(model_version), " +
+            "prediction = VALUES(prediction), probability = VALUES(probability), confidence = VALUES(confidence), " +
+            "risk_level = VALUES(risk_level), scored_at = VALUES(scored_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ml.prediction-cache.max-size:200000}")
+    private long maxSize;
+
+    private Cache<String, CachedPrediction> predictions;
+    private Counter databaseHits;
+
+    /**
+     * A prediction with the profile and model versions it was made from.
+     */
+    private record CachedPrediction(LocalDateTime profileUpdatedAt, String modelVersion, PredictionResultDTO result) {
+
+        boolean isFor(LocalDateTime updatedAt, String version) {
+            return profileUpdatedAt.equals(updatedAt) && modelVersion.equals(version);
+        }
+    }
+
+    @PostConstruct
+    public void initCache() {
+        predictions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, predictions, "model.prediction");
+        databaseHits = Counter.builder("model.prediction.database-hits")
+                .description("Predictions missing from memory that were found in the player_prediction table")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param profile The player's profile, as stored
+     * @param modelVersion The current model version, or null if unknown
+     * @return the cached prediction for this version of the profile and model, if there is one
+     */
+    public Optional<PredictionResultDTO> get(PlayerDataDTO profile, String modelVersion) {
+        return Optional.ofNullable(getAll(List.of(profile), modelVersion).get(profile.getSteamId()));
+    }
+
+    /**
+     * Looks predictions up in memory first and in the table for the rest, in one query.
+     *
+     * @param profiles The players' profiles, as stored
+     * @param modelVersion The current model version, or null if unknown
+     * @return cached predictions by Steam ID, for the profiles that have one
+     */
+    public Map<String, PredictionResultDTO> getAll(Collection<PlayerDataDTO> profiles, String modelVersion) {
+        Map<String, PredictionResultDTO> found = new HashMap<>();
+        if (modelVersion == null) {
+            return found;
+        }
+        Map<String, LocalDateTime> unknown = new HashMap<>();
+        for (PlayerDataDTO profile : profiles) {
+            if (!isCacheable(profile)) {
+                continue;
+            }
+            CachedPrediction cached = predictions.getIfPresent(profile.getSteamId());
+            if (cached != null && cached.isFor(profile.getUpdatedAt(), modelVersion)) {
+                found.put(profile.getSteamId(), cached.result());
+            } else {
+                unknown.put(profile.getSteamId(), profile.getUpdatedAt());
+            }
+        }
+        if (unknown.isEmpty()) {
+            return found;
+        }
+        try {
+            namedParameterJdbcTemplate.query(SELECT_SQL,
+                    Map.of("steamIds", unknown.keySet(), "modelVersion", modelVersion),
+                    rs -> {
+                        CachedPrediction stored = readPrediction(rs);
+                        String steamId = rs.getString(1);
+                        if (stored.isFor(unknown.get(steamId), modelVersion)) {
+                            predictions.put(steamId, stored);
+                            found.put(steamId, stored.result());
+                            databaseHits.increment();
+                        }
+                    });
+        } catch (Exception e) {
+            // The cache only saves scoring, so treat the rest as misses rather than fail
+            log.warn("Failed to read cached predictions - {}", e.getMessage());
+        }
+        return found;
+    }
+
+    /**
+     * Caches a prediction for this version of the profile and model, replacing any older one for the player.
+     *
+     * @param profile The profile the prediction was made from
+     * @param modelVersion The version of the model that made it, or null if unknown
+     * @param result The prediction
+     */
+    public void put(PlayerDataDTO profile, String modelVersion, PredictionResultDTO result) {
+        putAll(List.of(profile), modelVersion, List.of(result));
+    }
+
+    /**
+     * Caches predictions for several profiles and stores them in one batch.
+     *
+     * @param profiles The profiles the predictions were made from
+     * @param modelVersion The version of the model that made them, or null if unknown
+     * @param results The predictions, in the same order
+     */
+    public void putAll(List<PlayerDataDTO> profiles, String modelVersion, List<PredictionResultDTO> results) {
+        if (modelVersion == null) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(profiles.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < profiles.size(); i++) {
+            PlayerDataDTO profile = profiles.get(i);
+            PredictionResultDTO result = results.get(i);
+            if (!isCacheable(profile)) {
+                continue;
+            }
+            predictions.put(profile.getSteamId(), new CachedPrediction(profile.getUpdatedAt(), modelVersion, result));
+            rows.add(toRow(profile.getSteamId(), profile.getUpdatedAt(), modelVersion, result, now));
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+        } catch (Exception e) {
+            log.warn("Failed to store {} predictions - {}", rows.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * A prediction for one version of a stored profile.
+     */
+    public record ScoredProfile(String steamId, LocalDateTime profileUpdatedAt, PredictionResultDTO result) {
+    }
+
+    /**
+     * Stores predictions in the table only, so a bulk rescore doesn't push the frequently requested players out of
+     * memory. They are loaded into memory when next requested.
+     *
+     * @param scored The predictions
+     * @param modelVersion The version of the model that made them
+     */
+    public void persist(List<ScoredProfile> scored, String modelVersion) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = scored.stream()
+                .map(profile -> toRow(profile.steamId(), profile.profileUpdatedAt(), modelVersion, profile.result(), now))
+                .toList();
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+        }
+    }
+
+    private static Object[] toRow(String steamId, LocalDateTime profileUpdatedAt, String modelVersion,
+                                  PredictionResultDTO result, Timestamp scoredAt) {
+        return new Object[]{steamId, Timestamp.valueOf(profileUpdatedAt), modelVersion, result.getPrediction(),
+                result.getProbability(), result.getConfidence(), result.getRiskLevel(), scoredAt};
+    }
+
+    private static boolean isCacheable(PlayerDataDTO profile) {
+        return profile != null && profile.getSteamId() != null && profile.getUpdatedAt() != null;
+    }
+
+    private static CachedPrediction readPrediction(ResultSet rs) throws SQLException {
+        return new CachedPrediction(rs.getTimestamp(2).toLocalDateTime(), rs.getString(3),
+                new PredictionResultDTO(rs.getInt(4), rs.getDouble(5), rs.getDouble(6), rs.getString(7)));
+    }
+}
@@ -0,0 +1,90 @@
+package com.joey.cheaterbuster.service.model;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * Batch evaluation of a {@link CompiledForest} with the JDK Vector API: the rows of a block advance through a tree
+ * one level per step, a full vector of rows at a time, using gathers for the node fields and feature values
+ * and masks instead of branches for the split decisions. A block stops descending a tree once all of its rows
+ * have reached a leaf.
+ * <p>
+ * Uses the incubating {@code jdk.incubator.vector} module, so it must only be loaded after checking the module is
+ * present; {@link XgboostModel} does that before creating one.
+ */
+final class VectorForestEvaluator {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, FLOATS.vectorShape());
+
+    private final CompiledForest forest;
+
+    VectorForestEvaluator(CompiledForest forest) {
+        this.forest = forest;
+    }
+
+    /**
+     * Same contract as {@link CompiledForest#margins(float[], int, double[])}, and the same results: leaf values
+     * are added in the same tree order.
+     */
+    void margins(float[] rows, int rowCount, double[] margins) {
+        int blockSize = CompiledForest.BLOCK_SIZE;
+        int[] nodes = new int[blockSize];
+        int[] rowOffsets = new int[blockSize];
+        int[] valueIndices = new int[INTS.length()];
+        for (int start = 0; start < rowCount; start += blockSize) {
+            int count = Math.min(blockSize, rowCount - start);
+            int vectorCount = INTS.loopBound(count);
+            for (int r = 0; r < count; r++) {
+                rowOffsets[r] = (start + r) * forest.numFeatures;
+            }
+            Arrays.fill(margins, start, start + count, 0);
+            for (int t = 0; t < forest.roots.length; t++) {
+                Arrays.fill(nodes, 0, count, forest.roots[t]);
+                boolean moved = true;
+                for (int level = 0; level < forest.depths[t] && moved; level++) {
+                    moved = false;
+                    for (int r = 0; r < vectorCount; r += INTS.length()) {
+                        moved |= step(rows, nodes, rowOffsets, r, valueIndices);
+                    }
+                    for (int r = vectorCount; r < count; r++) {
+                        int node = nodes[r];
+                        nodes[r] = forest.firstChildren[node]
+                                + CompiledForest.step(forest.splitFeatures[node], forest.thresholds[node], rows, rowOffsets[r]);
+                        moved |= nodes[r] != node;
+                    }
+                }
+                for (int r = 0; r < count; r++) {
+                    margins[start + r] += forest.leafValues[nodes[r]];
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves one vector of rows, starting at {@code r} in the block, down one level.
+     *
+     * @return false if every row in the vector was already at a leaf
+     */
+    private boolean step(float[] rows, int[] nodes, int[] rowOffsets, int r, int[] valueIndices) {
+        IntVector split = IntVector.fromArray(INTS, forest.splitFeatures, 0, nodes, r);
+        split.lanewise(VectorOperators.LSHR, 1)
+                .add(IntVector.fromArray(INTS, rowOffsets, r))
+                .intoArray(valueIndices, 0);
+        FloatVector value = FloatVector.fromArray(FLOATS, rows, 0, valueIndices, 0);
+        FloatVector threshold = FloatVector.fromArray(FLOATS, forest.thresholds, 0, nodes, r);
+        VectorMask<Integer> below = value.compare(VectorOperators.LT, threshold).cast(INTS);
+        VectorMask<Integer> atOrAbove = value.compare(VectorOperators.GE, threshold).cast(INTS);
+        // Missing values, and every value at a leaf, compare neither way and take the node's missing-value direction
+        IntVector goRight = split.and(1).blend(0, below).blend(1, atOrAbove);
+        IntVector node = IntVector.fromArray(INTS, nodes, r);
+        IntVector next = IntVector.fromArray(INTS, forest.firstChildren, 0, nodes, r).add(goRight);
+        next.intoArray(nodes, r);
+        return next.compare(VectorOperators.NE, node).anyTrue();
+    }
+}
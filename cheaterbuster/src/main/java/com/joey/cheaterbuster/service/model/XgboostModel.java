@@ -0,0 +1,201 @@
+package com.joey.cheaterbuster.service.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A binary:logistic XGBoost tree ensemble loaded from XGBoost's JSON model format, as written by
+ * {@code Booster.save_model("model.json")}.
+ * <p>
+ * Evaluation follows XGBoost's own predictor: features are compared as 32-bit floats with {@code value < split},
+ * NaN follows the node's default direction, and the leaf sum plus the base margin is passed through the sigmoid.
+ * The trees are evaluated from a {@link CompiledForest}; batches are walked a block of rows at a time, with the
+ * JDK Vector API when the {@code jdk.incubator.vector} module is present and vector evaluation was asked for.
+ */
+public final class XgboostModel {
+
+    private static final boolean VECTOR_API_PRESENT = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private final CompiledForest forest;
+    private final VectorForestEvaluator vectorEvaluator;
+    private final double baseMargin;
+    private final List<String> featureNames;
+
+    /**
+     * One regression tree in XGBoost's own array layout, as parsed. Leaves have no children, and their value
+     * is held in {@code splitConditions}.
+     */
+    record Tree(int[] leftChildren, int[] rightChildren, int[] splitIndices, float[] splitConditions,
+                boolean[] defaultLeft) {
+    }
+
+    private XgboostModel(CompiledForest forest, boolean useVectorApi, double baseMargin, List<String> featureNames) {
+        this.forest = forest;
+        // Only touch the incubator classes when the module is there, or loading them would fail
+        this.vectorEvaluator = useVectorApi && VECTOR_API_PRESENT ? new VectorForestEvaluator(forest) : null;
+        this.baseMargin = baseMargin;
+        this.featureNames = featureNames;
+    }
+
+    /**
+     * Reads a model from its JSON form, with scalar batch evaluation.
+     *
+     * @param root The parsed model JSON
+     * @return the model
+     * @see #fromJson(JsonNode, boolean)
+     */
+    public static XgboostModel fromJson(JsonNode root) {
+        return fromJson(root, false);
+    }
+
+    /**
+     * Reads a model from its JSON form. Only tree boosters with numerical splits and the binary:logistic
+     * objective are supported, which is what {@code XGBClassifier} trains for two classes.
+     *
+     * @param root The parsed model JSON
+     * @param useVectorApi Whether to evaluate batches with the Vector API, if the module is present
+     * @return the model, limited to the best iteration if training stopped early
+     * @throws IllegalArgumentException if the model uses features this evaluator doesn't implement
+     */
+    public static XgboostModel fromJson(JsonNode root, boolean useVectorApi) {
+        JsonNode learner = root.path("learner");
+        String objective = learner.path("objective").path("name").asText();
+        if (!objective.equals("binary:logistic")) {
+            throw new IllegalArgumentException("Unsupported objective: " + objective);
+        }
+        JsonNode booster = learner.path("gradient_booster");
+        String boosterName = booster.path("name").asText();
+        if (!boosterName.equals("gbtree")) {
+            throw new IllegalArgumentException("Unsupported booster: " + boosterName);
+        }
+
+        JsonNode modelParam = learner.path("learner_model_param");
+        int numFeatures = Integer.parseInt(modelParam.path("num_feature").asText());
+        // Saved in probability space for logistic objectives
+        double baseScore = Double.parseDouble(modelParam.path("base_score").asText("0.5"));
+        double baseMargin = Math.log(baseScore / (1 - baseScore));
+
+        JsonNode treeNodes = booster.path("model").path("trees");
+        int treeCount = treeNodes.size();
+        JsonNode bestIteration = learner.path("attributes").path("best_iteration");
+        if (!bestIteration.isMissingNode()) {
+            // Like the sklearn wrapper, predict with the trees up to the best iteration only
+            int parallelTrees = Math.max(1, booster.path("gbtree_model_param").path("num_parallel_tree").asInt(1));
+            treeCount = Math.min(treeCount, (Integer.parseInt(bestIteration.asText()) + 1) * parallelTrees);
+        }
+
+        Tree[] trees = new Tree[treeCount];
+        for (int t = 0; t < treeCount; t++) {
+            trees[t] = parseTree(treeNodes.get(t), numFeatures);
+        }
+
+        List<String> featureNames = new ArrayList<>();
+        learner.path("feature_names").forEach(name -> featureNames.add(name.asText()));
+        return new XgboostModel(CompiledForest.compile(trees, numFeatures), useVectorApi, baseMargin, List.copyOf(featureNames));
+    }
+
+    private static Tree parseTree(JsonNode tree, int numFeatures) {
+        JsonNode splitTypes = tree.path("split_type");
+        for (JsonNode splitType : splitTypes) {
+            if (splitType.asInt() != 0) {
+                throw new IllegalArgumentException("Categorical splits are not supported (tree " + tree.path("id").asInt() + ")");
+            }
+        }
+        int[] left = intArray(tree.path("left_children"));
+        int[] right = intArray(tree.path("right_children"));
+        int[] splitIndices = intArray(tree.path("split_indices"));
+        float[] splitConditions = new float[left.length];
+        boolean[] defaultLeft = new boolean[left.length];
+        JsonNode conditions = tree.path("split_conditions");
+        JsonNode defaults = tree.path("default_left");
+        for (int i = 0; i < left.length; i++) {
+            splitConditions[i] = (float) conditions.get(i).asDouble();
+            // Older versions write booleans, newer ones 0/1
+            defaultLeft[i] = defaults.get(i).isBoolean() ? defaults.get(i).asBoolean() : defaults.get(i).asInt() != 0;
+            if (left[i] != -1 && (splitIndices[i] < 0 || splitIndices[i] >= numFeatures)) {
+                throw new IllegalArgumentException("Split on unknown feature " + splitIndices[i]);
+            }
+        }
+        return new Tree(left, right, splitIndices, splitConditions, defaultLeft);
+    }
+
+    private static int[] intArray(JsonNode array) {
+        int[] values = new int[array.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = array.get(i).asInt();
+        }
+        return values;
+    }
+
+    /**
+     * Scores one row.
+     *
+     * @param features Feature values in the model's column order; NaN marks a missing value
+     * @return the probability of the positive class
+     */
+    public double predictProbability(double[] features) {
+        if (features.length != forest.numFeatures) {
+            throw new IllegalArgumentException("Expected " + forest.numFeatures + " features, got " + features.length);
+        }
+        float[] row = new float[features.length];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = (float) features[i];
+        }
+        return sigmoid(baseMargin + forest.margin(row, 0));
+    }
+
+    /**
+     * Scores a batch of rows, walking each tree across blocks of rows.
+     *
+     * @param rows Feature values, row-major in the model's column order; NaN marks a missing value
+     * @param rowCount Number of rows
+     * @param probabilities Receives the probability of the positive class for each row
+     */
+    public void predictProbabilities(float[] rows, int rowCount, double[] probabilities) {
+        if (rows.length < rowCount * forest.numFeatures || probabilities.length < rowCount) {
+            throw new IllegalArgumentException("Arrays too small for " + rowCount + " rows");
+        }
+        if (vectorEvaluator != null) {
+            vectorEvaluator.margins(rows, rowCount, probabilities);
+        } else {
+            forest.margins(rows, rowCount, probabilities);
+        }
+        for (int r = 0; r < rowCount; r++) {
+            probabilities[r] = sigmoid(baseMargin + probabilities[r]);
+        }
+    }
+
+    private static double sigmoid(double margin) {
+        return 1 / (1 + Math.exp(-margin));
+    }
+
+    /**
+     * @return the number of features the model was trained on
+     */
+    public int numFeatures() {
+        return forest.numFeatures;
+    }
+
+    /**
+     * @return true if batches are evaluated with the Vector API
+     */
+    public boolean usesVectorApi() {
+        return vectorEvaluator != null;
+    }
+
+    /**
+     * @return the feature names stored with the model, or an empty list if it was trained without names
+     */
+    public List<String> featureNames() {
+        return featureNames;
+    }
+
+    /**
+     * @return the number of trees evaluated per prediction
+     */
+    public int numTrees() {
+        return forest.roots.length;
+    }
+}
@@ -0,0 +1,349 @@
+package com.joey.cheaterbuster.service.outbound;
+
+import com.joey.cheaterbuster.exception.UpstreamThrottledException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Single gateway for every outbound Leetify and VacList request.
+ * Each upstream has its own token bucket, and every request consumes exactly one token before it is sent.
+ * Waiting requests are queued in priority lanes so interactive lookups are served before background gathering.
+ * <p>
+ * The bucket rate is adapted with AIMD: it grows additively while the upstream answers normally and is cut
+ * multiplicatively on 429/5xx responses, with the lane paused for any Retry-After the upstream asks for.
+ * Every 429/5xx is rethrown as {@link UpstreamThrottledException}, so callers re-queue the work instead of dropping it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboundRequestScheduler {
+
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${outbound.leetify.permits-per-second:1}")
+    private double leetifyPermitsPerSecond;
+
+    @Value("${outbound.leetify.min-permits-per-second:0.2}")
+    private double leetifyMinPermitsPerSecond;
+
+    @Value("${outbound.leetify.max-permits-per-second:10}")
+    private double leetifyMaxPermitsPerSecond;
+
+    @Value("${outbound.leetify.burst:1}")
+    private int leetifyBurst;
+
+    @Value("${outbound.vaclist.permits-per-second:1}")
+    private double vaclistPermitsPerSecond;
+
+    @Value("${outbound.vaclist.min-permits-per-second:0.2}")
+    private double vaclistMinPermitsPerSecond;
+
+    @Value("${outbound.vaclist.max-permits-per-second:1}")
+    private double vaclistMaxPermitsPerSecond;
+
+    @Value("${outbound.vaclist.burst:1}")
+    private int vaclistBurst;
+
+    @Value("${outbound.aimd.additive-increase:0.05}")
+    private double additiveIncrease;
+
+    @Value("${outbound.aimd.multiplicative-decrease:0.5}")
+    private double multiplicativeDecrease;
+
+    private final Map<Upstream, TokenLane> lanes = new EnumMap<>(Upstream.class);
+    // Replaced in tests, so refills and Retry-After dates don't depend on real time
+    private LongSupplier nanoClock = System::nanoTime;
+    private Clock clock = Clock.systemDefaultZone();
+
+    @PostConstruct
+    public void initLanes() {
+        lanes.put(Upstream.LEETIFY, new TokenLane(Upstream.LEETIFY,
+                leetifyPermitsPerSecond, leetifyMinPermitsPerSecond, leetifyMaxPermitsPerSecond, leetifyBurst));
+        lanes.put(Upstream.VACLIST, new TokenLane(Upstream.VACLIST,
+                vaclistPermitsPerSecond, vaclistMinPermitsPerSecond, vaclistMaxPermitsPerSecond, vaclistBurst));
+        log.info("Outbound scheduler initialised - Leetify: {}/s (range {}-{}, burst {}), VacList: {}/s (range {}-{}, burst {})",
+                leetifyPermitsPerSecond, leetifyMinPermitsPerSecond, leetifyMaxPermitsPerSecond, leetifyBurst,
+                vaclistPermitsPerSecond, vaclistMinPermitsPerSecond, vaclistMaxPermitsPerSecond, vaclistBurst);
+    }
+
+    /**
+     * Waits for a token from the upstream's budget in the current thread's priority lane, then runs the request.
+     * The response status feeds the lane's adaptive rate.
+     *
+     * @param upstream The upstream the request is sent to
+     * @param request The request to run once budget is granted
+     * @return the request's result
+     * @throws UpstreamThrottledException if the upstream answered 429 or 5xx, so the caller can re-queue the work
+     */
+    public <T> T execute(Upstream upstream, Supplier<T> request) {
+        TokenLane lane = lanes.get(upstream);
+        lane.acquire(RequestPriority.current());
+        try {
+            T result = request.get();
+            lane.onSuccess();
+            return result;
+        } catch (HttpStatusCodeException e) {
+            HttpStatus status = HttpStatus.resolve(e.getStatusCode().value());
+            boolean overloaded = status == HttpStatus.TOO_MANY_REQUESTS || status == HttpStatus.SERVICE_UNAVAILABLE;
+            if (overloaded || e.getStatusCode().is5xxServerError()) {
+                // Other 5xx only pause the lane if the upstream says for how long
+                Duration retryAfter = parseRetryAfter(e.getResponseHeaders(), overloaded ? DEFAULT_RETRY_AFTER : Duration.ZERO);
+                lane.onThrottled(retryAfter);
+                throw new UpstreamThrottledException(upstream, retryAfter, e);
+            }
+            // 4xx other than 429 is an answer about the resource, not about our rate
+            lane.onSuccess();
+            throw e;
+        }
+    }
+
+    /**
+     * Wakes every waiting request to re-read its thread's priority, after a task has been promoted with
+     * {@link RequestPriority#callPromotable}.
+     */
+    public void reprioritise() {
+        lanes.values().forEach(TokenLane::reprioritise);
+    }
+
+    /**
+     * @param upstream The upstream to inspect
+     * @param priority The priority lane to inspect
+     * @return the number of requests currently waiting in the lane
+     */
+    public int getQueueDepth(Upstream upstream, RequestPriority priority) {
+        return lanes.get(upstream).queueDepth(priority);
+    }
+
+    /**
+     * @param upstream The upstream to inspect
+     * @return the upstream's current adaptive rate in requests per second
+     */
+    public double getCurrentRate(Upstream upstream) {
+        return lanes.get(upstream).currentRate();
+    }
+
+    /**
+     * Parses a Retry-After header given either as delta-seconds or as an HTTP date.
+     *
+     * @param absent The pause to use when there is no header
+     */
+    Duration parseRetryAfter(HttpHeaders headers, Duration absent) {
+        String value = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return absent;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException ignored) {
+            // Not delta-seconds, try HTTP date
+        }
+        try {
+            Duration untilDate = Duration.between(ZonedDateTime.now(clock),
+                    ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+            return untilDate.isNegative() ? Duration.ZERO : untilDate;
+        } catch (DateTimeParseException e) {
+            log.warn("Unparseable Retry-After header '{}', using default", value);
+            return DEFAULT_RETRY_AFTER;
+        }
+    }
+
+    /**
+     * Adaptive token bucket with strict-priority waiting lanes for one upstream.
+     */
+    private class TokenLane {
+        private final Upstream upstream;
+        private final double minPermitsPerSecond;
+        private final double maxPermitsPerSecond;
+        private final double burst;
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private final Condition changed = lock.newCondition();
+        private final Map<RequestPriority, Queue<Object>> waiting = new EnumMap<>(RequestPriority.class);
+        private final Map<RequestPriority, Timer> waitTimers = new EnumMap<>(RequestPriority.class);
+        private final Counter throttledCounter;
+        private double permitsPerSecond;
+        private double tokens;
+        private long lastRefill = nanoClock.getAsLong();
+        private long pausedUntil = lastRefill;
+
+        TokenLane(Upstream upstream, double permitsPerSecond, double minPermitsPerSecond, double maxPermitsPerSecond, int burst) {
+            this.upstream = upstream;
+            this.minPermitsPerSecond = Math.min(minPermitsPerSecond, permitsPerSecond);
+            this.maxPermitsPerSecond = Math.max(maxPermitsPerSecond, permitsPerSecond);
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = Math.max(1, burst);
+            this.tokens = this.burst;
+
+            String upstreamTag = upstream.name().toLowerCase();
+            for (RequestPriority priority : RequestPriority.values()) {
+                waiting.put(priority, new ArrayDeque<>());
+                String priorityTag = priority.name().toLowerCase();
+                Gauge.builder("outbound.queue.depth", this, lane -> lane.queueDepth(priority))
+                        .description("Outbound requests waiting for rate budget")
+                        .tag("upstream", upstreamTag)
+                        .tag("priority", priorityTag)
+                        .register(meterRegistry);
+                waitTimers.put(priority, Timer.builder("outbound.wait")
+                        .description("Time outbound requests spent waiting for rate budget")
+                        .tag("upstream", upstreamTag)
+                        .tag("priority", priorityTag)
+                        .register(meterRegistry));
+            }
+            Gauge.builder("outbound.rate", this, TokenLane::currentRate)
+                    .description("Current adaptive request rate in requests per second")
+                    .tag("upstream", upstreamTag)
+                    .register(meterRegistry);
+            throttledCounter = Counter.builder("outbound.throttled")
+                    .description("Responses that made the scheduler back off")
+                    .tag("upstream", upstreamTag)
+                    .register(meterRegistry);
+        }
+
+        void acquire(RequestPriority priority) {
+            Object ticket = new Object();
+            long start = nanoClock.getAsLong();
+            lock.lock();
+            try {
+                waiting.get(priority).add(ticket);
+                try {
+                    while (true) {
+                        RequestPriority current = RequestPriority.current();
+                        if (current != priority) {
+                            // Promoted while waiting, queue behind the requests already in the new lane
+                            waiting.get(priority).remove(ticket);
+                            waiting.get(current).add(ticket);
+                            priority = current;
+                        }
+                        long now = refill();
+                        if (nextInLine() == ticket) {
+                            if (now >= pausedUntil && tokens >= 1) {
+                                tokens -= 1;
+                                break;
+                            }
+                            long untilToken = (long) Math.ceil((1 - tokens) / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+                            changed.awaitNanos(Math.max(untilToken, pausedUntil - now));
+                        } else {
+                            changed.await();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for " + upstream + " request budget", e);
+                } finally {
+                    waiting.get(priority).remove(ticket);
+                    changed.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+            waitTimers.get(priority).record(nanoClock.getAsLong() - start, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Additive increase: each success adds increase/rate, so the rate climbs by roughly
+         * additiveIncrease requests per second for every second of clean responses.
+         */
+        void onSuccess() {
+            lock.lock();
+            try {
+                permitsPerSecond = Math.min(maxPermitsPerSecond, permitsPerSecond + additiveIncrease / permitsPerSecond);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Multiplicative decrease, plus a pause for as long as the upstream asked us to wait.
+         */
+        void onThrottled(Duration retryAfter) {
+            throttledCounter.increment();
+            lock.lock();
+            try {
+                double previous = permitsPerSecond;
+                permitsPerSecond = Math.max(minPermitsPerSecond, permitsPerSecond * multiplicativeDecrease);
+                long now = refill();
+                pausedUntil = Math.max(pausedUntil, now + retryAfter.toNanos());
+                if (!retryAfter.isZero()) {
+                    tokens = 0;
+                }
+                log.warn("{} pushed back - rate {}/s -> {}/s, paused for {}ms",
+                        upstream, String.format("%.2f", previous), String.format("%.2f", permitsPerSecond), retryAfter.toMillis());
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void reprioritise() {
+            lock.lock();
+            try {
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int queueDepth(RequestPriority priority) {
+            lock.lock();
+            try {
+                return waiting.get(priority).size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        double currentRate() {
+            lock.lock();
+            try {
+                return permitsPerSecond;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Object nextInLine() {
+            for (RequestPriority priority : RequestPriority.values()) {
+                Object head = waiting.get(priority).peek();
+                if (head != null) {
+                    return head;
+                }
+            }
+            return null;
+        }
+
+        private long refill() {
+            long now = nanoClock.getAsLong();
+            // No budget accrues while the upstream has asked us to back off
+            long accrueFrom = Math.max(lastRefill, Math.min(now, pausedUntil));
+            tokens = Math.min(burst, tokens + (now - accrueFrom) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+            lastRefill = now;
+            return now;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.joey.cheaterbuster.service.outbound;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Priority lane an outbound request is queued in.
+ * Interactive requests (user-facing endpoints) are always granted budget before background gathering traffic.
+ * The priority is bound to the current thread, defaulting to INTERACTIVE. Background work that another caller
+ * starts waiting on can be promoted to INTERACTIVE while it runs, see {@link #callPromotable}.
+ */
+public enum RequestPriority {
+    INTERACTIVE,
+    BACKGROUND;
+
+    private static final ThreadLocal<RequestPriority> CURRENT = ThreadLocal.withInitial(() -> INTERACTIVE);
+    private static final ThreadLocal<AtomicBoolean> PROMOTED = new ThreadLocal<>();
+
+    /**
+     * @return the priority bound to the current thread, or INTERACTIVE if its task has been promoted
+     */
+    public static RequestPriority current() {
+        AtomicBoolean promoted = PROMOTED.get();
+        return promoted != null && promoted.get() ? INTERACTIVE : CURRENT.get();
+    }
+
+    /**
+     * Runs a task whose requests move to the INTERACTIVE lane once the flag is set, including a request already
+     * waiting for budget. Whoever sets the flag must then call {@link OutboundRequestScheduler#reprioritise()}.
+     *
+     * @param promoted Set by another thread to promote the task
+     * @param task The task to run
+     * @return the task's result
+     */
+    static <T> T callPromotable(AtomicBoolean promoted, Supplier<T> task) {
+        AtomicBoolean previous = PROMOTED.get();
+        PROMOTED.set(promoted);
+        try {
+            return task.get();
+        } finally {
+            PROMOTED.set(previous);
+        }
+    }
+
+    /**
+     * Runs a task with this priority bound to the current thread, restoring the previous priority afterwards.
+     *
+     * @param task The task to run
+     * @return the task's result
+     */
+    public <T> T callAs(Supplier<T> task) {
+        RequestPriority previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.get();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Runs a task with this priority bound to the current thread, restoring the previous priority afterwards.
+     *
+     * @param task The task to run
+     */
+    public void runAs(Runnable task) {
+        callAs(() -> {
+            task.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,109 @@
+package com.joey.cheaterbuster.service.outbound;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into one: the first caller runs the call and every caller that arrives
+ * while it is in flight waits for and shares its result, or its exception. Nothing is cached once the call completes.
+ * <p>
+ * Callers share the first caller's request, including its place in the outbound queue, so an interactive lookup
+ * of a player the crawler is already fetching waits for that fetch instead of sending a second one. When an
+ * interactive caller joins a background call, the call is promoted: a request it has waiting for budget moves to the
+ * interactive lane, so the user doesn't wait behind the crawl.
+ *
+ * @param <K> The key type
+ * @param <V> The result type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+    private final OutboundRequestScheduler scheduler;
+    private final Counter coalesced;
+
+    /**
+     * A call in flight, with the priority it was started at.
+     */
+    private record Flight<V>(CompletableFuture<V> future, RequestPriority priority, AtomicBoolean promoted) {
+    }
+
+    /**
+     * @param name The call being coalesced, used as the metric tag
+     * @param meterRegistry Registry for the coalesced-call counter
+     */
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this(name, null, meterRegistry);
+    }
+
+    /**
+     * @param name The call being coalesced, used as the metric tag
+     * @param scheduler The scheduler the calls' requests wait in, so promoted calls can move lanes
+     * @param meterRegistry Registry for the coalesced-call counter
+     */
+    public SingleFlight(String name, OutboundRequestScheduler scheduler, MeterRegistry meterRegistry) {
+        this.scheduler = scheduler;
+        this.coalesced = Counter.builder("outbound.coalesced")
+                .description("Calls that shared an identical call already in flight instead of sending their own")
+                .tag("call", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the call, or joins the identical call already in flight.
+     *
+     * @param key Identifies identical calls
+     * @param call The call to run if none is in flight
+     * @return the call's result
+     */
+    public V execute(K key, Supplier<V> call) {
+        Flight<V> flight = new Flight<>(new CompletableFuture<>(), RequestPriority.current(), new AtomicBoolean());
+        Flight<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            promote(existing);
+            return join(existing.future());
+        }
+        try {
+            V result = RequestPriority.callPromotable(flight.promoted(), call);
+            flight.future().complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.future().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Promotes a background call that an interactive caller is about to wait for.
+     */
+    private void promote(Flight<V> flight) {
+        if (scheduler != null && RequestPriority.current() == RequestPriority.INTERACTIVE
+                && flight.priority() == RequestPriority.BACKGROUND && flight.promoted().compareAndSet(false, true)) {
+            scheduler.reprioritise();
+        }
+    }
+
+    private V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // Rethrow the owner's exception as is, so waiters handle it exactly like the owner does
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.joey.cheaterbuster.service.outbound;
+
+/**
+ * External APIs whose request budgets are managed by the {@link OutboundRequestScheduler}.
+ */
+public enum Upstream {
+    LEETIFY,
+    VACLIST
+}
@@ -0,0 +1,194 @@
+package com.joey.cheaterbuster.service.pipeline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * One stage of a pipeline: a bounded input queue drained by its own workers on virtual threads.
+ * Workers take up to {@code batchSize} items at a time, waiting at most {@code maxBatchWaitMs} for a batch to fill.
+ * {@link #submit(Object)} blocks while the queue is full, so a slow stage pushes back on the stages feeding it
+ * instead of letting work pile up in memory.
+ *
+ * @param <T> The type of item the stage consumes
+ */
+@Slf4j
+public class PipelineStage<T> {
+
+    private final String name;
+    private final int capacity;
+    private final int concurrency;
+    private final int batchSize;
+    private final long maxBatchWaitNanos;
+    private final Consumer<List<T>> handler;
+    private final StageMetrics metrics;
+    private final Queue<T> queue = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final List<Thread> workers = new ArrayList<>();
+    private boolean stopped = false;
+
+    /**
+     * @param name The stage name, used for thread names and metric tags
+     * @param capacity Maximum number of queued items before producers block
+     * @param concurrency Number of workers draining the queue
+     * @param batchSize Maximum number of items handed to the handler at once
+     * @param maxBatchWaitMs How long a worker waits for a batch to fill before handling a partial one
+     * @param handler Processes a batch of items; exceptions are logged and the batch is dropped
+     * @param meterRegistry The registry for the stage's metrics
+     */
+    public PipelineStage(String name, int capacity, int concurrency, int batchSize, long maxBatchWaitMs,
+                         Consumer<List<T>> handler, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.capacity = Math.max(1, capacity);
+        this.concurrency = Math.max(1, concurrency);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxBatchWaitMs);
+        this.handler = handler;
+        this.metrics = new StageMetrics(name, this::size, meterRegistry);
+    }
+
+    /**
+     * Starts the stage's workers.
+     */
+    public void start() {
+        lock.lock();
+        try {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(Thread.ofVirtual().name("pipeline-" + name + "-" + i).start(this::runWorker));
+            }
+        } finally {
+            lock.unlock();
+        }
+        log.info("Started pipeline stage '{}' (workers: {}, queue: {}, batch: {})", name, concurrency, capacity, batchSize);
+    }
+
+    /**
+     * Queues an item, blocking while the stage is full.
+     *
+     * @param item The item to process
+     * @return false if the stage has stopped and the item was not queued
+     */
+    public boolean submit(T item) {
+        lock.lock();
+        try {
+            if (queue.size() >= capacity && !stopped) {
+                long start = System.nanoTime();
+                while (queue.size() >= capacity && !stopped) {
+                    notFull.await();
+                }
+                metrics.recordStall(System.nanoTime() - start);
+            }
+            if (stopped) {
+                return false;
+            }
+            queue.add(item);
+            notEmpty.signal();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting items, lets the workers drain what is already queued and waits for them to finish.
+     *
+     * @param timeoutMs Maximum time to wait for each worker
+     */
+    public void stop(long timeoutMs) {
+        List<Thread> running;
+        lock.lock();
+        try {
+            stopped = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+            running = new ArrayList<>(workers);
+        } finally {
+            lock.unlock();
+        }
+        for (Thread worker : running) {
+            try {
+                worker.join(timeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the number of queued items
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runWorker() {
+        while (true) {
+            List<T> batch = takeBatch();
+            if (batch == null) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                handler.accept(batch);
+            } catch (Exception e) {
+                log.error("Pipeline stage '{}' failed to process {} items - {}", name, batch.size(), e.getMessage(), e);
+            }
+            metrics.recordProcessed(batch.size(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return the next batch, or null once the stage is stopped and drained
+     */
+    private List<T> takeBatch() {
+        lock.lock();
+        try {
+            while (true) {
+                while (queue.isEmpty()) {
+                    if (stopped) {
+                        return null;
+                    }
+                    notEmpty.await();
+                }
+                // Give a partial batch a moment to fill so batched handlers write fewer, larger batches
+                long waitNanos = maxBatchWaitNanos;
+                while (queue.size() < batchSize && waitNanos > 0 && !stopped) {
+                    waitNanos = notEmpty.awaitNanos(waitNanos);
+                }
+                // Another worker may have taken the items while this one waited
+                if (!queue.isEmpty()) {
+                    List<T> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+                    while (batch.size() < batchSize && !queue.isEmpty()) {
+                        batch.add(queue.poll());
+                    }
+                    notFull.signalAll();
+                    return batch;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
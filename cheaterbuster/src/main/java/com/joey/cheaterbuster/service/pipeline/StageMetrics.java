@@ -0,0 +1,66 @@
+package com.joey.cheaterbuster.service.pipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters shared by every stage of the profile pipeline, tagged with the stage name:
+ * <ul>
+ *     <li>{@code pipeline.stage.items} - items the stage has finished (throughput)</li>
+ *     <li>{@code pipeline.stage.queue} - items waiting for the stage (occupancy)</li>
+ *     <li>{@code pipeline.stage.process} - time the stage spends on each unit of work</li>
+ *     <li>{@code pipeline.stage.stall} - time producers spent blocked because the stage's queue was full</li>
+ * </ul>
+ * A stage whose queue stays full while its producers stall is the bottleneck.
+ */
+public class StageMetrics {
+
+    private final Counter items;
+    private final Timer process;
+    private final Timer stall;
+
+    /**
+     * @param stage The stage name used as the {@code stage} tag
+     * @param queueDepth Reports how many items are waiting for the stage
+     * @param meterRegistry The registry to publish to
+     */
+    public StageMetrics(String stage, Supplier<Number> queueDepth, MeterRegistry meterRegistry) {
+        Gauge.builder("pipeline.stage.queue", queueDepth)
+                .description("Items waiting for the pipeline stage")
+                .tag("stage", stage)
+                .register(meterRegistry);
+        items = Counter.builder("pipeline.stage.items")
+                .description("Items the pipeline stage has finished")
+                .tag("stage", stage)
+                .register(meterRegistry);
+        process = Timer.builder("pipeline.stage.process")
+                .description("Time the pipeline stage spends per unit of work")
+                .tag("stage", stage)
+                .register(meterRegistry);
+        stall = Timer.builder("pipeline.stage.stall")
+                .description("Time producers were blocked because the pipeline stage's queue was full")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param count Number of items finished
+     * @param nanos Time taken to finish them
+     */
+    public void recordProcessed(int count, long nanos) {
+        items.increment(count);
+        process.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param nanos Time a producer was blocked on the stage's full queue
+     */
+    public void recordStall(long nanos) {
+        stall.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,359 @@
+package com.joey.cheaterbuster.service.player;
+
+import com.joey.cheaterbuster.entity.CrawlFrontierEntry;
+import com.joey.cheaterbuster.entity.CrawlFrontierEntry.DiscoverySource;
+import com.joey.cheaterbuster.entity.CrawlFrontierEntry.State;
+import com.joey.cheaterbuster.util.LongHashSet;
+import com.joey.cheaterbuster.util.Utils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe crawl frontier shared by the crawl workers.
+ * Tracks every Steam ID that has ever been enqueued so each player is visited at most once,
+ * and knows how many IDs are currently being processed so workers can tell when the crawl is exhausted.
+ * <p>
+ * When backed by a {@link CrawlFrontierStore} the in-memory queue is only a window onto the durable frontier:
+ * discoveries are recorded in the database, overflow beyond the memory capacity is left pending there,
+ * and the queue is refilled from the database when it runs dry.
+ */
+@Slf4j
+class CrawlFrontier {
+
+    private static final int MAX_REQUEUES = 5;
+    private static final int COMPLETION_FLUSH_SIZE = 50;
+    private static final int MAX_REFILL_ATTEMPTS = 5;
+
+    private final CrawlFrontierStore store;
+    private final int memoryCapacity;
+    // Steam IDs are held as primitive longs (~16 bytes each) rather than boxed strings (~100 bytes each);
+    // the rare non-numeric ID goes into the fallback set. Both are guarded by the lock.
+    private final LongHashSet enqueuedIds = new LongHashSet();
+    private final Set<String> enqueuedNonNumericIds = new HashSet<>();
+    private final Queue<CrawlTarget> idsToCheck = new ArrayDeque<>();
+    private final Map<String, Integer> requeueCounts = new ConcurrentHashMap<>();
+    private final Map<State, List<String>> pendingStateUpdates = new EnumMap<>(State.class);
+    // ReentrantLock rather than synchronized so waiting virtual threads don't pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private int inFlight = 0;
+    private boolean closed = false;
+    private boolean storeDrained = false;
+    private boolean refilling = false;
+    private int refillFailures = 0;
+    private long refillRetryAt;
+    // First wait after a failed refill, doubled on each consecutive failure; replaced in tests
+    long refillBackoffNanos = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * A Steam ID waiting to be crawled, with its distance from the crawl seed.
+     */
+    record CrawlTarget(String steamId, int depth) {
+    }
+
+    /**
+     * Creates a frontier that lives only for the current crawl.
+     */
+    CrawlFrontier() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a frontier backed by the durable crawl_frontier table.
+     *
+     * @param store The durable frontier store
+     * @param memoryCapacity Maximum number of IDs held in memory before new discoveries are left pending in the database
+     */
+    CrawlFrontier(CrawlFrontierStore store, int memoryCapacity) {
+        this.store = store;
+        this.memoryCapacity = memoryCapacity;
+    }
+
+    /**
+     * Adds the crawl seed. A durable frontier re-opens the seed even if it was visited in an earlier batch,
+     * unless another node is crawling it right now.
+     *
+     * @param steamId The seed Steam64 ID
+     */
+    void seed(String steamId) {
+        if (steamId == null || !markEnqueued(steamId)) {
+            return;
+        }
+        if (store != null && !store.claimSeed(steamId)) {
+            log.debug("Seed {} is leased to another node, crawling from the durable frontier only", steamId);
+            return;
+        }
+        enqueueInMemory(List.of(steamId), 0, false);
+    }
+
+    /**
+     * Adds Steam IDs to the frontier, skipping any that have been enqueued before.
+     *
+     * @param steamIds The discovered Steam64 IDs
+     * @param source How the IDs were discovered
+     * @param depth Hops from the crawl seed
+     * @return the number of IDs that were new
+     */
+    int offerAll(Collection<String> steamIds, DiscoverySource source, int depth) {
+        List<String> fresh = new ArrayList<>();
+        lock.lock();
+        try {
+            for (String steamId : steamIds) {
+                if (steamId != null && markEnqueued(steamId)) {
+                    fresh.add(steamId);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (fresh.isEmpty()) {
+            return 0;
+        }
+        if (store == null) {
+            enqueueInMemory(fresh, depth, false);
+            return fresh.size();
+        }
+
+        // Keep discoveries in memory while there is room, otherwise leave them pending for a later refill
+        boolean spill = size() >= memoryCapacity;
+        List<String> inserted = store.enqueue(fresh, source, depth, spill ? State.PENDING : State.IN_PROGRESS);
+        enqueueInMemory(spill ? List.of() : inserted, depth, spill);
+        return inserted.size();
+    }
+
+    /**
+     * Puts an already enqueued Steam ID back on the frontier after the upstream throttled its fetch.
+     * Each ID is re-queued at most {@value #MAX_REQUEUES} times so a persistently throttled ID can't loop forever.
+     *
+     * @param target The target to retry
+     * @return true if the ID was re-queued
+     */
+    boolean requeue(CrawlTarget target) {
+        if (requeueCounts.merge(target.steamId(), 1, Integer::sum) > MAX_REQUEUES) {
+            return false;
+        }
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            idsToCheck.add(target);
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Takes the next Steam ID to process, blocking while other workers may still discover new IDs.
+     * Every non-null result must be followed by a call to {@link #complete(CrawlTarget, State)}.
+     *
+     * @return the next target, or null once the frontier is exhausted or closed
+     */
+    CrawlTarget take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (idsToCheck.isEmpty()) {
+                if (closed) {
+                    return null;
+                }
+                if (!refilling && store != null && !storeDrained) {
+                    long backoffNanos = refillRetryAt - System.nanoTime();
+                    if (refillFailures == 0 || backoffNanos <= 0) {
+                        refillFromStore();
+                    } else {
+                        // Backing off after a failed refill; in-flight workers may still offer IDs meanwhile
+                        changed.awaitNanos(backoffNanos);
+                    }
+                    continue;
+                }
+                // A refill in progress may still bring IDs, so wait for it like for an in-flight worker
+                if (inFlight == 0 && !refilling) {
+                    return null;
+                }
+                changed.await();
+            }
+            if (closed) {
+                return null;
+            }
+            inFlight++;
+            return idsToCheck.poll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks a target returned by {@link #take()} as processed.
+     *
+     * @param target The processed target
+     * @param outcome DONE when the profile was retrieved, FAILED when it could not be,
+     *                or IN_PROGRESS when it was re-queued for another attempt
+     */
+    void complete(CrawlTarget target, State outcome) {
+        List<String> toFlush = null;
+        lock.lock();
+        try {
+            inFlight--;
+            if (store != null && outcome != State.IN_PROGRESS) {
+                List<String> updates = pendingStateUpdates.computeIfAbsent(outcome, s -> new ArrayList<>());
+                updates.add(target.steamId());
+                if (updates.size() >= COMPLETION_FLUSH_SIZE) {
+                    toFlush = new ArrayList<>(updates);
+                    updates.clear();
+                }
+            }
+            if (inFlight == 0 && idsToCheck.isEmpty()) {
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (toFlush != null) {
+            store.markState(toFlush, outcome);
+        }
+    }
+
+    /**
+     * Stops the crawl, waking any workers waiting for new IDs.
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Persists outstanding completions and hands IDs that were never processed back to the durable frontier.
+     * Must be called once all workers have stopped.
+     */
+    void finish() {
+        if (store == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            pendingStateUpdates.forEach((state, ids) -> store.markState(ids, state));
+            pendingStateUpdates.clear();
+            List<String> unprocessed = idsToCheck.stream().map(CrawlTarget::steamId).toList();
+            store.markState(unprocessed, State.PENDING);
+            idsToCheck.clear();
+            if (!unprocessed.isEmpty()) {
+                log.debug("Returned {} unprocessed IDs to the durable frontier", unprocessed.size());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueueInMemory(List<String> steamIds, int depth, boolean spilled) {
+        lock.lock();
+        try {
+            for (String steamId : steamIds) {
+                idsToCheck.add(new CrawlTarget(steamId, depth));
+            }
+            if (spilled) {
+                storeDrained = false;
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Claims the next batch of pending entries from the durable store. Called from {@link #take()} with the lock held
+     * once; the lock is released for the database claim so other workers can complete and offer IDs meanwhile, and
+     * the claimed entries are merged into the queue once it is re-acquired.
+     * <p>
+     * A failed claim is retried with exponential backoff. After {@value #MAX_REFILL_ATTEMPTS} consecutive failures
+     * the store is treated as drained, so the crawl finishes with the IDs it has and the pending entries stay in the
+     * database for the next crawl.
+     */
+    private void refillFromStore() {
+        refilling = true;
+        // Assume the claim empties the store; a discovery spilling over the memory capacity meanwhile clears this
+        storeDrained = true;
+        List<CrawlFrontierEntry> entries = null;
+        RuntimeException failure = null;
+        lock.unlock();
+        try {
+            entries = store.claimBatch(memoryCapacity);
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            lock.lock();
+            refilling = false;
+            changed.signalAll();
+        }
+        if (failure != null) {
+            onRefillFailure(failure);
+            return;
+        }
+        refillFailures = 0;
+        if (!entries.isEmpty()) {
+            storeDrained = false;
+        }
+        for (CrawlFrontierEntry entry : entries) {
+            markEnqueued(entry.getSteamId());
+            idsToCheck.add(new CrawlTarget(entry.getSteamId(), entry.getDepth()));
+        }
+        if (!entries.isEmpty()) {
+            log.debug("Refilled crawl frontier with {} pending IDs from the database", entries.size());
+        }
+    }
+
+    /**
+     * Schedules the next refill attempt after a failed claim, or gives up on the store. Called with the lock held.
+     */
+    private void onRefillFailure(RuntimeException e) {
+        refillFailures++;
+        if (refillFailures >= MAX_REFILL_ATTEMPTS) {
+            log.error("Giving up refilling the crawl frontier after {} failed claims, pending IDs stay in the database - {}",
+                    refillFailures, e.getMessage());
+            return;
+        }
+        storeDrained = false;
+        long backoffNanos = refillBackoffNanos << (refillFailures - 1);
+        refillRetryAt = System.nanoTime() + backoffNanos;
+        log.warn("Failed to refill crawl frontier from the database, retrying in {}ms - {}",
+                TimeUnit.NANOSECONDS.toMillis(backoffNanos), e.getMessage());
+    }
+
+    /**
+     * Records a Steam ID as enqueued.
+     *
+     * @return true if the ID had not been enqueued before
+     */
+    private boolean markEnqueued(String steamId) {
+        lock.lock();
+        try {
+            long id = Utils.parseSteamId(steamId);
+            return id >= 0 ? enqueuedIds.add(id) : enqueuedNonNumericIds.add(steamId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of IDs waiting in memory to be crawled
+     */
+    int size() {
+        lock.lock();
+        try {
+            return idsToCheck.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
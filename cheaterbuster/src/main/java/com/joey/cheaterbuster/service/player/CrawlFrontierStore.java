@@ -0,0 +1,191 @@
+package com.joey.cheaterbuster.service.player;
+
+import com.joey.cheaterbuster.entity.CrawlFrontierEntry;
+import com.joey.cheaterbuster.entity.CrawlFrontierEntry.DiscoverySource;
+import com.joey.cheaterbuster.entity.CrawlFrontierEntry.State;
+import com.joey.cheaterbuster.repository.CrawlFrontierRepository;
+import com.joey.cheaterbuster.service.cluster.WorkLeaseService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Durable crawl frontier stored in the crawl_frontier table.
+ * Every discovered Steam ID is recorded once with its discovery source, depth and priority, so crawling
+ * continues across batches, restarts and deploys instead of re-discovering IDs through match-detail calls.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CrawlFrontierStore {
+
+    private static final String INSERT_IGNORE_SQL =
+            "INSERT IGNORE INTO crawl_frontier (steam_id, source, depth, priority, state, lease_owner, lease_expires_at, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final CrawlFrontierRepository crawlFrontierRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final WorkLeaseService workLeaseService;
+    private final MeterRegistry meterRegistry;
+
+    // Counting pending entries scans the state index, so status polls read this instead of counting each time
+    private volatile long pendingCount;
+
+    @PostConstruct
+    public void initMetrics() {
+        Gauge.builder("crawl.frontier.pending", this, CrawlFrontierStore::cachedPendingCount)
+                .description("Frontier entries waiting to be crawled, as of the last refresh")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records newly discovered Steam IDs in one batched insert, skipping any the frontier has already seen.
+     *
+     * @param steamIds The discovered Steam64 IDs
+     * @param source How the IDs were discovered
+     * @param depth Hops from the crawl seed
+     * @param state State to leave the new entries in (IN_PROGRESS, leased to this node, when the caller keeps the IDs
+     *              in memory; PENDING otherwise)
+     * @return the IDs that were new to the frontier
+     */
+    @Transactional
+    public List<String> enqueue(Collection<String> steamIds, DiscoverySource source, int depth, State state) {
+        if (steamIds.isEmpty()) {
+            return List.of();
+        }
+        Set<String> existing = new HashSet<>(crawlFrontierRepository.findExistingSteamIds(steamIds));
+        List<String> fresh = steamIds.stream()
+                .filter(id -> !existing.contains(id))
+                .distinct()
+                .toList();
+        if (fresh.isEmpty()) {
+            return fresh;
+        }
+
+        // Inserted leased to this node even when they are to be left pending, so the rows this node inserted can be
+        // told apart from rows another node inserted since the existence check, which were ignored. With
+        // rewriteBatchedStatements the driver reports SUCCESS_NO_INFO for every row of the rewritten insert,
+        // so the batch counts can't tell them apart
+        int priority = priorityFor(source, depth);
+        String nodeId = workLeaseService.getNodeId();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp leaseExpiresAt = Timestamp.valueOf(workLeaseService.leaseExpiry());
+        jdbcTemplate.batchUpdate(INSERT_IGNORE_SQL, fresh, fresh.size(), (ps, steamId) -> {
+            ps.setString(1, steamId);
+            ps.setString(2, source.name());
+            ps.setInt(3, depth);
+            ps.setInt(4, priority);
+            ps.setString(5, State.IN_PROGRESS.name());
+            ps.setString(6, nodeId);
+            ps.setTimestamp(7, leaseExpiresAt);
+            ps.setTimestamp(8, now);
+            ps.setTimestamp(9, now);
+        });
+
+        Set<String> owned = new HashSet<>(crawlFrontierRepository.findLeasedSteamIds(fresh, nodeId));
+        List<String> inserted = fresh.stream().filter(owned::contains).toList();
+        if (state != State.IN_PROGRESS) {
+            markState(inserted, state);
+        }
+        log.debug("Enqueued {} new frontier IDs ({} already known) from {} at depth {}",
+                inserted.size(), steamIds.size() - inserted.size(), source, depth);
+        return inserted;
+    }
+
+    /**
+     * Claims a crawl seed, re-opening it if it was already visited in an earlier batch.
+     * A seed another node holds an unexpired lease on is left to that node.
+     *
+     * @param steamId The seed Steam64 ID
+     * @return true if the seed is now leased to this node
+     */
+    @Transactional
+    public boolean claimSeed(String steamId) {
+        String nodeId = workLeaseService.getNodeId();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseExpiresAt = workLeaseService.leaseExpiry();
+        jdbcTemplate.update(INSERT_IGNORE_SQL, steamId, DiscoverySource.SEED.name(), 0, priorityFor(DiscoverySource.SEED, 0),
+                State.IN_PROGRESS.name(), nodeId, Timestamp.valueOf(leaseExpiresAt), Timestamp.valueOf(now), Timestamp.valueOf(now));
+        return crawlFrontierRepository.leaseUnlessHeld(steamId, nodeId, leaseExpiresAt, now) > 0;
+    }
+
+    /**
+     * Dequeues the highest priority pending entries and leases them to this node.
+     * Rows being claimed by another node are skipped rather than waited on, so nodes never crawl the same IDs.
+     *
+     * @param batchSize Maximum number of entries to claim
+     * @return the claimed entries
+     */
+    @Transactional
+    public List<CrawlFrontierEntry> claimBatch(int batchSize) {
+        List<String> steamIds = crawlFrontierRepository.lockPendingSteamIds(batchSize);
+        if (steamIds.isEmpty()) {
+            return List.of();
+        }
+        crawlFrontierRepository.lease(steamIds, workLeaseService.getNodeId(), workLeaseService.leaseExpiry(), LocalDateTime.now());
+        return crawlFrontierRepository.findAllById(steamIds);
+    }
+
+    /**
+     * Moves a batch of entries leased to this node to a new state. Entries whose lease expired and was taken by
+     * another node are skipped, so a slow node can't overwrite the new owner's progress.
+     *
+     * @param steamIds The Steam64 IDs to update
+     * @param state The new state
+     */
+    @Transactional
+    public void markState(Collection<String> steamIds, State state) {
+        if (!steamIds.isEmpty()) {
+            int updated = crawlFrontierRepository.updateState(steamIds, workLeaseService.getNodeId(), state, LocalDateTime.now());
+            if (updated < steamIds.size()) {
+                log.debug("Skipped {} frontier entries no longer leased to this node", steamIds.size() - updated);
+            }
+        }
+    }
+
+    /**
+     * @return the number of entries waiting to be crawled
+     */
+    public long countPending() {
+        long count = crawlFrontierRepository.countByState(State.PENDING);
+        pendingCount = count;
+        return count;
+    }
+
+    /**
+     * @return the number of entries waiting to be crawled as of the last count, at most
+     *         crawl.frontier.pending-refresh-interval-ms old
+     */
+    public long cachedPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * Recounts the pending entries for the status endpoint and the pending gauge.
+     */
+    @Scheduled(fixedDelayString = "${crawl.frontier.pending-refresh-interval-ms:30000}")
+    public void refreshPendingCount() {
+        try {
+            countPending();
+        } catch (Exception e) {
+            log.debug("Failed to count pending frontier entries - {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Shallower IDs are crawled first; at equal depth, teammates beat players found through match details.
+     */
+    private int priorityFor(DiscoverySource source, int depth) {
+        return -2 * depth + (source == DiscoverySource.MATCH ? 0 : 1);
+    }
+}
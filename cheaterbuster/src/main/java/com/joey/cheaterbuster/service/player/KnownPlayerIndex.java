@@ -0,0 +1,141 @@
+package com.joey.cheaterbuster.service.player;
+
+import com.joey.cheaterbuster.util.LongHashSet;
+import com.joey.cheaterbuster.util.Utils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of every Steam ID stored in player_data, held as primitive longs.
+ * Lets the crawler recognise known players without a database round trip.
+ * Seeded at startup with a streaming read of the player_data keys, then kept up to date with the players this node
+ * stores or finds stored. Other nodes write to the same table, so the index is only a positive hint: a hit means the
+ * player is stored, while a miss still has to be checked against the database.
+ * <p>
+ * The set answers every lookup exactly from memory, so there is no probabilistic pre-check in front of it: a miss
+ * in the set costs the same probe a Bloom filter would, and the filter's memory would be spent for nothing.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KnownPlayerIndex {
+
+    private static final String SELECT_KEYS_SQL = "SELECT steam_id FROM player_data";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM player_data";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private LongHashSet knownIds = new LongHashSet();
+    private volatile boolean ready = false;
+
+    /**
+     * Streams the player_data keys into the index on a background thread so startup isn't delayed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedAsync() {
+        Thread.ofVirtual().name("known-player-index-seed").start(this::seed);
+    }
+
+    /**
+     * Loads every stored Steam ID into the index.
+     */
+    public void seed() {
+        long start = System.currentTimeMillis();
+        try {
+            Long rowCount = jdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+            int expected = (int) Math.min(Integer.MAX_VALUE / 4, (rowCount == null ? 0 : rowCount) + 1024);
+            LongHashSet seeded = new LongHashSet(expected);
+
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SELECT_KEYS_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                // MySQL Connector/J only streams rows one at a time with this sentinel fetch size
+                boolean mysql = "MySQL".equalsIgnoreCase(con.getMetaData().getDatabaseProductName());
+                ps.setFetchSize(mysql ? Integer.MIN_VALUE : 1000);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                long id = Utils.parseSteamId(rs.getString(1));
+                if (id >= 0) {
+                    seeded.add(id);
+                }
+            });
+
+            lock.writeLock().lock();
+            try {
+                // Players saved while the seed query was streaming may have missed it
+                knownIds.forEach(seeded::add);
+                knownIds = seeded;
+                ready = true;
+                log.info("Known player index seeded with {} Steam IDs in {}ms ({} KB)",
+                        seeded.size(), System.currentTimeMillis() - start, seeded.memoryBytes() / 1024);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (Exception e) {
+            log.error("Failed to seed known player index, falling back to database lookups: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return true once the index holds every stored Steam ID
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @param steamId The Steam64 ID to check
+     * @return true if the player is stored, false if this node hasn't seen it stored
+     */
+    public boolean isKnown(String steamId) {
+        long id = Utils.parseSteamId(steamId);
+        if (id < 0) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return knownIds.contains(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records a newly stored player.
+     *
+     * @param steamId The Steam64 ID that was saved
+     */
+    public void markKnown(String steamId) {
+        long id = Utils.parseSteamId(steamId);
+        if (id < 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            knownIds.add(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of indexed Steam IDs
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return knownIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
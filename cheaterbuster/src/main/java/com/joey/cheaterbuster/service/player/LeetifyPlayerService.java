@@ -1,22 +1,33 @@
 package com.joey.cheaterbuster.service.player;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.joey.cheaterbuster.config.LeetifyConfig;
-import com.joey.cheaterbuster.dto.VaclistProfileDTO;
 import com.joey.cheaterbuster.dto.leetify.match.MatchDTO;
 import com.joey.cheaterbuster.dto.leetify.match.StatsDTO;
 import com.joey.cheaterbuster.dto.leetify.player.PlayerDataDTO;
 import com.joey.cheaterbuster.dto.leetify.player.TeammateDTO;
+import com.joey.cheaterbuster.entity.CrawlFrontierEntry;
 import com.joey.cheaterbuster.entity.PlayerData;
 import com.joey.cheaterbuster.exception.LeetifyApiException;
 import com.joey.cheaterbuster.exception.PlayerNotFoundException;
-import com.joey.cheaterbuster.exception.VaclistApiException;
+import com.joey.cheaterbuster.exception.UpstreamThrottledException;
 import com.joey.cheaterbuster.mapper.PlayerDataMapper;
 import com.joey.cheaterbuster.repository.PlayerDataRepository;
+import com.joey.cheaterbuster.service.archive.RawResponseArchive;
+import com.joey.cheaterbuster.service.cluster.WorkLeaseService;
 import com.joey.cheaterbuster.service.match.LeetifyMatchService;
+import com.joey.cheaterbuster.service.outbound.OutboundRequestScheduler;
+import com.joey.cheaterbuster.service.outbound.RequestPriority;
+import com.joey.cheaterbuster.service.outbound.SingleFlight;
+import com.joey.cheaterbuster.service.outbound.Upstream;
+import com.joey.cheaterbuster.service.pipeline.StageMetrics;
 import com.joey.cheaterbuster.util.Utils;
-import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -26,23 +37,56 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class LeetifyPlayerService {
 
-    private static final int BANNED_PLAYER_GET_COUNT = 100;
-    private static final int INITIAL_PAGE = 3490;
     private static final int MAX_PLAYER_IDS_FROM_MATCHES = 20;
+    private static final int MAX_THROTTLE_RETRIES = 5;
     private static final String GET_PROFILE_PATH = "/v3/profile?steam64_id=";
-    private static final String GET_BANNED_PATH = "https://vaclist.net/api/banned";
+    @Qualifier("leetifyRestTemplate")
     private final RestTemplate restTemplate;
     private final LeetifyConfig config;
     private final LeetifyMatchService leetifyMatchService;
     private final PlayerDataRepository playerDataRepository;
     private final PlayerDataMapper playerDataMapper;
-    private int currentPage = INITIAL_PAGE;
+    private final OutboundRequestScheduler outboundRequestScheduler;
+    private final CrawlFrontierStore crawlFrontierStore;
+    private final WorkLeaseService workLeaseService;
+    private final KnownPlayerIndex knownPlayerIndex;
+    private final PlayerTeammateStore playerTeammateStore;
+    private final PlayerDataWriter playerDataWriter;
+    private final VaclistPagePrefetcher vaclistPagePrefetcher;
+    private final MeterRegistry meterRegistry;
+    private final RawResponseArchive rawResponseArchive;
+    private final NotFoundCache notFoundCache;
+    private final PlayerProfileCache playerProfileCache;
+    private final ObjectMapper objectMapper;
+
+    // Crawls in progress, so the fetch stage's queue depth can be reported
+    private final Set<CrawlFrontier> activeFrontiers = ConcurrentHashMap.newKeySet();
+    private StageMetrics fetchStageMetrics;
+    // Concurrent fetches of the same profile, from users or crawl workers, share one Leetify request
+    private SingleFlight<String, PlayerDataDTO> profileFlight;
+
+    @Value("${gathering.concurrency:4}")
+    private int defaultConcurrency;
+
+    @Value("${gathering.frontier-memory-capacity:500}")
+    private int frontierMemoryCapacity;
+
+    @PostConstruct
+    public void initMetrics() {
+        fetchStageMetrics = new StageMetrics("fetch",
+                () -> activeFrontiers.stream().mapToInt(CrawlFrontier::size).sum(), meterRegistry);
+        profileFlight = new SingleFlight<>("leetify.profile", outboundRequestScheduler, meterRegistry);
+    }
 
     /**
      * Fetches the profile of a player given their Steam64 ID.
@@ -53,11 +97,27 @@ public class LeetifyPlayerService {
     public PlayerDataDTO getPlayerProfile(String steam64Id) {
         log.debug("Fetching player profile for Steam ID: {}", steam64Id);
 
-        // Check database first
+        // A profile fetched moments ago may still be waiting for the batch writer
+        Optional<PlayerDataDTO> pendingWrite = playerDataWriter.getPending(steam64Id);
+        if (pendingWrite.isPresent()) {
+            return pendingWrite.get();
+        }
+
+        // Popular profiles are served from memory without touching the database
+        Optional<PlayerDataDTO> cached = playerProfileCache.get(steam64Id);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        // Check database first. The index only holds players this node has seen stored, so a miss there still
+        // needs the key lookup: another node may have stored the player since
         Optional<PlayerData> existingPlayer = playerDataRepository.findBySteamId(steam64Id);
         if (existingPlayer.isPresent()) {
+            knownPlayerIndex.markKnown(steam64Id);
             log.info("Player profile found in database for Steam ID: {} ({})", steam64Id, existingPlayer.get().getName());
-            return playerDataMapper.toDTO(existingPlayer.get());
+            PlayerDataDTO stored = playerDataMapper.toDTO(existingPlayer.get(), playerTeammateStore.findTeammateIds(steam64Id));
+            playerProfileCache.put(stored);
+            return stored;
         }
 
         // Not in database, fetch from Leetify API
@@ -65,188 +125,370 @@ public class LeetifyPlayerService {
         return fetchFromLeetifyApi(steam64Id);
     }
 
+    /**
+     * Re-fetches a player's profile from Leetify, ignoring any stored copy, and queues it to be saved.
+     *
+     * @param steam64Id The Steam64 ID of the player
+     * @return PlayerDataDTO containing the player's current profile
+     */
+    public PlayerDataDTO refreshPlayerProfile(String steam64Id) {
+        return fetchFromLeetifyApi(steam64Id);
+    }
+
+    /**
+     * Fetches player profiles starting from an initial player using the default crawl concurrency.
+     *
+     * @param numEntries The target number of profiles to fetch
+     * @param firstId The Steam64 ID of the initial player
+     * @return List of player profiles
+     */
+    public List<PlayerDataDTO> getPlayerProfiles(int numEntries, String firstId) {
+        return getPlayerProfiles(numEntries, firstId, defaultConcurrency);
+    }
+
     /**
      * Fetches player profiles starting from an initial player and traversing through their teammates
      * until the specified number of entries is reached. If player has no recent teammates and Ids to check runs out,
      * it will look at recent matches to find more players.
+     * The traversal is run by several workers on virtual threads sharing one frontier, so the crawl
+     * keeps the Leetify rate budget busy instead of idling on network round trips.
      *
      * @param numEntries The target number of profiles to fetch
      * @param firstId The Steam64 ID of the initial player
+     * @param concurrency The number of crawl workers to run
      * @return List of player profiles
      */
+    public List<PlayerDataDTO> getPlayerProfiles(int numEntries, String firstId, int concurrency) {
+        log.info("Starting players gathering process from Steam ID: {} (target: {} profiles, workers: {})", firstId, numEntries, concurrency);
+        CrawlFrontier frontier = new CrawlFrontier();
+        frontier.seed(firstId);
+        return runCrawl(frontier, numEntries, concurrency);
+    }
 
-    public List<PlayerDataDTO> getPlayerProfiles(int numEntries, String firstId) {
-        log.info("Starting players gathering process from Steam ID: {} (target: {} profiles)", firstId, numEntries);
-        Set<String> checkedIds = new HashSet<>();
-        Set<String> enqueuedIds = new HashSet<>();
-        List<PlayerDataDTO> profiles = new ArrayList<>();
-        Queue<String> idsToCheck = new LinkedList<>();
+    /**
+     * Continues the durable crawl stored in the crawl_frontier table until the specified number of entries is reached.
+     * Discovered players that are not visited in this batch stay pending for the next one.
+     *
+     * @param numEntries The target number of profiles to fetch
+     * @param seedId Optional Steam64 ID to (re-)start the crawl from, or null to resume from pending entries only
+     * @param concurrency The number of crawl workers to run
+     * @return List of player profiles
+     */
+    public List<PlayerDataDTO> getPlayerProfilesFromFrontier(int numEntries, String seedId, int concurrency) {
+        log.info("Resuming crawl from durable frontier (seed: {}, target: {} profiles, workers: {})", seedId, numEntries, concurrency);
+        CrawlFrontier frontier = new CrawlFrontier(crawlFrontierStore, frontierMemoryCapacity);
+        if (seedId != null) {
+            frontier.seed(seedId);
+        }
+        return runCrawl(frontier, numEntries, concurrency);
+    }
 
-        idsToCheck.add(firstId);
-        enqueuedIds.add(firstId);
+    /**
+     * @return true if the durable frontier has players waiting to be crawled
+     */
+    public boolean hasPendingFrontier() {
+        return crawlFrontierStore.countPending() > 0;
+    }
 
-        while (!idsToCheck.isEmpty() && profiles.size() < numEntries) {
-            String currentId = idsToCheck.poll();
-            log.debug("Processing Steam ID: {} (Progress: {}/{})", currentId, profiles.size(), numEntries);
+    /**
+     * Runs crawl workers on virtual threads over the given frontier.
+     */
+    private List<PlayerDataDTO> runCrawl(CrawlFrontier frontier, int numEntries, int concurrency) {
+        List<PlayerDataDTO> profiles = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger collected = new AtomicInteger(0);
+
+        // Workers inherit the caller's priority so background crawls never delay interactive lookups
+        RequestPriority priority = RequestPriority.current();
+        activeFrontiers.add(frontier);
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < Math.max(1, concurrency); i++) {
+                workers.submit(() -> priority.runAs(() -> runCrawlWorker(frontier, numEntries, profiles, collected)));
+            }
+        } finally {
+            activeFrontiers.remove(frontier);
+            frontier.finish();
+        }
 
-            PlayerDataDTO profile;
-            try {
-                profile = getPlayerProfile(currentId);
-            } catch (Exception e) {
-                log.warn("Failed to fetch profile for Steam ID: {} - {}", currentId, e.getMessage());
-                checkedIds.add(currentId);
-                continue;
+        log.info("Completed player gathering. Collected {} profiles", profiles.size());
+        return new ArrayList<>(profiles);
+    }
+
+    /**
+     * Worker loop for the concurrent crawl. Takes IDs from the shared frontier until it is exhausted
+     * or the target number of profiles has been collected.
+     */
+    private void runCrawlWorker(CrawlFrontier frontier, int numEntries, List<PlayerDataDTO> profiles, AtomicInteger collected) {
+        try {
+            CrawlFrontier.CrawlTarget target;
+            while ((target = frontier.take()) != null) {
+                CrawlFrontierEntry.State outcome = CrawlFrontierEntry.State.FAILED;
+                long start = System.nanoTime();
+                try {
+                    outcome = crawlPlayer(target, frontier, numEntries, profiles, collected);
+                } finally {
+                    frontier.complete(target, outcome);
+                    fetchStageMetrics.recordProcessed(1, System.nanoTime() - start);
+                }
             }
+        } catch (InterruptedException e) {
+            log.info("Crawl worker interrupted");
+            Thread.currentThread().interrupt();
+        }
+    }
 
-            // If profile couldn't be retrieved, mark checked and continue
-            if (profile == null) {
-                log.warn("Received null profile for Steam ID: {}, skipping", currentId);
-                checkedIds.add(currentId);
-                continue;
+    /**
+     * Processes a single Steam ID from the frontier and enqueues any newly discovered players.
+     *
+     * @return the frontier state the ID should end up in
+     */
+    private CrawlFrontierEntry.State crawlPlayer(CrawlFrontier.CrawlTarget target, CrawlFrontier frontier, int numEntries,
+                                                 List<PlayerDataDTO> profiles, AtomicInteger collected) {
+        String currentId = target.steamId();
+        log.debug("Processing Steam ID: {} (Progress: {}/{})", currentId, collected.get(), numEntries);
+
+        PlayerDataDTO profile;
+        try {
+            profile = getPlayerProfile(currentId);
+        } catch (UpstreamThrottledException e) {
+            // The scheduler has already backed off, so retry the ID instead of dropping it
+            if (frontier.requeue(target)) {
+                log.info("Leetify throttled fetch for Steam ID: {}, re-queued", currentId);
+                return CrawlFrontierEntry.State.IN_PROGRESS;
             }
+            log.warn("Giving up on Steam ID: {} after repeated throttling", currentId);
+            return CrawlFrontierEntry.State.PENDING;
+        } catch (PlayerNotFoundException e) {
+            log.debug("No Leetify profile for Steam ID: {}, skipping", currentId);
+            return CrawlFrontierEntry.State.FAILED;
+        } catch (Exception e) {
+            log.warn("Failed to fetch profile for Steam ID: {} - {}", currentId, e.getMessage());
+            return CrawlFrontierEntry.State.FAILED;
+        }
 
-            // Successfully retrieved
-            profiles.add(profile);
-            checkedIds.add(currentId);
-            log.debug("Added profile for {} (Total: {})", profile.getName(), profiles.size());
+        // If profile couldn't be retrieved, skip it
+        if (profile == null) {
+            log.warn("Received null profile for Steam ID: {}, skipping", currentId);
+            return CrawlFrontierEntry.State.FAILED;
+        }
 
-            if (profiles.size() >= numEntries) break;
+        // Successfully retrieved - claim a slot so concurrent workers never overshoot the target
+        int slot = collected.incrementAndGet();
+        if (slot > numEntries) {
+            // Visited after the target was reached; leave it for the next batch to expand
+            return CrawlFrontierEntry.State.PENDING;
+        }
+        profiles.add(profile);
+        log.debug("Added profile for {} (Total: {})", profile.getName(), slot);
 
-            // Add teammates from profile
-            List<String> teammateIds = getRecentTeammateIds(profile);
-            boolean anyTeammatesAdded = false;
-            for (String teammateId : teammateIds) {
-                if (!checkedIds.contains(teammateId) && enqueuedIds.add(teammateId)) {
-                    idsToCheck.add(teammateId);
-                    anyTeammatesAdded = true;
-                }
-            }
-            if (anyTeammatesAdded) {
-                log.debug("Added {} teammates to queue from {}", teammateIds.size(), profile.getName());
-            }
+        if (slot >= numEntries) {
+            frontier.close();
+            return CrawlFrontierEntry.State.PENDING;
+        }
 
-            // If no teammates were added, try expanding via recent matches
-            if (!anyTeammatesAdded) {
-                log.debug("No new teammates found for {}, expanding via recent matches", profile.getName());
-                Set<String> matchPlayerIds = getPlayerIdsFromRecentMatches(profile);
-                int addedFromMatches = 0;
-                for (String id : matchPlayerIds) {
-                    if (!checkedIds.contains(id) && enqueuedIds.add(id)) {
-                        idsToCheck.add(id);
-                        addedFromMatches++;
-                    }
-                }
-                if (addedFromMatches > 0) {
-                    log.debug("Added {} player IDs from recent matches", addedFromMatches);
-                }
-            }
+        // Add teammates from profile
+        int nextDepth = target.depth() + 1;
+        List<String> teammateIds = getRecentTeammateIds(profile);
+        int addedTeammates = frontier.offerAll(teammateIds, CrawlFrontierEntry.DiscoverySource.TEAMMATE, nextDepth);
+        if (addedTeammates > 0) {
+            log.debug("Added {} teammates to queue from {}", addedTeammates, profile.getName());
+            return CrawlFrontierEntry.State.DONE;
         }
 
-        log.info("Completed player gathering. Collected {} profiles", profiles.size());
-        return profiles;
+        // If no teammates were added, try expanding via recent matches
+        log.debug("No new teammates found for {}, expanding via recent matches", profile.getName());
+        Set<String> matchPlayerIds;
+        try {
+            matchPlayerIds = getPlayerIdsFromRecentMatches(profile);
+        } catch (Exception e) {
+            log.warn("Failed to expand recent matches for Steam ID: {} - {}", currentId, e.getMessage());
+            return CrawlFrontierEntry.State.DONE;
+        }
+        int addedFromMatches = frontier.offerAll(matchPlayerIds, CrawlFrontierEntry.DiscoverySource.MATCH, nextDepth);
+        if (addedFromMatches > 0) {
+            log.debug("Added {} player IDs from recent matches", addedFromMatches);
+        }
+        return CrawlFrontierEntry.State.DONE;
     }
 
     /**
      * Gets and saves list of banned players to DB with automatic pagination.
-     * Only fetches profiles that don't already exist in the database.
-     * Fetches from current page and increments page counter for next call.
+     * Only fetches profiles that don't already exist in the database; stored players are filtered out with a single
+     * key-only query per page, without loading their entities.
+     * Takes the next page from the VacList prefetcher, which leases pages from the cursor shared by all nodes
+     * and fetches them ahead, and gives the lease back if the page fails.
+     * The already known players are counted but not loaded; see {@link #getBannedPlayerProfiles(boolean)}.
+     *
+     * @return the outcome of the leased page, including the newly fetched profiles
+     */
+    public BannedPageResult getBannedPlayerProfiles() {
+        return getBannedPlayerProfiles(false);
+    }
+
+    /**
+     * Gets and saves the next VacList page of banned players, optionally also loading the stored profiles of the
+     * players on the page that were already known.
      *
-     * @return list of banned player profiles from current page
+     * @param includeKnownProfiles Whether to load the already known players' stored profiles into the result
+     * @return the outcome of the leased page, including the newly fetched profiles
      */
-    public List<PlayerDataDTO> getBannedPlayerProfiles() {
-        log.info("Fetching banned player profiles from VacList page {}", currentPage);
+    public BannedPageResult getBannedPlayerProfiles(boolean includeKnownProfiles) {
+        VaclistPagePrefetcher.PrefetchedPage prefetched = vaclistPagePrefetcher.take();
+        int page = prefetched.page();
+        log.info("Fetching banned player profiles from VacList page {}", page);
         List<PlayerDataDTO> profiles = new ArrayList<>();
-        Set<String> bannedSteamIds = getBannedSteamIds();
+        List<String> bannedSteamIds = prefetched.steamIds();
+        Set<String> knownSteamIds;
+        try {
+            knownSteamIds = findKnownSteamIds(bannedSteamIds);
+        } catch (RuntimeException e) {
+            workLeaseService.releaseVaclistPage(page);
+            throw e;
+        }
 
-        log.info("Retrieved {} Steam IDs from VacList page {}", bannedSteamIds.size(), currentPage);
+        Deque<String> idsToFetch = new ArrayDeque<>(bannedSteamIds);
+        idsToFetch.removeAll(knownSteamIds);
+        // IDs Leetify recently reported as not found are skipped without a request
+        Set<String> knownNotFound = notFoundCache.findNotFound(idsToFetch);
+        idsToFetch.removeAll(knownNotFound);
+
+        log.info("Retrieved {} Steam IDs from VacList page {} ({} already known, {} known to have no Leetify profile, {} repeated from the previous page)",
+                bannedSteamIds.size(), page, knownSteamIds.size(), knownNotFound.size(), prefetched.driftedEntries());
 
         int notFoundCount = 0;
         int errorCount = 0;
+        Map<String, Integer> throttleCounts = new HashMap<>();
 
-        for (String steamId : bannedSteamIds) {
+        while (!idsToFetch.isEmpty()) {
+            String steamId = idsToFetch.poll();
+            long start = System.nanoTime();
             try {
-                // getPlayerProfile checks DB first, fetches from API if not present, and saves to DB
-                PlayerDataDTO profile = getPlayerProfile(steamId);
+                // Known players were filtered out above, so go straight to the API; the profile is saved to DB
+                PlayerDataDTO profile = fetchFromLeetifyApi(steamId);
                 profiles.add(profile);
                 log.debug("Added banned player profile: {} (Total: {})", profile.getName(), profiles.size());
+            } catch (UpstreamThrottledException e) {
+                if (throttleCounts.merge(steamId, 1, Integer::sum) <= MAX_THROTTLE_RETRIES) {
+                    // The scheduler is already paused for Retry-After, so just retry the ID later in this page
+                    idsToFetch.addLast(steamId);
+                    log.info("Leetify throttled fetch for banned Steam ID: {}, re-queued", steamId);
+                } else {
+                    errorCount++;
+                    log.warn("Giving up on banned Steam ID: {} after repeated throttling", steamId);
+                }
             } catch (PlayerNotFoundException e) {
                 notFoundCount++;
                 log.info("Banned player not found on Leetify for Steam ID: {}, skipping", steamId);
             } catch (Exception e) {
                 errorCount++;
                 log.warn("Failed to fetch banned player profile for Steam ID: {} - {}", steamId, e.getMessage());
+            } finally {
+                fetchStageMetrics.recordProcessed(1, System.nanoTime() - start);
             }
         }
 
-        currentPage++;
-        log.info("Completed banned player gathering from page {}. VacList returned: {}, Successfully collected: {}, Not found on Leetify: {}, Errors: {}",
-                currentPage - 1, bannedSteamIds.size(), profiles.size(), notFoundCount, errorCount);
-        return profiles;
+        workLeaseService.completeVaclistPage(page);
+        log.info("Completed banned player gathering from page {}. VacList returned: {}, Already known: {}, Newly collected: {}, Not found on Leetify: {}, Errors: {}",
+                page, bannedSteamIds.size(), knownSteamIds.size(), profiles.size(), notFoundCount, errorCount);
+        return BannedPageResult.builder()
+                .page(page)
+                .listedCount(bannedSteamIds.size())
+                .newCount(profiles.size())
+                .alreadyKnownCount(knownSteamIds.size())
+                .newProfiles(profiles)
+                .knownProfiles(includeKnownProfiles ? loadKnownProfiles(bannedSteamIds, knownSteamIds) : List.of())
+                .notFoundCount(notFoundCount)
+                .skippedNotFoundCount(knownNotFound.size())
+                .errorCount(errorCount)
+                .build();
     }
 
     /**
-     * Fetches a list of banned steamIds from vaclist
-     *
-     * @return a set of steamIds
+     * Loads the stored profiles of the already known players on a VacList page, in page order.
+     * A profile that can't be loaded is left out rather than failing the page, which has already been gathered.
      */
-    @RateLimiter(name = "vaclistApi")
-    private Set<String> getBannedSteamIds() {
-        Set<String> steamIds = new HashSet<>();
-        String url = GET_BANNED_PATH + "?count=" + BANNED_PLAYER_GET_COUNT + "&page=" + currentPage;
-        HttpHeaders headers = Utils.createHeadersWithUserAgent(config.getUserAgent());
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-
-        try {
-            ResponseEntity<VaclistProfileDTO[]> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    VaclistProfileDTO[].class
-            );
-
-            VaclistProfileDTO[] profiles = response.getBody();
-            if (profiles != null) {
-                for (VaclistProfileDTO profile : profiles) {
-                    if (profile.getSteamId() != null) {
-                        steamIds.add(profile.getSteamId());
-                    }
-                }
-                log.debug("Fetched {} Steam IDs from VacList page {}", steamIds.size(), currentPage);
+    private List<PlayerDataDTO> loadKnownProfiles(List<String> listedSteamIds, Set<String> knownSteamIds) {
+        List<PlayerDataDTO> known = new ArrayList<>(knownSteamIds.size());
+        for (String steamId : listedSteamIds) {
+            if (!knownSteamIds.contains(steamId)) {
+                continue;
             }
+            try {
+                known.add(getPlayerProfile(steamId));
+            } catch (Exception e) {
+                log.warn("Failed to load known banned player profile for Steam ID: {} - {}", steamId, e.getMessage());
+            }
+        }
+        return known;
+    }
 
-            return steamIds;
-        } catch (HttpClientErrorException e) {
-            log.error("VacList API error on page {}: {} - {}", currentPage, e.getStatusCode(), e.getMessage());
-            throw new VaclistApiException("Failed to fetch banned Steam IDs from VacList (page " + currentPage + ")", e);
-        } catch (Exception e) {
-            log.error("Unexpected error fetching banned Steam IDs from page {}: {}", currentPage, e.getMessage(), e);
-            throw new VaclistApiException("Unexpected error fetching banned Steam IDs from VacList (page " + currentPage + ")", e);
+    /**
+     * Finds which of the given Steam IDs are already stored, including profiles still waiting for the batch writer.
+     *
+     * @param steamIds The Steam64 IDs to check
+     * @return the subset of the IDs that are already known
+     */
+    private Set<String> findKnownSteamIds(Collection<String> steamIds) {
+        if (steamIds.isEmpty()) {
+            return Set.of();
         }
+        // The index is a positive hint only, so just the IDs it hasn't seen stored go to the database
+        Set<String> known = new HashSet<>();
+        List<String> unindexed = new ArrayList<>();
+        for (String steamId : steamIds) {
+            if (knownPlayerIndex.isKnown(steamId) || playerDataWriter.getPending(steamId).isPresent()) {
+                known.add(steamId);
+            } else {
+                unindexed.add(steamId);
+            }
+        }
+        if (!unindexed.isEmpty()) {
+            List<String> stored = playerDataRepository.findExistingSteamIds(unindexed);
+            stored.forEach(knownPlayerIndex::markKnown);
+            known.addAll(stored);
+        }
+        return known;
     }
 
     /**
-     * Fetches player profile from Leetify API.
+     * Fetches player profile from Leetify API, joining the fetch already in flight for the same Steam ID if there is one.
      *
      * @param steam64Id The Steam64 ID of the player
      * @return PlayerDataDTO containing the player's profile information
      */
-    @RateLimiter(name = "leetifyApi")
     private PlayerDataDTO fetchFromLeetifyApi(String steam64Id) {
+        return profileFlight.execute(steam64Id, () -> requestProfile(steam64Id));
+    }
+
+    /**
+     * Requests a player profile from Leetify and queues it to be saved.
+     *
+     * @param steam64Id The Steam64 ID of the player
+     * @return PlayerDataDTO containing the player's profile information
+     */
+    private PlayerDataDTO requestProfile(String steam64Id) {
+        if (notFoundCache.isNotFound(steam64Id)) {
+            log.debug("Skipping Leetify request for Steam ID: {}, recently reported as not found", steam64Id);
+            throw new PlayerNotFoundException(steam64Id, null);
+        }
         String url = config.getBaseUrl() + GET_PROFILE_PATH + steam64Id;
 
         HttpHeaders headers = Utils.createLeetifyHeaders(config.getApiKey(), config.getUserAgent());
         HttpEntity<String> entity = new HttpEntity<>(headers);
 
         try {
-            ResponseEntity<PlayerDataDTO> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    entity,
-                    PlayerDataDTO.class
-            );
-
-            PlayerDataDTO profile = response.getBody();
-            if (profile != null) {
+            // Read the raw body so it can be archived before it is mapped down to PlayerDataDTO
+            ResponseEntity<byte[]> response = outboundRequestScheduler.execute(Upstream.LEETIFY,
+                    () -> restTemplate.exchange(
+                            url,
+                            HttpMethod.GET,
+                            entity,
+                            byte[].class
+                    ));
+
+            byte[] body = response.getBody();
+            if (body != null && body.length > 0) {
+                rawResponseArchive.archive(RawResponseArchive.Kind.PROFILE, steam64Id, List.of(steam64Id), body);
+                PlayerDataDTO profile = objectMapper.readValue(body, PlayerDataDTO.class);
                 log.info("Successfully fetched profile from Leetify API for Steam ID: {} (Name: {})", steam64Id, profile.getName());
 
                 // Save to database
@@ -259,11 +501,12 @@ public class LeetifyPlayerService {
             }
         } catch (HttpClientErrorException.NotFound e) {
             log.warn("Player not found on Leetify API for Steam ID: {}", steam64Id);
+            notFoundCache.record(steam64Id);
             throw new PlayerNotFoundException(steam64Id, e);
         } catch (HttpClientErrorException e) {
             log.error("Leetify API error for Steam ID {}: {} - {}", steam64Id, e.getStatusCode(), e.getMessage());
             throw new LeetifyApiException("Leetify API error for Steam ID " + steam64Id + ": " + e.getStatusCode(), e);
-        } catch (LeetifyApiException | PlayerNotFoundException e) {
+        } catch (LeetifyApiException | PlayerNotFoundException | UpstreamThrottledException e) {
             // Already our custom exceptions, just rethrow
             throw e;
         } catch (Exception e) {
@@ -329,20 +572,32 @@ public class LeetifyPlayerService {
 
     /**
      * Saves player data to the database.
-     * Converts DTO to entity and persists it.
+     * Hands the profile to the batch writer, which upserts it asynchronously.
      *
      * @param dto The PlayerDataDTO to save
      */
     private void savePlayerData(PlayerDataDTO dto) {
-        try {
-            PlayerData entity = playerDataMapper.toEntity(dto);
-            if (entity != null) {
-                playerDataRepository.save(entity);
-                log.debug("Saved player data to database for Steam ID: {} ({})", dto.getSteamId(), dto.getName());
-            }
-        } catch (Exception e) {
-            log.error("Failed to save player data for Steam ID: {} - {}", dto.getSteamId(), e.getMessage(), e);
-            // Don't rethrow - we don't want database failures to break the API fetch
-        }
+        // Write-through, so the cache never serves the profile this fetch replaced
+        playerProfileCache.put(dto);
+        playerDataWriter.submit(dto);
+        log.debug("Queued player data for Steam ID: {} ({})", dto.getSteamId(), dto.getName());
+    }
+
+    /**
+     * Outcome of gathering one VacList page of banned players.
+     */
+    @lombok.Builder
+    @lombok.Data
+    public static class BannedPageResult {
+        private int page;
+        private int listedCount;
+        private int newCount;
+        private int alreadyKnownCount;
+        private List<PlayerDataDTO> newProfiles;
+        // Empty unless requested, so gathering never loads players it already has
+        private List<PlayerDataDTO> knownProfiles;
+        private int notFoundCount;
+        private int skippedNotFoundCount;
+        private int errorCount;
     }
 }
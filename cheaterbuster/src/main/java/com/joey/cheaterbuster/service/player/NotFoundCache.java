@@ -0,0 +1,170 @@
+package com.joey.cheaterbuster.service.player;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Negative cache of Steam IDs Leetify reported as not found, checked before every profile request so known misses
+ * don't spend rate-limit budget again. A large share of VacList IDs have no Leetify profile.
+ * <p>
+ * Misses are stored in the player_not_found table with an expiry, so they survive restarts and are shared by all
+ * nodes, and held in memory for per-request checks. The memory filter is loaded from the table at startup;
+ * a bounded filter may evict entries, which only costs an extra request for them.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotFoundCache {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO player_not_found (steam_id, not_found_at, expires_at) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE not_found_at = VALUES(not_found_at), expires_at = VALUES(expires_at)";
+    private static final String SELECT_UNEXPIRED_SQL =
+            "SELECT steam_id, expires_at FROM player_not_found WHERE expires_at > ?";
+    private static final String SELECT_UNEXPIRED_IN_SQL =
+            "SELECT steam_id, expires_at FROM player_not_found WHERE steam_id IN (:steamIds) AND expires_at > :now";
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM player_not_found WHERE expires_at <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${leetify.not-found.ttl-days:14}")
+    private long ttlDays;
+
+    @Value("${leetify.not-found.max-size:1000000}")
+    private long maxSize;
+
+    // Steam ID -> expiry in epoch milliseconds
+    private Cache<String, Long> notFoundIds;
+    private Counter callsSaved;
+
+    @PostConstruct
+    public void initCache() {
+        notFoundIds = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.creating((String steamId, Long expiresAt) ->
+                        Duration.ofMillis(Math.max(0, expiresAt - System.currentTimeMillis()))))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, notFoundIds, "leetify.not-found");
+        callsSaved = Counter.builder("leetify.not-found.calls-saved")
+                .description("Leetify profile requests skipped because the Steam ID is known to have no profile")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the unexpired misses recorded by this and other nodes into memory.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            jdbcTemplate.query(SELECT_UNEXPIRED_SQL,
+                    rs -> {
+                        notFoundIds.put(rs.getString(1), rs.getTimestamp(2).getTime());
+                    },
+                    Timestamp.valueOf(LocalDateTime.now()));
+            log.info("Loaded {} Steam IDs known to have no Leetify profile", notFoundIds.estimatedSize());
+        } catch (Exception e) {
+            // The cache only saves requests, so start empty rather than fail
+            log.warn("Failed to load not-found Steam IDs - {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Checks the in-memory filter for a single Steam ID. Counts a saved request on a hit, since the caller skips it.
+     *
+     * @param steamId The Steam64 ID about to be requested
+     * @return true if Leetify recently reported the ID as not found
+     */
+    public boolean isNotFound(String steamId) {
+        if (notFoundIds.getIfPresent(steamId) == null) {
+            return false;
+        }
+        callsSaved.increment();
+        return true;
+    }
+
+    /**
+     * Finds which of a batch of Steam IDs are known misses, checking the memory filter first and the table for the rest,
+     * so misses recorded by other nodes are found too. Counts a saved request for each one found.
+     *
+     * @param steamIds The Steam64 IDs about to be requested
+     * @return the subset of the IDs that recently had no profile
+     */
+    public Set<String> findNotFound(Collection<String> steamIds) {
+        Set<String> notFound = new HashSet<>();
+        List<String> unknown = new ArrayList<>();
+        for (String steamId : steamIds) {
+            if (notFoundIds.getIfPresent(steamId) != null) {
+                notFound.add(steamId);
+            } else {
+                unknown.add(steamId);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            try {
+                namedParameterJdbcTemplate.query(SELECT_UNEXPIRED_IN_SQL,
+                        Map.of("steamIds", unknown, "now", Timestamp.valueOf(LocalDateTime.now())),
+                        rs -> {
+                            notFound.add(rs.getString(1));
+                            notFoundIds.put(rs.getString(1), rs.getTimestamp(2).getTime());
+                        });
+            } catch (Exception e) {
+                log.warn("Failed to check not-found Steam IDs in the database - {}", e.getMessage());
+            }
+        }
+        callsSaved.increment(notFound.size());
+        return notFound;
+    }
+
+    /**
+     * Records a Steam ID Leetify reported as not found.
+     *
+     * @param steamId The Steam64 ID
+     */
+    public void record(String steamId) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusDays(ttlDays);
+        notFoundIds.put(steamId, Timestamp.valueOf(expiresAt).getTime());
+        try {
+            jdbcTemplate.update(UPSERT_SQL, steamId, Timestamp.valueOf(now), Timestamp.valueOf(expiresAt));
+        } catch (Exception e) {
+            log.warn("Failed to store not-found Steam ID: {} - {}", steamId, e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes expired misses so the table only holds live entries.
+     */
+    @Scheduled(fixedDelayString = "${leetify.not-found.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        try {
+            int purged = jdbcTemplate.update(DELETE_EXPIRED_SQL, Timestamp.valueOf(LocalDateTime.now()));
+            if (purged > 0) {
+                log.info("Purged {} expired not-found Steam IDs", purged);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge expired not-found Steam IDs - {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,574 @@
+package com.joey.cheaterbuster.service.player;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joey.cheaterbuster.dto.leetify.player.PlayerDataDTO;
+import com.joey.cheaterbuster.dto.leetify.player.TeammateDTO;
+import com.joey.cheaterbuster.entity.PlayerData;
+import com.joey.cheaterbuster.mapper.PlayerDataMapper;
+import com.joey.cheaterbuster.service.pipeline.PipelineStage;
+import com.joey.cheaterbuster.service.spool.ProfileSpool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Map and persist stages of the profile pipeline. Fetch workers hand fetched profiles to {@link #submit(PlayerDataDTO)};
+ * the map stage converts them to entities and the persist stage writes them as one JDBC batch of
+ * {@code INSERT ... ON DUPLICATE KEY UPDATE} upserts, instead of a SELECT plus INSERT/UPDATE per row through
+ * {@code repository.save}. Both stages have bounded queues, so a slow database pushes back on the fetch workers.
+ * Profiles are visible through {@link #getPending(String)} until they are written.
+ * <p>
+ * Every profile is appended to the {@link ProfileSpool} before it enters the pipeline and acknowledged once stored.
+ * Batches that fail, and profiles left in the spool by an earlier run, are replayed by a drainer thread once the
+ * database accepts writes again, so a profile that cost rate-limit budget is never lost. A replayed batch that fails is
+ * retried one profile at a time; a profile that keeps failing while the database is up is moved to the spool's
+ * dead-letter file after {@code spool.max-replay-attempts} tries instead of holding back the spool checkpoint.
+ * <p>
+ * Each profile carries a hash of its content. A re-fetched profile whose hash matches the stored row only has its
+ * {@code checked_at} touched, so refreshing unchanged profiles doesn't rewrite their rows and teammates.
+ * Written profiles are stamped with the row's {@code updated_at}, which therefore only moves when the content changes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PlayerDataWriter {
+
+    private static final List<String> COLUMNS = List.of(
+            "steam_id", "name", "win_rate", "total_matches", "rank_premier", "rank_faceit_elo",
+            "rating_aim", "rating_positioning", "rating_utility", "rating_clutch", "rating_opening",
+            "rating_ct_leetify", "rating_t_leetify",
+            "accuracy_head", "accuracy_enemy_spotted", "reaction_time_ms", "spray_accuracy", "preaim",
+            "counter_strafing_good_shots_ratio",
+            "ct_opening_duel_success_percentage", "t_opening_duel_success_percentage",
+            "ct_opening_aggression_success_rate", "t_opening_aggression_success_rate",
+            "flashbang_thrown", "flashbang_hit_foe_per_flashbang", "flashbang_hit_friend_per_flashbang",
+            "flashbang_hit_foe_avg_duration", "flashbang_leading_to_kill",
+            "he_foes_damage_avg", "he_friends_damage_avg", "utility_on_death_avg",
+            "trade_kills_success_percentage", "traded_deaths_success_percentage", "trade_kill_opportunities_per_round",
+            "has_ban", "content_hash", "checked_at", "created_at", "updated_at");
+
+    // created_at keeps its original value when the row already exists
+    private static final String UPSERT_SQL = "INSERT INTO player_data (" + String.join(", ", COLUMNS) + ") VALUES ("
+            + COLUMNS.stream().map(column -> "?").collect(Collectors.joining(", ")) + ") ON DUPLICATE KEY UPDATE "
+            + COLUMNS.stream()
+                    .filter(column -> !column.equals("steam_id") && !column.equals("created_at"))
+                    .map(column -> column + " = VALUES(" + column + ")")
+                    .collect(Collectors.joining(", "));
+    // Archive replay keeps the row's checked_at, and only moves updated_at when the content hash changes. MySQL applies
+    // the assignments left to right, so updated_at is compared before content_hash is overwritten.
+    private static final String REPLAY_UPSERT_SQL = "INSERT INTO player_data (" + String.join(", ", COLUMNS) + ") VALUES ("
+            + COLUMNS.stream().map(column -> "?").collect(Collectors.joining(", ")) + ") ON DUPLICATE KEY UPDATE "
+            + "updated_at = CASE WHEN content_hash = VALUES(content_hash) THEN updated_at ELSE VALUES(updated_at) END, "
+            + COLUMNS.stream()
+                    .filter(column -> !List.of("steam_id", "created_at", "checked_at", "updated_at").contains(column))
+                    .map(column -> column + " = VALUES(" + column + ")")
+                    .collect(Collectors.joining(", "));
+    private static final String SELECT_CHECKED_AT_SQL =
+            "SELECT steam_id, checked_at FROM player_data WHERE steam_id IN (:steamIds)";
+    private static final String SELECT_HASHES_SQL =
+            "SELECT steam_id, content_hash, updated_at FROM player_data WHERE steam_id IN (:steamIds)";
+    private static final String MARK_CHECKED_SQL =
+            "UPDATE player_data SET checked_at = :checkedAt WHERE steam_id IN (:steamIds)";
+    // Position of profiles written straight from the response archive, which are never in the spool
+    private static final long UNSPOOLED = -1;
+    private static final String PING_SQL = "SELECT 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final PlayerDataMapper playerDataMapper;
+    private final PlayerTeammateStore playerTeammateStore;
+    private final KnownPlayerIndex knownPlayerIndex;
+    private final MeterRegistry meterRegistry;
+    private final ProfileSpool profileSpool;
+    private final ObjectMapper objectMapper;
+    private final PlayerProfileCache playerProfileCache;
+
+    @Value("${pipeline.map.concurrency:2}")
+    private int mapConcurrency;
+
+    @Value("${pipeline.map.queue-capacity:1000}")
+    private int mapQueueCapacity;
+
+    @Value("${pipeline.persist.concurrency:1}")
+    private int persistConcurrency;
+
+    @Value("${pipeline.persist.queue-capacity:5000}")
+    private int persistQueueCapacity;
+
+    @Value("${pipeline.persist.batch-size:100}")
+    private int persistBatchSize;
+
+    @Value("${pipeline.persist.flush-interval-ms:500}")
+    private long persistFlushIntervalMs;
+
+    @Value("${spool.replay-interval-ms:5000}")
+    private long replayIntervalMs;
+
+    @Value("${spool.max-replay-attempts:5}")
+    private int maxReplayAttempts;
+
+    // Profiles submitted but not yet written, across both stages
+    private final Map<String, PlayerDataDTO> inFlight = new ConcurrentHashMap<>();
+    // Spool positions of profiles whose write failed, waiting to be replayed
+    private final Queue<Long> replayQueue = new ConcurrentLinkedQueue<>();
+    // Failed single-profile replays per spool position, counted only while the database was reachable
+    private final Map<Long, Integer> replayAttempts = new ConcurrentHashMap<>();
+    private PipelineStage<SpooledProfile> mapStage;
+    private PipelineStage<MappedProfile> persistStage;
+    private Thread drainerThread;
+    private volatile boolean stopped = false;
+    private Counter writeFailures;
+    private Counter replayedProfiles;
+    private Counter unchangedProfiles;
+    private Counter deadLetteredProfiles;
+
+    /**
+     * A profile with its position in the spool, on its way to the map stage.
+     */
+    private record SpooledProfile(PlayerDataDTO dto, long position, long contentHash) {
+    }
+
+    /**
+     * A profile with its mapped entity, on its way to the persist stage.
+     */
+    private record MappedProfile(PlayerDataDTO dto, PlayerData entity, long position) {
+    }
+
+    /**
+     * A profile read back from the response archive, with the time it was fetched from Leetify.
+     */
+    public record ArchivedProfile(PlayerDataDTO profile, LocalDateTime fetchedAt) {
+    }
+
+    @PostConstruct
+    public void start() {
+        writeFailures = Counter.builder("player.writer.failures")
+                .description("Player profile writes that failed and were left in the spool for replay")
+                .register(meterRegistry);
+        replayedProfiles = Counter.builder("spool.replayed")
+                .description("Spooled player profiles replayed into the database")
+                .register(meterRegistry);
+        unchangedProfiles = Counter.builder("player.writer.unchanged")
+                .description("Re-fetched player profiles whose content hadn't changed, so only checked_at was updated")
+                .register(meterRegistry);
+        deadLetteredProfiles = Counter.builder("spool.dead-lettered")
+                .description("Spooled player profiles that kept failing to store and were moved to the dead-letter file")
+                .register(meterRegistry);
+        replayQueue.addAll(profileSpool.takeRecoveredPositions());
+        persistStage = new PipelineStage<>("persist", persistQueueCapacity, persistConcurrency,
+                persistBatchSize, persistFlushIntervalMs, this::writeBatch, meterRegistry);
+        mapStage = new PipelineStage<>("map", mapQueueCapacity, mapConcurrency, 1, 0, this::mapBatch, meterRegistry);
+        persistStage.start();
+        mapStage.start();
+        drainerThread = Thread.ofVirtual().name("profile-spool-drainer").start(this::runDrainer);
+    }
+
+    /**
+     * Queues a profile to be written. Blocks while the pipeline is full so a stalled database slows the crawl down
+     * instead of growing the queues without bound.
+     *
+     * @param dto The profile fetched from Leetify
+     */
+    public void submit(PlayerDataDTO dto) {
+        if (dto == null || dto.getSteamId() == null) {
+            return;
+        }
+        byte[] content = serialise(dto);
+        long position = profileSpool.append(content);
+        inFlight.put(dto.getSteamId(), dto);
+        SpooledProfile spooled = new SpooledProfile(dto, position, contentHash(content));
+        if (!mapStage.submit(spooled)) {
+            // Shutting down, write it on the caller's thread; it stays in the spool if that fails
+            writeBatch(mapProfiles(List.of(spooled)));
+        }
+    }
+
+    /**
+     * @param steamId The Steam64 ID to look up
+     * @return the profile if it has been submitted but not written yet
+     */
+    public Optional<PlayerDataDTO> getPending(String steamId) {
+        return Optional.ofNullable(inFlight.get(steamId));
+    }
+
+    /**
+     * Writes archived profiles straight to the database, bypassing the spool and the pipeline queues. Used to backfill
+     * from the response archive, where the profiles are already on disk and a failed batch can simply be replayed again.
+     * Rows are rewritten even when their content hash is unchanged, since a backfill exists to fill new columns, but
+     * they keep their {@code checked_at} and only move {@code updated_at} when the hash changes. A profile fetched
+     * before the row was last checked is skipped, since another node may have stored a newer one since.
+     *
+     * @param profiles The archived profiles to write
+     * @param writeLag How long after a response was archived its own write may have set checked_at
+     * @return the number of profiles written
+     * @throws org.springframework.dao.DataAccessException if the batch could not be stored
+     */
+    public int upsert(List<ArchivedProfile> profiles, Duration writeLag) {
+        if (profiles.isEmpty()) {
+            return 0;
+        }
+        Map<String, LocalDateTime> storedCheckedAt = new HashMap<>();
+        namedParameterJdbcTemplate.query(SELECT_CHECKED_AT_SQL,
+                Map.of("steamIds", profiles.stream().map(archived -> archived.profile().getSteamId()).distinct().toList()),
+                rs -> {
+                    Timestamp checkedAt = rs.getTimestamp(2);
+                    if (checkedAt != null) {
+                        storedCheckedAt.put(rs.getString(1), checkedAt.toLocalDateTime());
+                    }
+                });
+
+        List<Timestamp> fetchedAt = new ArrayList<>(profiles.size());
+        List<MappedProfile> mapped = new ArrayList<>(profiles.size());
+        for (ArchivedProfile archived : profiles) {
+            LocalDateTime checkedAt = storedCheckedAt.get(archived.profile().getSteamId());
+            if (checkedAt != null && checkedAt.isAfter(archived.fetchedAt().plus(writeLag))) {
+                continue;
+            }
+            PlayerData entity = playerDataMapper.toEntity(archived.profile());
+            if (entity != null) {
+                entity.setContentHash(contentHash(serialise(archived.profile())));
+                fetchedAt.add(Timestamp.valueOf(archived.fetchedAt()));
+                mapped.add(new MappedProfile(archived.profile(), entity, UNSPOOLED));
+            }
+        }
+        if (mapped.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        List<Integer> rows = IntStream.range(0, mapped.size()).boxed().toList();
+        jdbcTemplate.batchUpdate(REPLAY_UPSERT_SQL, rows, rows.size(),
+                (ps, row) -> bind(ps, mapped.get(row).entity(), fetchedAt.get(row), now));
+        Map<String, List<TeammateDTO>> teammates = new HashMap<>();
+        mapped.forEach(profile -> teammates.put(profile.dto().getSteamId(), profile.dto().getRecentTeammates()));
+        playerTeammateStore.saveTeammates(teammates);
+        mapped.forEach(profile -> knownPlayerIndex.markKnown(profile.dto().getSteamId()));
+        // These rows were rewritten without going through the fetch path, so cached copies are now stale
+        playerProfileCache.invalidateAll(mapped.stream().map(profile -> profile.dto().getSteamId()).toList());
+        return mapped.size();
+    }
+
+    /**
+     * Drains both stages, writing every queued profile. Anything that can't be written stays in the spool.
+     */
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        drainerThread.interrupt();
+        mapStage.stop(TimeUnit.SECONDS.toMillis(30));
+        persistStage.stop(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    /**
+     * Replays spooled profiles whose write failed, in batches, backing off while the database keeps failing.
+     */
+    private void runDrainer() {
+        while (!stopped) {
+            try {
+                Thread.sleep(replayIntervalMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+            while (!stopped && !replayQueue.isEmpty()) {
+                List<SpooledProfile> batch = new ArrayList<>(persistBatchSize);
+                Long position;
+                while (batch.size() < persistBatchSize && (position = replayQueue.poll()) != null) {
+                    SpooledProfile spooled = readSpooled(position);
+                    if (spooled != null) {
+                        batch.add(spooled);
+                    }
+                }
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                // Make replayed profiles visible to readers until they are stored, unless a newer one is in flight
+                batch.forEach(spooled -> inFlight.putIfAbsent(spooled.dto().getSteamId(), spooled.dto()));
+                List<MappedProfile> mapped = mapProfiles(batch);
+                try {
+                    store(mapped);
+                } catch (Exception e) {
+                    int stored = replayOneByOne(mapped);
+                    replayedProfiles.increment(stored);
+                    log.warn("Spool replay of {} profiles failed, stored {} one by one, retrying the rest in {}ms - {}",
+                            mapped.size(), stored, replayIntervalMs, e.getMessage());
+                    break;
+                }
+                replayedProfiles.increment(mapped.size());
+                log.info("Replayed {} spooled profiles into the database ({} left)", mapped.size(), replayQueue.size());
+            }
+        }
+    }
+
+    /**
+     * Retries a failed replay batch one profile at a time, so a single bad profile can't hold back the rest.
+     * Failures only count against a profile while the database answers queries; once a profile has failed
+     * {@code maxReplayAttempts} times it is moved to the dead-letter file.
+     *
+     * @return the number of profiles stored
+     */
+    private int replayOneByOne(List<MappedProfile> batch) {
+        int stored = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            MappedProfile mapped = batch.get(i);
+            try {
+                store(List.of(mapped));
+                replayAttempts.remove(mapped.position());
+                stored++;
+            } catch (Exception e) {
+                if (!databaseReachable()) {
+                    // The database is down rather than this profile being bad; keep everything left for the next round
+                    replayQueue.addAll(spooledPositions(batch.subList(i, batch.size())));
+                    return stored;
+                }
+                int attempts = replayAttempts.merge(mapped.position(), 1, Integer::sum);
+                if (attempts < maxReplayAttempts) {
+                    replayQueue.add(mapped.position());
+                    continue;
+                }
+                replayAttempts.remove(mapped.position());
+                profileSpool.deadLetter(mapped.position());
+                inFlight.remove(mapped.dto().getSteamId(), mapped.dto());
+                deadLetteredProfiles.increment();
+                log.error("Moved spooled profile for Steam ID {} to the dead-letter file after {} failed writes - {}",
+                        mapped.dto().getSteamId(), attempts, e.getMessage());
+            }
+        }
+        return stored;
+    }
+
+    private boolean databaseReachable() {
+        try {
+            jdbcTemplate.queryForObject(PING_SQL, Integer.class);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private SpooledProfile readSpooled(long position) {
+        try {
+            byte[] content = profileSpool.read(position);
+            return new SpooledProfile(objectMapper.readValue(content, PlayerDataDTO.class), position, contentHash(content));
+        } catch (Exception e) {
+            // An unreadable record can never be replayed, so don't keep it in the spool forever
+            log.error("Dropping unreadable spooled profile at position {} - {}", position, e.getMessage());
+            profileSpool.acknowledge(List.of(position));
+            return null;
+        }
+    }
+
+    private void mapBatch(List<SpooledProfile> batch) {
+        for (MappedProfile mapped : mapProfiles(batch)) {
+            if (!persistStage.submit(mapped)) {
+                writeBatch(List.of(mapped));
+            }
+        }
+    }
+
+    private List<MappedProfile> mapProfiles(List<SpooledProfile> batch) {
+        List<MappedProfile> mapped = new ArrayList<>(batch.size());
+        for (SpooledProfile spooled : batch) {
+            PlayerData entity = playerDataMapper.toEntity(spooled.dto());
+            if (entity != null) {
+                entity.setContentHash(spooled.contentHash());
+                mapped.add(new MappedProfile(spooled.dto(), entity, spooled.position()));
+            } else if (spooled.position() != UNSPOOLED) {
+                profileSpool.acknowledge(List.of(spooled.position()));
+            }
+        }
+        return mapped;
+    }
+
+    /**
+     * Writes a batch and acknowledges it in the spool. A failed batch is left in the spool and queued for replay.
+     *
+     * @return true if the batch was stored
+     */
+    private boolean writeBatch(List<MappedProfile> batch) {
+        try {
+            store(batch);
+            return true;
+        } catch (Exception e) {
+            writeFailures.increment(batch.size());
+            replayQueue.addAll(spooledPositions(batch));
+            log.error("Failed to write batch of {} player profiles, kept in the spool for replay - {}", batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Writes a batch and acknowledges it in the spool.
+     */
+    private void store(List<MappedProfile> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // Truncated to what the column stores, so the stamped profiles compare equal to the rows read back
+        LocalDateTime writtenAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Timestamp now = Timestamp.valueOf(writtenAt);
+        List<MappedProfile> changed = touchUnchanged(batch, now);
+        if (!changed.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, changed, changed.size(), (ps, mapped) -> bind(ps, mapped.entity(), now, now));
+            changed.forEach(mapped -> mapped.dto().setUpdatedAt(writtenAt));
+            Map<String, List<TeammateDTO>> teammates = new HashMap<>();
+            changed.forEach(mapped -> teammates.put(mapped.dto().getSteamId(), mapped.dto().getRecentTeammates()));
+            playerTeammateStore.saveTeammates(teammates);
+        }
+        batch.forEach(mapped -> knownPlayerIndex.markKnown(mapped.dto().getSteamId()));
+        profileSpool.acknowledge(spooledPositions(batch));
+        // Only drop entries that weren't replaced by a newer profile while the batch was in the pipeline
+        batch.forEach(mapped -> inFlight.remove(mapped.dto().getSteamId(), mapped.dto()));
+        log.debug("Upserted {} player profiles ({} unchanged)", changed.size(), batch.size() - changed.size());
+    }
+
+    /**
+     * Updates only checked_at for profiles whose content matches the stored row, and stamps them with the row's
+     * unchanged updated_at.
+     *
+     * @return the profiles that changed, or aren't stored yet, and still need the full upsert
+     */
+    private List<MappedProfile> touchUnchanged(List<MappedProfile> batch, Timestamp now) {
+        Map<String, Long> storedHashes = new HashMap<>();
+        Map<String, LocalDateTime> storedUpdatedAt = new HashMap<>();
+        namedParameterJdbcTemplate.query(SELECT_HASHES_SQL,
+                Map.of("steamIds", batch.stream().map(mapped -> mapped.dto().getSteamId()).distinct().toList()),
+                rs -> {
+                    long hash = rs.getLong(2);
+                    if (!rs.wasNull()) {
+                        storedHashes.put(rs.getString(1), hash);
+                        Timestamp updatedAt = rs.getTimestamp(3);
+                        if (updatedAt != null) {
+                            storedUpdatedAt.put(rs.getString(1), updatedAt.toLocalDateTime());
+                        }
+                    }
+                });
+
+        List<MappedProfile> changed = new ArrayList<>(batch.size());
+        List<String> unchanged = new ArrayList<>();
+        for (MappedProfile mapped : batch) {
+            String steamId = mapped.dto().getSteamId();
+            if (mapped.entity().getContentHash().equals(storedHashes.get(steamId))) {
+                unchanged.add(steamId);
+                mapped.dto().setUpdatedAt(storedUpdatedAt.get(steamId));
+            } else {
+                changed.add(mapped);
+            }
+        }
+        if (!unchanged.isEmpty()) {
+            namedParameterJdbcTemplate.update(MARK_CHECKED_SQL, Map.of("steamIds", unchanged, "checkedAt", now));
+            unchangedProfiles.increment(unchanged.size());
+        }
+        return changed;
+    }
+
+    private byte[] serialise(PlayerDataDTO dto) {
+        try {
+            return objectMapper.writeValueAsBytes(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialise profile for Steam ID: " + dto.getSteamId(), e);
+        }
+    }
+
+    /**
+     * The first 64 bits of the SHA-256 of the serialised profile. Collisions only cost a missed update of one row.
+     */
+    private static long contentHash(byte[] content) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(content)).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static List<Long> spooledPositions(List<MappedProfile> batch) {
+        return batch.stream().map(MappedProfile::position).filter(position -> position != UNSPOOLED).toList();
+    }
+
+    /**
+     * @param checkedAt When the profile was fetched
+     * @param now Stored as created_at and updated_at
+     */
+    private void bind(PreparedStatement ps, PlayerData entity, Timestamp checkedAt, Timestamp now) throws SQLException {
+        int i = 1;
+        ps.setString(i++, entity.getSteamId());
+        ps.setString(i++, entity.getName());
+        setDouble(ps, i++, entity.getWinRate());
+        setInteger(ps, i++, entity.getTotalMatches());
+        setInteger(ps, i++, entity.getRankPremier());
+        setInteger(ps, i++, entity.getRankFaceitElo());
+        setDouble(ps, i++, entity.getRatingAim());
+        setDouble(ps, i++, entity.getRatingPositioning());
+        setDouble(ps, i++, entity.getRatingUtility());
+        setDouble(ps, i++, entity.getRatingClutch());
+        setDouble(ps, i++, entity.getRatingOpening());
+        setDouble(ps, i++, entity.getRatingCtLeetify());
+        setDouble(ps, i++, entity.getRatingTLeetify());
+        setDouble(ps, i++, entity.getAccuracyHead());
+        setDouble(ps, i++, entity.getAccuracyEnemySpotted());
+        setDouble(ps, i++, entity.getReactionTimeMs());
+        setDouble(ps, i++, entity.getSprayAccuracy());
+        setDouble(ps, i++, entity.getPreaim());
+        setDouble(ps, i++, entity.getCounterStrafingGoodShotsRatio());
+        setDouble(ps, i++, entity.getCtOpeningDuelSuccessPercentage());
+        setDouble(ps, i++, entity.getTOpeningDuelSuccessPercentage());
+        setDouble(ps, i++, entity.getCtOpeningAggressionSuccessRate());
+        setDouble(ps, i++, entity.getTOpeningAggressionSuccessRate());
+        setDouble(ps, i++, entity.getFlashbangThrown());
+        setDouble(ps, i++, entity.getFlashbangHitFoePerFlashbang());
+        setDouble(ps, i++, entity.getFlashbangHitFriendPerFlashbang());
+        setDouble(ps, i++, entity.getFlashbangHitFoeAvgDuration());
+        setDouble(ps, i++, entity.getFlashbangLeadingToKill());
+        setDouble(ps, i++, entity.getHeFoesDamageAvg());
+        setDouble(ps, i++, entity.getHeFriendsDamageAvg());
+        setDouble(ps, i++, entity.getUtilityOnDeathAvg());
+        setDouble(ps, i++, entity.getTradeKillsSuccessPercentage());
+        setDouble(ps, i++, entity.getTradedDeathsSuccessPercentage());
+        setDouble(ps, i++, entity.getTradeKillOpportunitiesPerRound());
+        ps.setBoolean(i++, Boolean.TRUE.equals(entity.getHasBan()));
+        ps.setLong(i++, entity.getContentHash());
+        ps.setTimestamp(i++, checkedAt);
+        ps.setTimestamp(i++, now);
+        ps.setTimestamp(i, now);
+    }
+
+    private void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, value);
+        }
+    }
+
+    private void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+}
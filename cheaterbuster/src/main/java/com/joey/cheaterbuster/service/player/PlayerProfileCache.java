@@ -0,0 +1,77 @@
+package com.joey.cheaterbuster.service.player;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.joey.cheaterbuster.dto.leetify.player.PlayerDataDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Bounded in-process cache of mapped player profiles, so popular profiles are served without a database round trip
+ * or a {@code toDTO} mapping. Caffeine's W-TinyLFU eviction keeps frequently requested players over one-off crawl visits.
+ * <p>
+ * Freshly fetched profiles are written through as they are saved; writes that bypass the fetch path invalidate instead.
+ * Other nodes write to the same player_data without touching this cache, so entries also expire a configurable time
+ * after they were cached, which bounds how stale a served profile can be.
+ * Hit, miss and eviction counts are published as the {@code cache.*} metrics with {@code cache=player.profile}.
+ */
+@Component
+@RequiredArgsConstructor
+public class PlayerProfileCache {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${player.cache.max-size:50000}")
+    private long maxSize;
+
+    @Value("${player.cache.expire-after-write-seconds:300}")
+    private long expireAfterWriteSeconds;
+
+    private Cache<String, PlayerDataDTO> profiles;
+
+    @PostConstruct
+    public void initCache() {
+        profiles = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, profiles, "player.profile");
+    }
+
+    /**
+     * @param steamId The Steam64 ID to look up
+     * @return the cached profile, if present
+     */
+    public Optional<PlayerDataDTO> get(String steamId) {
+        return Optional.ofNullable(profiles.getIfPresent(steamId));
+    }
+
+    /**
+     * Caches a profile, replacing any older copy.
+     *
+     * @param profile The profile, as stored or about to be stored
+     */
+    public void put(PlayerDataDTO profile) {
+        if (profile != null && profile.getSteamId() != null) {
+            profiles.put(profile.getSteamId(), profile);
+        }
+    }
+
+    /**
+     * Drops cached copies of profiles that were rewritten outside the fetch path.
+     *
+     * @param steamIds The Steam64 IDs that were rewritten
+     */
+    public void invalidateAll(Collection<String> steamIds) {
+        profiles.invalidateAll(steamIds);
+    }
+}
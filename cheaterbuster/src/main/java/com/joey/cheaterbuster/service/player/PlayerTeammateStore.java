@@ -0,0 +1,76 @@
+package com.joey.cheaterbuster.service.player;
+
+import com.joey.cheaterbuster.dto.leetify.player.TeammateDTO;
+import com.joey.cheaterbuster.repository.PlayerTeammateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Persists the recent-teammate edges of fetched profiles in the player_teammate table.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlayerTeammateStore {
+
+    private static final String INSERT_IGNORE_SQL =
+            "INSERT IGNORE INTO player_teammate (steam_id, teammate_steam_id, created_at) VALUES (?, ?, ?)";
+
+    private final PlayerTeammateRepository playerTeammateRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Records a player's recent teammates, keeping any edges stored from earlier fetches.
+     *
+     * @param steamId The player's Steam64 ID
+     * @param teammates The recent teammates from the player's profile
+     */
+    public void saveTeammates(String steamId, List<TeammateDTO> teammates) {
+        saveTeammates(Map.of(steamId, teammates == null ? List.of() : teammates));
+    }
+
+    /**
+     * Records the recent teammates of several players in one batch.
+     *
+     * @param teammatesBySteamId Recent teammates keyed by the Steam64 ID of the player whose profile listed them
+     */
+    public void saveTeammates(Map<String, List<TeammateDTO>> teammatesBySteamId) {
+        List<String[]> edges = new ArrayList<>();
+        teammatesBySteamId.forEach((steamId, teammates) -> {
+            if (teammates != null) {
+                teammates.stream()
+                        .map(TeammateDTO::getSteamId)
+                        .filter(Objects::nonNull)
+                        .distinct()
+                        .forEach(teammateId -> edges.add(new String[]{steamId, teammateId}));
+            }
+        });
+        if (edges.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_IGNORE_SQL, edges, edges.size(), (ps, edge) -> {
+            ps.setString(1, edge[0]);
+            ps.setString(2, edge[1]);
+            ps.setTimestamp(3, now);
+        });
+        log.debug("Stored {} teammate edges for {} players", edges.size(), teammatesBySteamId.size());
+    }
+
+    /**
+     * @param steamId The player's Steam64 ID
+     * @return the Steam64 IDs of the player's stored recent teammates
+     */
+    public List<String> findTeammateIds(String steamId) {
+        return playerTeammateRepository.findTeammateSteamIds(steamId);
+    }
+}
@@ -0,0 +1,266 @@
+package com.joey.cheaterbuster.service.player;
+
+import com.joey.cheaterbuster.dto.leetify.player.PlayerDataDTO;
+import com.joey.cheaterbuster.dto.model.PredictionResultDTO;
+import com.joey.cheaterbuster.exception.PlayerNotFoundException;
+import com.joey.cheaterbuster.mapper.PlayerDataMapper;
+import com.joey.cheaterbuster.repository.PlayerDataRepository;
+import com.joey.cheaterbuster.service.ModelService;
+import com.joey.cheaterbuster.service.outbound.OutboundRequestScheduler;
+import com.joey.cheaterbuster.service.outbound.RequestPriority;
+import com.joey.cheaterbuster.service.outbound.Upstream;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Re-fetches stored profiles that have gone stale, so stored stats and ban flags follow Leetify over time.
+ * <p>
+ * Each pass reads the profiles checked longest ago and ranks them by how stale they are, how active the player is
+ * and how likely the model thinks they are cheating, then re-fetches the top of the ranking. Refreshes are paced to a
+ * configurable share of the current Leetify rate, and go out at background priority, so the crawl and interactive
+ * requests keep the rest of the budget. Unchanged profiles are detected by the writer's content hash and cost no write.
+ * <p>
+ * A profile is claimed by moving its {@code checked_at} forward before it is fetched, so nodes sharing the database,
+ * and interactive refreshes on this node, never fetch the same profile twice. A fetch that fails gives the claim back
+ * by restoring the previous {@code checked_at}, so the profile stays stale and is picked again.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProfileRefreshService {
+
+    private static final String SELECT_CANDIDATES_SQL =
+            "SELECT steam_id, total_matches, COALESCE(checked_at, updated_at) AS last_checked FROM player_data " +
+            "WHERE checked_at IS NULL OR checked_at < ? ORDER BY checked_at LIMIT ?";
+    private static final String CLAIM_SQL =
+            "UPDATE player_data SET checked_at = ? WHERE steam_id = ? AND (checked_at IS NULL OR checked_at < ?)";
+    private static final String SELECT_CHECKED_AT_SQL = "SELECT checked_at FROM player_data WHERE steam_id = ?";
+    // Only while the claim is still ours; a write that completed meanwhile keeps its checked_at
+    private static final String RELEASE_SQL =
+            "UPDATE player_data SET checked_at = ? WHERE steam_id = ? AND checked_at = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LeetifyPlayerService leetifyPlayerService;
+    private final PlayerDataRepository playerDataRepository;
+    private final PlayerDataMapper playerDataMapper;
+    private final ModelService modelService;
+    private final OutboundRequestScheduler outboundRequestScheduler;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${refresh.stale-after-hours:168}")
+    private long staleAfterHours;
+
+    @Value("${refresh.budget-share:0.25}")
+    private double budgetShare;
+
+    @Value("${refresh.candidate-pool:200}")
+    private int candidatePool;
+
+    @Value("${refresh.risk-weight:2.0}")
+    private double riskWeight;
+
+    // Interactive refreshes running on this node, so repeated reads of one profile start only one
+    private final Set<String> interactiveRefreshes = ConcurrentHashMap.newKeySet();
+    private final Map<String, Counter> outcomeCounters = new ConcurrentHashMap<>();
+
+    /**
+     * A stale profile and its refresh priority.
+     */
+    private record Candidate(String steamId, double score) {
+    }
+
+    @PostConstruct
+    public void initMetrics() {
+        for (String outcome : List.of("refreshed", "not_found", "failed", "not_stale")) {
+            outcomeCounters.put(outcome, Counter.builder("refresh.profiles")
+                    .description("Stale player profiles picked for a refresh, by outcome")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Refreshes the highest ranked stale profiles, pacing the fetches to the configured share of the Leetify rate.
+     *
+     * @param count Number of profiles to refresh
+     * @param shouldStop Checked between fetches so a pass can be stopped
+     * @return the number of profiles re-fetched; failed fetches are neither counted nor paced
+     */
+    public int refreshStalest(int count, BooleanSupplier shouldStop) {
+        List<Candidate> ranked = rankCandidates();
+        if (ranked.isEmpty()) {
+            log.info("No profiles older than {}h to refresh", staleAfterHours);
+            return 0;
+        }
+
+        int refreshed = 0;
+        long nextFetchAt = System.nanoTime();
+        for (Candidate candidate : ranked) {
+            if (refreshed >= count || shouldStop.getAsBoolean()) {
+                break;
+            }
+            if (!pace(nextFetchAt)) {
+                break;
+            }
+            long start = System.nanoTime();
+            if (refresh(candidate.steamId())) {
+                refreshed++;
+                // Re-read each time, so the pace follows the scheduler as it adapts to throttling
+                double ratePerSecond = Math.max(budgetShare * outboundRequestScheduler.getCurrentRate(Upstream.LEETIFY), 1e-3);
+                nextFetchAt = start + (long) (1e9 / ratePerSecond);
+            }
+        }
+        log.info("Refreshed {} of {} stale profile candidates", refreshed, ranked.size());
+        return refreshed;
+    }
+
+    /**
+     * Refreshes a profile in the background if it is stale, for readers that take the stored copy now and
+     * want the next read to be current. Returns immediately.
+     *
+     * @param steamId The Steam64 ID just served
+     */
+    public void refreshIfStale(String steamId) {
+        if (!interactiveRefreshes.add(steamId)) {
+            return;
+        }
+        Thread.ofVirtual().name("profile-refresh-" + steamId).start(() -> {
+            try {
+                RequestPriority.BACKGROUND.runAs(() -> refresh(steamId));
+            } finally {
+                interactiveRefreshes.remove(steamId);
+            }
+        });
+    }
+
+    /**
+     * Reads the profiles checked longest ago and orders them by refresh priority, highest first.
+     * The score multiplies staleness relative to the threshold, log-scaled match count and predicted cheating risk.
+     */
+    private List<Candidate> rankCandidates() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Double> baseScores = new LinkedHashMap<>();
+        jdbcTemplate.query(SELECT_CANDIDATES_SQL,
+                rs -> {
+                    Timestamp lastChecked = rs.getTimestamp("last_checked");
+                    double ageHours = lastChecked == null ? staleAfterHours
+                            : Duration.between(lastChecked.toLocalDateTime(), now).toMinutes() / 60.0;
+                    double staleness = ageHours / Math.max(staleAfterHours, 1);
+                    double activity = 1 + Math.log1p(rs.getInt("total_matches"));
+                    baseScores.put(rs.getString("steam_id"), staleness * activity);
+                },
+                Timestamp.valueOf(now.minusHours(staleAfterHours)), candidatePool);
+
+        Map<String, Double> risks = predictRisks(baseScores.keySet());
+        return baseScores.entrySet().stream()
+                .map(entry -> new Candidate(entry.getKey(),
+                        entry.getValue() * (1 + riskWeight * risks.getOrDefault(entry.getKey(), 0.0))))
+                .sorted(Comparator.comparingDouble(Candidate::score).reversed())
+                .toList();
+    }
+
+    /**
+     * Scores the stored profiles with the model. If the model service is unavailable, ranking falls back
+     * to staleness and activity alone rather than waiting on it for every candidate.
+     *
+     * @return cheating probability by Steam ID, for the profiles that could be scored
+     */
+    private Map<String, Double> predictRisks(Collection<String> steamIds) {
+        Map<String, Double> risks = new HashMap<>();
+        if (riskWeight <= 0 || steamIds.isEmpty()) {
+            return risks;
+        }
+        try {
+            // Predicted together, so the profiles the ML service has to score share its batches
+            List<PlayerDataDTO> profiles = playerDataRepository.findAllById(steamIds).stream()
+                    .map(playerDataMapper::toDTO)
+                    .toList();
+            List<PredictionResultDTO> predictions = modelService.getPredictions(profiles);
+            for (int i = 0; i < profiles.size(); i++) {
+                risks.put(profiles.get(i).getSteamId(), predictions.get(i).getProbability());
+            }
+        } catch (Exception e) {
+            log.warn("Ranking stale profiles without predicted risk - {}", e.getMessage());
+        }
+        return risks;
+    }
+
+    /**
+     * Waits until the paced time of the next fetch.
+     *
+     * @return false if interrupted
+     */
+    private boolean pace(long nextFetchAt) {
+        long waitNanos = nextFetchAt - System.nanoTime();
+        if (waitNanos <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(Duration.ofNanos(waitNanos));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Claims a stale profile and re-fetches it. If the fetch fails, including when Leetify throttles it, the previous
+     * {@code checked_at} is restored.
+     *
+     * @return true if a Leetify fetch of the profile completed
+     */
+    private boolean refresh(String steamId) {
+        // Truncated to what the column stores, so the release below matches the claimed value
+        Timestamp claimedAt = Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        List<Timestamp> previous = jdbcTemplate.queryForList(SELECT_CHECKED_AT_SQL, Timestamp.class, steamId);
+        int claimed = previous.isEmpty() ? 0 : jdbcTemplate.update(CLAIM_SQL, claimedAt, steamId,
+                Timestamp.valueOf(claimedAt.toLocalDateTime().minusHours(staleAfterHours)));
+        if (claimed == 0) {
+            // Fresh already, or being refreshed by another node
+            outcomeCounters.get("not_stale").increment();
+            return false;
+        }
+        try {
+            leetifyPlayerService.refreshPlayerProfile(steamId);
+            outcomeCounters.get("refreshed").increment();
+            return true;
+        } catch (PlayerNotFoundException e) {
+            // The claim leaves it marked as checked, so it isn't retried before the next stale period
+            outcomeCounters.get("not_found").increment();
+            log.info("Stale profile {} is no longer on Leetify", steamId);
+            return true;
+        } catch (Exception e) {
+            outcomeCounters.get("failed").increment();
+            log.warn("Failed to refresh stale profile {}, releasing its claim - {}", steamId, e.getMessage());
+            release(steamId, previous.getFirst(), claimedAt);
+            return false;
+        }
+    }
+
+    /**
+     * Restores the checked_at a profile had before it was claimed.
+     */
+    private void release(String steamId, Timestamp previous, Timestamp claimedAt) {
+        try {
+            jdbcTemplate.update(RELEASE_SQL, previous, steamId, claimedAt);
+        } catch (Exception e) {
+            // It stays claimed until the next stale period, as before a release existed
+            log.warn("Failed to release refresh claim on profile {} - {}", steamId, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.joey.cheaterbuster.service.player;
+
+import com.joey.cheaterbuster.util.Utils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Picks random stored players to seed the crawl, replacing {@code ORDER BY RAND()}, which scans and sorts
+ * the whole table on every call.
+ * <p>
+ * Each stratum keeps a small in-memory reservoir of candidate Steam IDs, so taking a seed is constant time.
+ * Reservoirs are refilled in the background by random key-range probes: a random start key is drawn and the next
+ * rows are read off an index whose leading columns match the stratum, which costs an index seek, not a scan.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SeedSampler {
+
+    private static final int PROBE_ROWS = 25;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${gathering.seed.reservoir-size:500}")
+    private int reservoirSize;
+
+    @Value("${gathering.seed.rank-band-min:15000}")
+    private int rankBandMin;
+
+    @Value("${gathering.seed.rank-band-max:20000}")
+    private int rankBandMax;
+
+    @Value("${gathering.seed.stale-after-days:30}")
+    private int staleAfterDays;
+
+    private final Map<Stratum, Reservoir> reservoirs = new EnumMap<>(Stratum.class);
+
+    /**
+     * Groups of stored players a seed can be drawn from.
+     */
+    public enum Stratum {
+        /** Any stored player */
+        ANY,
+        /** Players with a ban on record */
+        BANNED,
+        /** Players whose Premier rank is within the configured band */
+        RANK_BAND,
+        /** Players whose profile hasn't been checked for the configured number of days, never checked ones first */
+        STALE
+    }
+
+    /**
+     * Candidate seeds for one stratum. Guarded by its own lock so strata refill independently.
+     */
+    private static class Reservoir {
+        private final List<String> steamIds = new ArrayList<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final AtomicBoolean refilling = new AtomicBoolean(false);
+    }
+
+    @PostConstruct
+    public void initReservoirs() {
+        for (Stratum stratum : Stratum.values()) {
+            Reservoir reservoir = new Reservoir();
+            reservoirs.put(stratum, reservoir);
+            Gauge.builder("gathering.seed.reservoir", reservoir, r -> r.steamIds.size())
+                    .description("Candidate crawl seeds held in memory")
+                    .tag("stratum", stratum.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Takes a random seed from a stratum. A taken seed is removed, so seeds don't repeat until the reservoir is refilled.
+     *
+     * @param stratum The group of players to draw from
+     * @return a stored player's Steam64 ID, or empty if no stored player is in the stratum
+     */
+    public Optional<String> sample(Stratum stratum) {
+        Reservoir reservoir = reservoirs.get(stratum);
+        if (isEmpty(reservoir)) {
+            // Only on first use or once a stratum runs dry; normally the background refill keeps ahead
+            refill(stratum, reservoir);
+        }
+
+        String seed;
+        int remaining;
+        reservoir.lock.lock();
+        try {
+            if (reservoir.steamIds.isEmpty()) {
+                return Optional.empty();
+            }
+            // Swap-remove a random element
+            int last = reservoir.steamIds.size() - 1;
+            int index = ThreadLocalRandom.current().nextInt(last + 1);
+            seed = reservoir.steamIds.get(index);
+            reservoir.steamIds.set(index, reservoir.steamIds.get(last));
+            reservoir.steamIds.remove(last);
+            remaining = last;
+        } finally {
+            reservoir.lock.unlock();
+        }
+
+        if (remaining < reservoirSize / 2 && reservoir.refilling.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("seed-refill-" + stratum.name().toLowerCase()).start(() -> {
+                try {
+                    refill(stratum, reservoir);
+                } finally {
+                    reservoir.refilling.set(false);
+                }
+            });
+        }
+        return Optional.of(seed);
+    }
+
+    private boolean isEmpty(Reservoir reservoir) {
+        reservoir.lock.lock();
+        try {
+            return reservoir.steamIds.isEmpty();
+        } finally {
+            reservoir.lock.unlock();
+        }
+    }
+
+    /**
+     * Tops the reservoir up to its target size with a series of random probes.
+     */
+    private void refill(Stratum stratum, Reservoir reservoir) {
+        try {
+            Set<String> candidates = new LinkedHashSet<>();
+            Supplier<List<String>> probe = prober(stratum);
+            // Bounded, and stops once probes find nothing new, so a small stratum doesn't probe forever
+            int maxProbes = Math.max(1, 2 * reservoirSize / PROBE_ROWS);
+            for (int i = 0; i < maxProbes && candidates.size() < reservoirSize; i++) {
+                if (!candidates.addAll(probe.get())) {
+                    break;
+                }
+            }
+
+            reservoir.lock.lock();
+            try {
+                Set<String> merged = new LinkedHashSet<>(reservoir.steamIds);
+                merged.addAll(candidates);
+                reservoir.steamIds.clear();
+                merged.stream().limit(reservoirSize).forEach(reservoir.steamIds::add);
+            } finally {
+                reservoir.lock.unlock();
+            }
+            log.debug("Refilled {} seed reservoir with {} candidates", stratum, candidates.size());
+        } catch (Exception e) {
+            log.warn("Failed to refill {} seed reservoir - {}", stratum, e.getMessage());
+        }
+    }
+
+    /**
+     * Each probe reads a run of players starting at a random point of the stratum's index, wrapping around to the
+     * start of the index if the random point is past the last row.
+     */
+    private Supplier<List<String>> prober(Stratum stratum) {
+        return switch (stratum) {
+            case ANY -> {
+                KeyRange range = keyRange("");
+                yield () -> probeByKey("", range.randomKey());
+            }
+            case BANNED -> {
+                KeyRange range = keyRange(" WHERE has_ban = TRUE");
+                yield () -> probeByKey("has_ban = TRUE AND ", range.randomKey());
+            }
+            case RANK_BAND -> this::probeRankBand;
+            case STALE -> {
+                Timestamp staleBefore = Timestamp.valueOf(LocalDateTime.now().minusDays(staleAfterDays));
+                // The checked_at index holds the primary key after checked_at, so never checked rows are ordered by key
+                KeyRange neverChecked = keyRange(" WHERE checked_at IS NULL");
+                Timestamp oldestChecked = jdbcTemplate.queryForObject(
+                        "SELECT MIN(checked_at) FROM player_data WHERE checked_at < ?", Timestamp.class, staleBefore);
+                yield () -> probeStale(neverChecked, oldestChecked, staleBefore);
+            }
+        };
+    }
+
+    /**
+     * Random run of never checked players, topped up from a random point of the checked but stale ones,
+     * both served by the checked_at index.
+     */
+    private List<String> probeStale(KeyRange neverChecked, Timestamp oldestChecked, Timestamp staleBefore) {
+        List<String> found = new ArrayList<>();
+        if (neverChecked.lo() >= 0) {
+            found.addAll(probeByKey("checked_at IS NULL AND ", neverChecked.randomKey()));
+        }
+        if (found.size() >= PROBE_ROWS || oldestChecked == null) {
+            return found;
+        }
+        Timestamp start = new Timestamp(ThreadLocalRandom.current().nextLong(oldestChecked.getTime(),
+                Math.max(staleBefore.getTime(), oldestChecked.getTime() + 1)));
+        String sql = "SELECT steam_id FROM player_data WHERE checked_at >= ? AND checked_at < ? ORDER BY checked_at LIMIT ?";
+        found.addAll(jdbcTemplate.queryForList(sql, String.class, start, staleBefore, PROBE_ROWS - found.size()));
+        if (found.size() < PROBE_ROWS && start.after(oldestChecked)) {
+            found.addAll(jdbcTemplate.queryForList(sql, String.class, oldestChecked, start, PROBE_ROWS - found.size()));
+        }
+        return found;
+    }
+
+    /**
+     * Random start key within the stratum's key range, served by the primary key or the (has_ban, steam_id) index.
+     */
+    private List<String> probeByKey(String predicate, String startKey) {
+        String sql = "SELECT steam_id FROM player_data WHERE " + predicate + "steam_id >= ? ORDER BY steam_id LIMIT ?";
+        List<String> found = new ArrayList<>(jdbcTemplate.queryForList(sql, String.class, startKey, PROBE_ROWS));
+        if (found.size() < PROBE_ROWS && !startKey.isEmpty()) {
+            found.addAll(jdbcTemplate.queryForList(sql, String.class, "", PROBE_ROWS - found.size()));
+        }
+        return found;
+    }
+
+    /**
+     * Random start rank within the band, served by the rank_premier index.
+     */
+    private List<String> probeRankBand() {
+        int startRank = ThreadLocalRandom.current().nextInt(rankBandMin, rankBandMax + 1);
+        String sql = "SELECT steam_id FROM player_data WHERE rank_premier >= ? AND rank_premier <= ? ORDER BY rank_premier LIMIT ?";
+        List<String> found = new ArrayList<>(jdbcTemplate.queryForList(sql, String.class, startRank, rankBandMax, PROBE_ROWS));
+        if (found.size() < PROBE_ROWS && startRank > rankBandMin) {
+            found.addAll(jdbcTemplate.queryForList(sql, String.class, rankBandMin, startRank - 1, PROBE_ROWS - found.size()));
+        }
+        return found;
+    }
+
+    /**
+     * Reads the smallest and largest Steam IDs in a stratum. Both ends come straight from the index.
+     */
+    private KeyRange keyRange(String where) {
+        Map<String, Object> range = jdbcTemplate.queryForMap(
+                "SELECT MIN(steam_id) AS lo, MAX(steam_id) AS hi FROM player_data" + where);
+        long lo = range.get("lo") == null ? -1 : Utils.parseSteamId(range.get("lo").toString());
+        long hi = range.get("hi") == null ? -1 : Utils.parseSteamId(range.get("hi").toString());
+        return new KeyRange(lo, hi);
+    }
+
+    /**
+     * The numeric range of a stratum's Steam IDs.
+     */
+    private record KeyRange(long lo, long hi) {
+
+        /**
+         * Draws a key uniformly from the range. Steam64 IDs all have 17 digits, so numeric and string order agree.
+         *
+         * @return the start key, or an empty string to start from the first row
+         */
+        String randomKey() {
+            if (lo < 0 || hi < lo || String.valueOf(lo).length() != String.valueOf(hi).length()) {
+                return "";
+            }
+            return String.valueOf(ThreadLocalRandom.current().nextLong(lo, hi + 1));
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.joey.cheaterbuster.service.player;
+
+import com.joey.cheaterbuster.config.LeetifyConfig;
+import com.joey.cheaterbuster.dto.VaclistProfileDTO;
+import com.joey.cheaterbuster.exception.VaclistApiException;
+import com.joey.cheaterbuster.service.cluster.WorkLeaseService;
+import com.joey.cheaterbuster.service.outbound.OutboundRequestScheduler;
+import com.joey.cheaterbuster.service.outbound.RequestPriority;
+import com.joey.cheaterbuster.service.outbound.Upstream;
+import com.joey.cheaterbuster.util.Utils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pipeline stage that leases and fetches the next VacList pages into a bounded buffer while the profiles of the
+ * current page are still being fetched, so banned-player gathering never waits on a VacList round trip.
+ * <p>
+ * Pages come from the database-backed page cursor shared by all nodes, so a restart resumes where it stopped.
+ * New bans push the listing forward while we walk it, which would make the next page repeat the tail of the
+ * previous one; each fetched page is checked against the last Steam ID the previous page listed and the
+ * repeated entries are dropped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VaclistPagePrefetcher {
+
+    private static final int BANNED_PLAYER_GET_COUNT = 100;
+    private static final String GET_BANNED_PATH = "https://vaclist.net/api/banned";
+
+    @Qualifier("vaclistRestTemplate")
+    private final RestTemplate vaclistRestTemplate;
+    private final LeetifyConfig config;
+    private final OutboundRequestScheduler outboundRequestScheduler;
+    private final WorkLeaseService workLeaseService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${gathering.vaclist.prefetch-pages:2}")
+    private int prefetchPages;
+
+    @Value("${gathering.vaclist.prefetch-timeout-ms:120000}")
+    private long prefetchTimeoutMs;
+
+    @Value("${gathering.error-retry-delay:1000}")
+    private long errorRetryDelay;
+
+    private final Deque<PrefetchedPage> buffer = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private Thread prefetchThread;
+    private boolean running = false;
+    private RuntimeException lastFailure;
+    private Counter driftCounter;
+
+    /**
+     * A leased VacList page with the Steam IDs it listed, in listing order.
+     *
+     * @param page The page number
+     * @param steamIds The Steam64 IDs on the page, without entries repeated from the previous page
+     * @param driftedEntries How many entries were dropped because the listing had shifted
+     */
+    public record PrefetchedPage(int page, List<String> steamIds, int driftedEntries) {
+    }
+
+    @PostConstruct
+    public void initMetrics() {
+        Gauge.builder("vaclist.prefetch.buffered", this, VaclistPagePrefetcher::bufferedPages)
+                .description("VacList pages fetched ahead and waiting to be processed")
+                .register(meterRegistry);
+        driftCounter = Counter.builder("vaclist.page.drift")
+                .description("VacList entries repeated from the previous page because the listing shifted")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes the next prefetched page, starting the prefetcher if it isn't running.
+     * The caller owns the page's lease and must complete or release it.
+     *
+     * @return the next page
+     * @throws VaclistApiException if no page could be fetched within the prefetch timeout
+     */
+    public PrefetchedPage take() {
+        lock.lock();
+        try {
+            startIfStopped();
+            long waitNanos = TimeUnit.MILLISECONDS.toNanos(prefetchTimeoutMs);
+            while (buffer.isEmpty()) {
+                if (lastFailure != null) {
+                    RuntimeException failure = lastFailure;
+                    lastFailure = null;
+                    throw failure;
+                }
+                if (waitNanos <= 0) {
+                    throw new VaclistApiException("Timed out waiting for the next VacList page", null);
+                }
+                waitNanos = changed.awaitNanos(waitNanos);
+            }
+            PrefetchedPage page = buffer.poll();
+            changed.signalAll();
+            return page;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VaclistApiException("Interrupted while waiting for the next VacList page", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops prefetching and hands the leases of pages fetched ahead back, so any node can process them.
+     */
+    @PreDestroy
+    public void stop() {
+        List<PrefetchedPage> unprocessed;
+        lock.lock();
+        try {
+            // The prefetch thread sees this once its current fetch finishes and gives that page back itself
+            running = false;
+            prefetchThread = null;
+            unprocessed = new ArrayList<>(buffer);
+            buffer.clear();
+            lastFailure = null;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (PrefetchedPage page : unprocessed) {
+            try {
+                workLeaseService.releaseVaclistPage(page.page());
+            } catch (Exception e) {
+                log.warn("Failed to release prefetched VacList page {} - its lease will expire instead: {}", page.page(), e.getMessage());
+            }
+        }
+        if (!unprocessed.isEmpty()) {
+            log.info("Released {} prefetched VacList pages", unprocessed.size());
+        }
+    }
+
+    private void startIfStopped() {
+        if (!running) {
+            running = true;
+            // Prefetching is gathering traffic, so it queues behind interactive requests
+            prefetchThread = Thread.ofVirtual().name("vaclist-prefetch")
+                    .start(() -> RequestPriority.BACKGROUND.runAs(this::runPrefetcher));
+            log.info("Started VacList page prefetcher (buffer: {} pages)", prefetchPages);
+        }
+    }
+
+    private void runPrefetcher() {
+        try {
+            while (awaitRoom()) {
+                if (!prefetchNextPage()) {
+                    return;
+                }
+            }
+        } finally {
+            lock.lock();
+            try {
+                // Let the next take() start a fresh prefetcher if this one died
+                if (prefetchThread == Thread.currentThread()) {
+                    running = false;
+                    prefetchThread = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Leases and fetches one page into the buffer, backing off after a failure.
+     *
+     * @return false once the prefetcher has been stopped
+     */
+    private boolean prefetchNextPage() {
+        Integer page = null;
+        try {
+            page = workLeaseService.claimVaclistPage();
+            List<String> steamIds = getBannedSteamIds(page);
+            PrefetchedPage prefetched = dropDriftedEntries(page, steamIds);
+            if (!steamIds.isEmpty()) {
+                workLeaseService.recordVaclistPageAnchors(page, steamIds.getFirst(), steamIds.getLast());
+            }
+            if (offer(prefetched)) {
+                return true;
+            }
+            workLeaseService.releaseVaclistPage(page);
+            return false;
+        } catch (RuntimeException e) {
+            if (page != null) {
+                workLeaseService.releaseVaclistPage(page);
+            }
+            if (!recordFailure(e)) {
+                return false;
+            }
+            try {
+                Thread.sleep(errorRetryDelay);
+                return true;
+            } catch (InterruptedException ie) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Waits until the buffer has room for another page.
+     *
+     * @return false once the prefetcher has been stopped
+     */
+    private boolean awaitRoom() {
+        lock.lock();
+        try {
+            while (isCurrentPrefetcher() && buffer.size() >= prefetchPages) {
+                changed.await();
+            }
+            return isCurrentPrefetcher();
+        } catch (InterruptedException e) {
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean offer(PrefetchedPage page) {
+        lock.lock();
+        try {
+            if (!isCurrentPrefetcher()) {
+                return false;
+            }
+            buffer.add(page);
+            changed.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean recordFailure(RuntimeException e) {
+        lock.lock();
+        try {
+            if (!isCurrentPrefetcher()) {
+                return false;
+            }
+            lastFailure = e;
+            changed.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A prefetcher replaced by stop() and a later take() can still be mid-fetch; it must not add pages or failures
+     * next to the new one, and must exit instead of looping alongside it. Callers hold the lock.
+     *
+     * @return true if the calling thread is the running prefetcher
+     */
+    private boolean isCurrentPrefetcher() {
+        return running && prefetchThread == Thread.currentThread();
+    }
+
+    /**
+     * New bans shift the listing forward, so the start of this page may repeat the end of the previous page.
+     * If the previous page's last Steam ID appears on this page, everything up to and including it was already listed.
+     */
+    private PrefetchedPage dropDriftedEntries(int page, List<String> steamIds) {
+        Optional<String> previousLast = workLeaseService.findVaclistPageLastSteamId(page - 1);
+        int anchorIndex = previousLast.map(steamIds::indexOf).orElse(-1);
+        if (anchorIndex < 0) {
+            return new PrefetchedPage(page, steamIds, 0);
+        }
+        int drifted = anchorIndex + 1;
+        driftCounter.increment(drifted);
+        log.info("VacList listing drifted by {} entries before page {}, skipping the repeated entries", drifted, page);
+        return new PrefetchedPage(page, steamIds.subList(drifted, steamIds.size()), drifted);
+    }
+
+    /**
+     * Fetches a list of banned steamIds from vaclist
+     *
+     * @param page The VacList page to fetch
+     * @return the Steam IDs on the page, in listing order
+     */
+    private List<String> getBannedSteamIds(int page) {
+        Set<String> steamIds = new LinkedHashSet<>();
+        String url = GET_BANNED_PATH + "?count=" + BANNED_PLAYER_GET_COUNT + "&page=" + page;
+        HttpHeaders headers = Utils.createHeadersWithUserAgent(config.getUserAgent());
+        HttpEntity<String> entity = new HttpEntity<>(headers);
+
+        try {
+            ResponseEntity<VaclistProfileDTO[]> response = outboundRequestScheduler.execute(Upstream.VACLIST,
+                    () -> vaclistRestTemplate.exchange(
+                            url,
+                            HttpMethod.GET,
+                            entity,
+                            VaclistProfileDTO[].class
+                    ));
+
+            VaclistProfileDTO[] profiles = response.getBody();
+            if (profiles != null) {
+                for (VaclistProfileDTO profile : profiles) {
+                    if (profile.getSteamId() != null) {
+                        steamIds.add(profile.getSteamId());
+                    }
+                }
+                log.debug("Fetched {} Steam IDs from VacList page {}", steamIds.size(), page);
+            }
+
+            return new ArrayList<>(steamIds);
+        } catch (HttpClientErrorException e) {
+            log.error("VacList API error on page {}: {} - {}", page, e.getStatusCode(), e.getMessage());
+            throw new VaclistApiException("Failed to fetch banned Steam IDs from VacList (page " + page + ")", e);
+        } catch (Exception e) {
+            log.error("Unexpected error fetching banned Steam IDs from page {}: {}", page, e.getMessage(), e);
+            throw new VaclistApiException("Unexpected error fetching banned Steam IDs from VacList (page " + page + ")", e);
+        }
+    }
+
+    private int bufferedPages() {
+        lock.lock();
+        try {
+            return buffer.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
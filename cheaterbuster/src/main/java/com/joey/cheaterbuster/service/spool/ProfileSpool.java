@@ -0,0 +1,414 @@
+package com.joey.cheaterbuster.service.spool;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only on-disk spool that fetched profiles are written to before they reach the database.
+ * Records are appended to memory-mapped segment files as {@code [length][crc32][payload]} and addressed by a
+ * position ({@code segmentId << 32 | offset}). A record stays in the spool until it is acknowledged as stored;
+ * the checkpoint file holds the oldest unacknowledged position, and segments entirely before it are deleted.
+ * <p>
+ * Records that were never acknowledged, because the database was down or the process died, are found again on
+ * startup through {@link #takeRecoveredPositions()} so they can be replayed. Records that can never be stored are
+ * moved to a dead-letter file by {@link #deadLetter(long)}, so they don't pin the checkpoint.
+ * The spool's size is bounded: appends block while it is full, which stops the crawl from spending more
+ * rate-limit budget on profiles that can't be stored.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProfileSpool {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String DEAD_LETTER_FILE = "dead-letter.jsonl";
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spool.directory:./data/spool}")
+    private String directory;
+
+    @Value("${spool.segment-size-bytes:16777216}")
+    private int segmentSize;
+
+    @Value("${spool.max-bytes:1073741824}")
+    private long maxBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition spaceFreed = lock.newCondition();
+    private final NavigableSet<Long> segmentIds = new TreeSet<>();
+    // Bytes written to each sealed segment; the active segment's length is activeOffset
+    private final Map<Long, Integer> sealedLengths = new HashMap<>();
+    private final NavigableSet<Long> unacknowledged = new TreeSet<>();
+    private List<Long> recoveredPositions = new ArrayList<>();
+    private Path spoolDirectory;
+    private long activeSegmentId;
+    private FileChannel activeChannel;
+    private MappedByteBuffer activeSegment;
+    private int activeOffset;
+    private long checkpoint;
+    private Timer appendStallTimer;
+
+    @PostConstruct
+    public void open() throws IOException {
+        spoolDirectory = Path.of(directory);
+        Files.createDirectories(spoolDirectory);
+        try (Stream<Path> files = Files.list(spoolDirectory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .forEach(segmentIds::add);
+        }
+        checkpoint = readCheckpoint();
+        for (long segmentId : segmentIds) {
+            recoverSegment(segmentId);
+        }
+        unacknowledged.addAll(recoveredPositions);
+        // Never append to a segment from an earlier run; its tail may hold a torn write
+        activeSegmentId = segmentIds.isEmpty() ? 0 : segmentIds.last() + 1;
+        openActiveSegment();
+
+        Gauge.builder("spool.bytes", this, ProfileSpool::bytesInUse)
+                .description("Bytes of spooled records from the checkpoint to the end of the spool")
+                .register(meterRegistry);
+        Gauge.builder("spool.segments", this, ProfileSpool::segmentCount)
+                .description("Spool segment files on disk, each spool.segment-size-bytes large")
+                .register(meterRegistry);
+        Gauge.builder("spool.records.pending", this, ProfileSpool::pendingCount)
+                .description("Spooled profiles not yet stored in the database")
+                .register(meterRegistry);
+        appendStallTimer = Timer.builder("spool.append.stall")
+                .description("Time appends waited because the spool was full")
+                .register(meterRegistry);
+
+        if (!recoveredPositions.isEmpty()) {
+            log.warn("Recovered {} spooled profiles that were never stored, they will be replayed", recoveredPositions.size());
+        }
+        log.info("Profile spool opened at {} (segment size: {} bytes, max: {} bytes)", spoolDirectory.toAbsolutePath(), segmentSize, maxBytes);
+    }
+
+    /**
+     * Appends a record, blocking while the spool is full.
+     *
+     * @param payload The record to append
+     * @return the record's position
+     */
+    public long append(byte[] payload) {
+        int recordBytes = HEADER_BYTES + payload.length;
+        if (payload.length == 0 || recordBytes > segmentSize) {
+            throw new IllegalArgumentException("Spool record of " + payload.length + " bytes doesn't fit in a segment");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        lock.lock();
+        try {
+            if (activeOffset + recordBytes > segmentSize) {
+                awaitSpaceForSegment();
+                rollSegment();
+            }
+            activeSegment.putInt(activeOffset + Integer.BYTES, (int) crc.getValue());
+            activeSegment.put(activeOffset + HEADER_BYTES, payload);
+            // Length last, so a torn write reads as the end of the segment
+            activeSegment.putInt(activeOffset, payload.length);
+            long position = position(activeSegmentId, activeOffset);
+            activeOffset += recordBytes;
+            unacknowledged.add(position);
+            return position;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads a record back.
+     *
+     * @param position The record's position
+     * @return the record's payload
+     */
+    public byte[] read(long position) {
+        long segmentId = position >>> 32;
+        int offset = (int) position;
+        lock.lock();
+        try {
+            if (segmentId == activeSegmentId) {
+                ByteBuffer view = activeSegment.duplicate();
+                byte[] payload = new byte[view.getInt(offset)];
+                view.get(offset + HEADER_BYTES, payload);
+                return payload;
+            }
+        } finally {
+            lock.unlock();
+        }
+        try (FileChannel channel = FileChannel.open(segmentPath(segmentId), StandardOpenOption.READ)) {
+            byte[] payload = readRecord(channel, offset);
+            if (payload == null) {
+                throw new IllegalStateException("No valid spool record at segment " + segmentId + " offset " + offset);
+            }
+            return payload;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Marks records as stored, advancing the checkpoint and deleting segments that are fully stored.
+     *
+     * @param positions The positions of the stored records
+     */
+    public void acknowledge(Collection<Long> positions) {
+        lock.lock();
+        try {
+            positions.forEach(unacknowledged::remove);
+            long newCheckpoint = unacknowledged.isEmpty() ? position(activeSegmentId, activeOffset) : unacknowledged.first();
+            if (newCheckpoint == checkpoint) {
+                return;
+            }
+            checkpoint = newCheckpoint;
+            writeCheckpoint();
+            long checkpointSegment = checkpoint >>> 32;
+            Iterator<Long> segments = segmentIds.iterator();
+            while (segments.hasNext()) {
+                long segmentId = segments.next();
+                if (segmentId >= checkpointSegment || segmentId == activeSegmentId) {
+                    break;
+                }
+                Files.deleteIfExists(segmentPath(segmentId));
+                segments.remove();
+                sealedLengths.remove(segmentId);
+            }
+            spaceFreed.signalAll();
+        } catch (IOException e) {
+            // The records are stored either way; a stale checkpoint only means some are replayed again
+            log.warn("Failed to advance spool checkpoint: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves a record that can never be stored to the dead-letter file, one JSON payload per line, and acknowledges it.
+     *
+     * @param position The record's position
+     */
+    public void deadLetter(long position) {
+        byte[] payload = read(position);
+        byte[] line = Arrays.copyOf(payload, payload.length + 1);
+        line[payload.length] = '\n';
+        try {
+            Files.write(spoolDirectory.resolve(DEAD_LETTER_FILE), line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write spool dead-letter record", e);
+        }
+        acknowledge(List.of(position));
+    }
+
+    /**
+     * Hands over the records left unacknowledged by the previous run. Returns them only once.
+     *
+     * @return the positions of the recovered records, oldest first
+     */
+    public List<Long> takeRecoveredPositions() {
+        lock.lock();
+        try {
+            List<Long> recovered = recoveredPositions;
+            recoveredPositions = new ArrayList<>();
+            return recovered;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes appended records from the page cache to disk.
+     */
+    @Scheduled(fixedDelayString = "${spool.force-interval-ms:1000}")
+    public void force() {
+        lock.lock();
+        try {
+            activeSegment.force();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            activeSegment.force();
+            activeChannel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitSpaceForSegment() {
+        if ((segmentIds.size() + 1L) * segmentSize <= maxBytes) {
+            return;
+        }
+        log.warn("Profile spool is full ({} segments), waiting for stored profiles to be acknowledged", segmentIds.size());
+        long start = System.nanoTime();
+        try {
+            while ((segmentIds.size() + 1L) * segmentSize > maxBytes) {
+                spaceFreed.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for spool space", e);
+        } finally {
+            appendStallTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void rollSegment() {
+        try {
+            activeSegment.force();
+            activeChannel.close();
+            sealedLengths.put(activeSegmentId, activeOffset);
+            activeSegmentId++;
+            openActiveSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll spool segment", e);
+        }
+    }
+
+    private void openActiveSegment() throws IOException {
+        activeChannel = FileChannel.open(segmentPath(activeSegmentId),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeSegment = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        activeOffset = 0;
+        segmentIds.add(activeSegmentId);
+    }
+
+    /**
+     * Collects the positions of every intact record at or after the checkpoint.
+     */
+    private void recoverSegment(long segmentId) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segmentId), StandardOpenOption.READ)) {
+            int offset = 0;
+            byte[] payload;
+            while ((payload = readRecord(channel, offset)) != null) {
+                long position = position(segmentId, offset);
+                if (position >= checkpoint) {
+                    recoveredPositions.add(position);
+                }
+                offset += HEADER_BYTES + payload.length;
+            }
+            sealedLengths.put(segmentId, offset);
+        }
+    }
+
+    /**
+     * @return the record at the offset, or null at the end of the written data or at a torn write
+     */
+    private byte[] readRecord(FileChannel channel, int offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (offset + HEADER_BYTES > channel.size() || channel.read(header, offset) < HEADER_BYTES) {
+            return null;
+        }
+        int length = header.getInt(0);
+        int expectedCrc = header.getInt(Integer.BYTES);
+        if (length <= 0 || offset + HEADER_BYTES + (long) length > channel.size()) {
+            return null;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        channel.read(payload, offset + HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+        return (int) crc.getValue() == expectedCrc ? payload.array() : null;
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path path = spoolDirectory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        return bytes.length == Long.BYTES ? ByteBuffer.wrap(bytes).getLong() : 0;
+    }
+
+    private void writeCheckpoint() throws IOException {
+        Path temp = spoolDirectory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, checkpoint));
+            channel.force(false);
+        }
+        Files.move(temp, spoolDirectory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path segmentPath(long segmentId) {
+        return spoolDirectory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, segmentId, SEGMENT_SUFFIX));
+    }
+
+    private static long position(long segmentId, int offset) {
+        return segmentId << 32 | offset;
+    }
+
+    /**
+     * @return the bytes written from the checkpoint to the end of the spool, acknowledged records in between included
+     */
+    private long bytesInUse() {
+        lock.lock();
+        try {
+            long checkpointSegment = checkpoint >>> 32;
+            long bytes = 0;
+            for (long segmentId : segmentIds.tailSet(checkpointSegment, true)) {
+                bytes += segmentId == activeSegmentId ? activeOffset : sealedLengths.getOrDefault(segmentId, 0);
+            }
+            if (segmentIds.contains(checkpointSegment)) {
+                bytes -= (int) checkpoint;
+            }
+            return Math.max(bytes, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int segmentCount() {
+        lock.lock();
+        try {
+            return segmentIds.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int pendingCount() {
+        lock.lock();
+        try {
+            return unacknowledged.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
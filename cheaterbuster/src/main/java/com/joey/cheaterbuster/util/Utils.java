@@ -34,4 +34,27 @@ public class Utils {
         headers.set("User-Agent", userAgent);
         return headers;
     }
+
+    /**
+     * Parses a Steam64 ID into its numeric form for primitive collections.
+     *
+     * @param steamId The Steam64 ID as a string
+     * @return the numeric ID, or -1 if the string is not a valid positive number
+     */
+    public static long parseSteamId(String steamId) {
+        if (steamId == null || steamId.isEmpty() || steamId.length() > 19) {
+            return -1;
+        }
+        for (int i = 0; i < steamId.length(); i++) {
+            char c = steamId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        try {
+            return Long.parseLong(steamId);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 }
@@ -0,0 +1,137 @@
+package com.joey.cheaterbuster.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request latency and CPU cost of the upstream clients against a local stub server returning a gzip JSON profile:
+ * the default {@code new RestTemplate()} the services used before the pooled clients, the pooled Apache HTTP/1.1
+ * client and the JDK client used for HTTP/2 upstreams.
+ * <p>
+ * The stub server only speaks HTTP/1.1, so the JDK client is measured without multiplexing; this compares the
+ * per-request overhead of the client stacks, not the protocols. CPU time is the whole process's, stub server
+ * included, divided by the requests made in each measurement iteration. Run after {@code mvn test-compile}:
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     com.joey.cheaterbuster.config.HttpClientBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class HttpClientBenchmark {
+
+    @Param({"default", "pooled", "jdk"})
+    private String client;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private RestTemplate restTemplate;
+    private String url;
+    private final AtomicLong requests = new AtomicLong();
+    private long cpuAtStart;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] body = HttpClientConfigTests.gzip(profileJson().getBytes(StandardCharsets.UTF_8));
+        byte[] plain = profileJson().getBytes(StandardCharsets.UTF_8);
+        // Without TCP_NODELAY the stub's separate header and body writes stall on delayed ACKs for ~40ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        serverExecutor = Executors.newFixedThreadPool(8);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 128);
+        server.setExecutor(serverExecutor);
+        server.createContext("/v3/profile", exchange -> {
+            boolean gzip = String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding")).contains("gzip");
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if (gzip) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            byte[] response = gzip ? body : plain;
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/v3/profile";
+
+        HttpClientConfig config = new HttpClientConfig();
+        restTemplate = switch (client) {
+            case "default" -> new RestTemplate();
+            case "pooled" -> config.leetifyRestTemplate(3000, 10000, false, 32);
+            case "jdk" -> config.leetifyRestTemplate(3000, 10000, true, 32);
+            default -> throw new IllegalArgumentException("Unknown client: " + client);
+        };
+    }
+
+    /**
+     * A profile response about the size of a real one, with every stat filled in.
+     */
+    private static String profileJson() {
+        StringBuilder json = new StringBuilder("{\"steam64_id\":\"76561198000000001\",\"name\":\"player\",\"stats\":{");
+        for (int i = 0; i < 120; i++) {
+            json.append(i == 0 ? "" : ",").append("\"stat_").append(i).append("\":").append(i * 1.37);
+        }
+        json.append("},\"recent_teammates\":[");
+        for (int i = 0; i < 40; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"steam64_id\":\"7656119800000").append(1000 + i)
+                    .append("\",\"recent_matches_count\":").append(i).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        requests.set(0);
+        cpuAtStart = processCpuNanos();
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        long cpu = processCpuNanos() - cpuAtStart;
+        System.out.printf("%n%s: %.1f µs CPU per request over %d requests%n", client,
+                cpu / 1000.0 / Math.max(1, requests.get()), requests.get());
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public String fetchProfile() {
+        requests.incrementAndGet();
+        return restTemplate.getForObject(url, String.class);
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Accepts the usual JMH command line options, such as -wi 1 -i 3
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(HttpClientBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,88 @@
+package com.joey.cheaterbuster.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fetches gzip responses from a local stub server through both kinds of upstream client.
+ */
+class HttpClientConfigTests {
+
+    private static final String JSON = "{\"steam64_id\":\"76561198000000001\",\"name\":\"player\"}";
+
+    private static HttpServer server;
+    private static String baseUrl;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/profile", exchange -> {
+            boolean gzip = String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding")).contains("gzip");
+            byte[] body = gzip ? gzip(JSON.getBytes(StandardCharsets.UTF_8)) : JSON.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if (gzip) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/empty", exchange -> {
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void http2ClientInflatesGzipResponses() {
+        RestTemplate restTemplate = new HttpClientConfig().leetifyRestTemplate(1000, 1000, true, 4);
+
+        assertEquals(JSON, restTemplate.getForObject(baseUrl + "/profile", String.class));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> profile = restTemplate.getForObject(baseUrl + "/profile", Map.class);
+        assertEquals("player", profile.get("name"));
+
+        ResponseEntity<String> empty = restTemplate.getForEntity(baseUrl + "/empty", String.class);
+        assertEquals(HttpStatus.NO_CONTENT, empty.getStatusCode());
+        assertNull(empty.getBody());
+    }
+
+    @Test
+    void pooledClientInflatesGzipResponses() {
+        RestTemplate restTemplate = new HttpClientConfig().mlRestTemplate(1000, 1000, false, 4);
+
+        assertEquals(JSON, restTemplate.getForObject(baseUrl + "/profile", String.class));
+    }
+}
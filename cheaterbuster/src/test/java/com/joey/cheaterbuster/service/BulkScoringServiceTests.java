@@ -0,0 +1,156 @@
+package com.joey.cheaterbuster.service;
+
+import com.joey.cheaterbuster.CheaterBusterApplication;
+import com.joey.cheaterbuster.dto.leetify.player.PlayerDataDTO;
+import com.joey.cheaterbuster.dto.leetify.player.RanksDTO;
+import com.joey.cheaterbuster.entity.CrawlCursor;
+import com.joey.cheaterbuster.mapper.PlayerDataMapper;
+import com.joey.cheaterbuster.repository.PlayerDataRepository;
+import com.joey.cheaterbuster.service.model.LocalModelScorer;
+import com.joey.cheaterbuster.service.player.PlayerDataWriter;
+import com.joey.cheaterbuster.service.player.PlayerDataWriter.ArchivedProfile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Scores generated players in an in-memory database with the test model in {@code src/test/resources/model}, which
+ * scores every profile locally.
+ */
+class BulkScoringServiceTests {
+
+    private static final int PLAYERS = 5000;
+    private static final long FIRST_STEAM_ID = 76561198000010000L;
+
+    private static ConfigurableApplicationContext context;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void start() {
+        context = new SpringApplicationBuilder(CheaterBusterApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:scoring;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+                        "--ml.local.model-dir=src/test/resources/model",
+                        "--scoring.chunk-size=100",
+                        "--scoring.workers=2");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<ArchivedProfile> players = IntStream.range(0, PLAYERS)
+                .mapToObj(i -> profile(String.valueOf(FIRST_STEAM_ID + i), "player " + i))
+                .toList();
+        assertEquals(PLAYERS, context.getBean(PlayerDataWriter.class).upsert(players, Duration.ZERO));
+        // Random stats in every model feature; a direct update leaves updated_at as it was written
+        String randomFeatures = context.getBean(LocalModelScorer.class).featureNames().stream()
+                .map(feature -> feature + " = RAND() * 100")
+                .collect(Collectors.joining(", "));
+        jdbcTemplate.update("UPDATE player_data SET " + randomFeatures);
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    @BeforeEach
+    void startFromScratch() {
+        jdbcTemplate.update("DELETE FROM player_prediction");
+        jdbcTemplate.update("DELETE FROM crawl_cursor WHERE name = ?", CrawlCursor.BULK_SCORING);
+    }
+
+    private static ArchivedProfile profile(String steamId, String name) {
+        PlayerDataDTO dto = new PlayerDataDTO();
+        dto.setSteamId(steamId);
+        dto.setName(name);
+        // Stored without ranks, the row can't be mapped back to a profile
+        dto.setRanks(new RanksDTO());
+        return new ArchivedProfile(dto, LocalDateTime.now());
+    }
+
+    private static String cursor() {
+        List<String> positions = jdbcTemplate.queryForList("SELECT key_position FROM crawl_cursor WHERE name = ?",
+                String.class, CrawlCursor.BULK_SCORING);
+        return positions.isEmpty() ? "" : positions.getFirst();
+    }
+
+    private static int storedPredictions() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM player_prediction", Integer.class);
+    }
+
+    @Test
+    void stoppedPassResumesFromItsCursor() {
+        BulkScoringService scoring = context.getBean(BulkScoringService.class);
+        AtomicInteger rowsRead = new AtomicInteger();
+
+        long firstPass = scoring.scorePass(() -> rowsRead.incrementAndGet() > PLAYERS / 2);
+
+        // The pass stops partway through the rows; everything up to the cursor is stored and nothing past it
+        assertTrue(firstPass > 0 && firstPass < PLAYERS, "scored " + firstPass);
+        String cursor = cursor();
+        assertTrue(cursor.compareTo(String.valueOf(FIRST_STEAM_ID)) >= 0
+                && cursor.compareTo(String.valueOf(FIRST_STEAM_ID + PLAYERS - 1)) < 0, "cursor " + cursor);
+        assertEquals(firstPass, storedPredictions());
+        assertEquals(firstPass, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM player_data WHERE steam_id <= ?", Long.class, cursor));
+
+        long secondPass = scoring.scorePass(() -> false);
+
+        assertEquals(PLAYERS - firstPass, secondPass);
+        assertEquals(PLAYERS, storedPredictions());
+        assertEquals("", cursor());
+        assertEquals(0, scoring.scorePass(() -> false));
+    }
+
+    @Test
+    void onlyChangedProfilesAreRescored() {
+        BulkScoringService scoring = context.getBean(BulkScoringService.class);
+        assertEquals(PLAYERS, scoring.scorePass(() -> false));
+
+        String changedId = String.valueOf(FIRST_STEAM_ID + 1234);
+        assertEquals(1, context.getBean(PlayerDataWriter.class).upsert(List.of(profile(changedId, "renamed player")), Duration.ZERO));
+
+        assertEquals(1, scoring.scorePass(() -> false));
+        assertEquals(0, scoring.scorePass(() -> false));
+    }
+
+    @Test
+    void storedProbabilitiesMatchSinglePlayerScores() {
+        assertEquals(PLAYERS, context.getBean(BulkScoringService.class).scorePass(() -> false));
+
+        LocalModelScorer scorer = context.getBean(LocalModelScorer.class);
+        PlayerDataMapper mapper = context.getBean(PlayerDataMapper.class);
+        List<String> sample = IntStream.range(0, PLAYERS).filter(i -> i % 97 == 0)
+                .mapToObj(i -> String.valueOf(FIRST_STEAM_ID + i))
+                .toList();
+        Map<String, Double> stored = jdbcTemplate.query(
+                "SELECT steam_id, probability, model_version FROM player_prediction", rs -> {
+                    Map<String, Double> probabilities = new HashMap<>();
+                    while (rs.next()) {
+                        assertEquals("test-1", rs.getString(3));
+                        probabilities.put(rs.getString(1), rs.getDouble(2));
+                    }
+                    return probabilities;
+                });
+
+        context.getBean(PlayerDataRepository.class).findAllById(sample).forEach(player -> {
+            double expected = scorer.score(mapper.toDTO(player)).orElseThrow();
+            assertEquals(expected, stored.get(player.getSteamId()), 1e-6, player.getSteamId());
+        });
+    }
+}
@@ -0,0 +1,85 @@
+package com.joey.cheaterbuster.service.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joey.cheaterbuster.service.archive.RawResponseArchive.Kind;
+import com.joey.cheaterbuster.service.player.PlayerDataWriter;
+import com.joey.cheaterbuster.service.player.PlayerDataWriter.ArchivedProfile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Replays an archive spread over several runs' segments into a writer that records what it is given.
+ */
+class ArchiveReplayServiceTests {
+
+    private static final String FIRST_ID = "76561198000009001";
+    private static final String SECOND_ID = "76561198000009002";
+    private static final String THIRD_ID = "76561198000009003";
+
+    @TempDir
+    Path directory;
+
+    private RawResponseArchive open() throws IOException {
+        RawResponseArchive archive = new RawResponseArchive(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(archive, "enabled", true);
+        ReflectionTestUtils.setField(archive, "directory", directory.toString());
+        ReflectionTestUtils.setField(archive, "segmentSize", 1L << 20);
+        archive.open();
+        return archive;
+    }
+
+    private static void archiveProfile(RawResponseArchive archive, String steamId, String name) {
+        byte[] body = ("{\"steam64_id\":\"" + steamId + "\",\"name\":\"" + name + "\"}").getBytes(StandardCharsets.UTF_8);
+        archive.archive(Kind.PROFILE, steamId, List.of(steamId), body);
+    }
+
+    @Test
+    void replayWritesTheNewestProfilePerPlayerAcrossSegments() throws IOException {
+        RawResponseArchive archive = open();
+        archiveProfile(archive, FIRST_ID, "first, run 1");
+        archiveProfile(archive, SECOND_ID, "second, run 1");
+        archive.archive(Kind.MATCH_HISTORY, SECOND_ID, List.of(SECOND_ID), "[]".getBytes(StandardCharsets.UTF_8));
+        archive.close();
+        archive = open();
+        archiveProfile(archive, FIRST_ID, "first, run 2");
+        archiveProfile(archive, THIRD_ID, "third, run 2");
+        archiveProfile(archive, THIRD_ID, "third, run 2 again");
+        archive.close();
+        archive = open();
+
+        PlayerDataWriter writer = mock(PlayerDataWriter.class);
+        List<ArchivedProfile> written = Collections.synchronizedList(new ArrayList<>());
+        when(writer.upsert(anyList(), any())).thenAnswer(invocation -> {
+            List<ArchivedProfile> batch = invocation.getArgument(0);
+            written.addAll(batch);
+            return batch.size();
+        });
+        ArchiveReplayService replay = new ArchiveReplayService(archive, writer, new ObjectMapper(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(replay, "batchSize", 100);
+        ReflectionTestUtils.setField(replay, "writeLagMs", 60_000L);
+        replay.initMetrics();
+
+        assertEquals(3, replay.replayProfiles(2, () -> false));
+
+        Map<String, String> names = written.stream().collect(Collectors.toMap(
+                archived -> archived.profile().getSteamId(), archived -> archived.profile().getName()));
+        assertEquals(Map.of(FIRST_ID, "first, run 2", SECOND_ID, "second, run 1", THIRD_ID, "third, run 2 again"), names);
+        assertTrue(written.stream().allMatch(archived -> archived.fetchedAt() != null));
+        archive.close();
+    }
+}
@@ -0,0 +1,108 @@
+package com.joey.cheaterbuster.service.archive;
+
+import com.joey.cheaterbuster.service.archive.RawResponseArchive.ArchivedResponse;
+import com.joey.cheaterbuster.service.archive.RawResponseArchive.IndexEntry;
+import com.joey.cheaterbuster.service.archive.RawResponseArchive.Kind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Opens archives directly on a temporary directory, reopening the same directory to simulate a restart.
+ */
+class RawResponseArchiveTests {
+
+    private static final String FIRST_ID = "76561198000008001";
+    private static final String SECOND_ID = "76561198000008002";
+
+    @TempDir
+    Path directory;
+
+    private RawResponseArchive open() throws IOException {
+        RawResponseArchive archive = new RawResponseArchive(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(archive, "enabled", true);
+        ReflectionTestUtils.setField(archive, "directory", directory.toString());
+        ReflectionTestUtils.setField(archive, "segmentSize", 1L << 20);
+        archive.open();
+        return archive;
+    }
+
+    private static byte[] body(String name) {
+        return ("{\"name\":\"" + name + "\"}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Path file(long segmentId, String suffix) {
+        return directory.resolve(String.format("archive-%016d%s", segmentId, suffix));
+    }
+
+    @Test
+    void encodedRecordReadsBack() throws IOException {
+        byte[] body = body("player ".repeat(200));
+        ByteBuffer record = RawResponseArchive.encode(Kind.PROFILE, FIRST_ID, 1_700_000_000_123L, body);
+        int recordBytes = record.remaining();
+
+        try (FileChannel channel = FileChannel.open(directory.resolve("record"), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Behind a few other bytes, so the offset is honoured
+            channel.write(ByteBuffer.allocate(7), 0);
+            channel.write(record, 7);
+
+            ArchivedResponse response = RawResponseArchive.readRecord(channel, 7);
+            assertNotNull(response);
+            assertEquals(Kind.PROFILE, response.kind());
+            assertEquals(FIRST_ID, response.key());
+            assertEquals(1_700_000_000_123L, response.fetchedAt());
+            assertArrayEquals(body, response.body());
+            assertTrue(recordBytes < body.length, "the body is stored compressed");
+
+            // A flipped byte in the payload fails the checksum
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xff}), 7 + recordBytes - 1);
+            assertNull(RawResponseArchive.readRecord(channel, 7));
+            assertNull(RawResponseArchive.readRecord(channel, 7 + recordBytes));
+        }
+    }
+
+    @Test
+    void tornRecordAndIndexEntryAreSkippedOnReopen() throws IOException {
+        RawResponseArchive archive = open();
+        archive.archive(Kind.PROFILE, FIRST_ID, List.of(FIRST_ID), body("first"));
+        archive.archive(Kind.PROFILE, SECOND_ID, List.of(SECOND_ID), body("second"));
+        archive.close();
+        // A crash partway through appending: the second record is cut short, and half an index entry follows it
+        try (FileChannel segment = FileChannel.open(file(0, ".seg"), StandardOpenOption.WRITE);
+             FileChannel index = FileChannel.open(file(0, ".idx"), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            segment.truncate(segment.size() - 3);
+            index.write(ByteBuffer.allocate(12));
+        }
+
+        archive = open();
+        List<IndexEntry> entries = new ArrayList<>();
+        archive.forEachIndexEntry(0, entries::add);
+        assertEquals(List.of(Long.parseLong(FIRST_ID), Long.parseLong(SECOND_ID)),
+                entries.stream().map(IndexEntry::steamId).toList());
+        List<ArchivedResponse> first = archive.findBySteamId(FIRST_ID);
+        assertEquals(1, first.size());
+        assertArrayEquals(body("first"), first.getFirst().body());
+        assertTrue(archive.findBySteamId(SECOND_ID).isEmpty());
+
+        // The reopened archive appends to a new segment rather than after the torn tail
+        archive.archive(Kind.PROFILE, SECOND_ID, List.of(SECOND_ID), body("second again"));
+        assertEquals(List.of(0L, 1L), archive.segmentIds());
+        List<ArchivedResponse> second = archive.findBySteamId(SECOND_ID);
+        assertEquals(1, second.size());
+        assertArrayEquals(body("second again"), second.getFirst().body());
+        archive.close();
+    }
+}
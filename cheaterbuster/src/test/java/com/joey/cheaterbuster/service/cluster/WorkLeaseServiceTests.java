@@ -0,0 +1,164 @@
+package com.joey.cheaterbuster.service.cluster;
+
+import com.joey.cheaterbuster.CheaterBusterApplication;
+import com.joey.cheaterbuster.entity.CrawlFrontierEntry;
+import com.joey.cheaterbuster.repository.CrawlFrontierRepository;
+import com.joey.cheaterbuster.service.player.CrawlFrontierStore;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs two application contexts against one shared database to check that nodes never claim the same work.
+ */
+class WorkLeaseServiceTests {
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode("node-a");
+        nodeB = startNode("node-b");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId) {
+        return new SpringApplicationBuilder(CheaterBusterApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:cluster;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--crawl.node-id=" + nodeId,
+                        "--crawl.lease.duration-ms=2000",
+                        "--crawl.lease.heartbeat-interval-ms=3600000");
+    }
+
+    @Test
+    void nodesClaimDisjointFrontierBatches() {
+        List<String> steamIds = IntStream.range(0, 40).mapToObj(i -> "7656119800000" + (1000 + i)).toList();
+        assertEquals(steamIds, nodeA.getBean(CrawlFrontierStore.class)
+                .enqueue(steamIds, CrawlFrontierEntry.DiscoverySource.TEAMMATE, 1, CrawlFrontierEntry.State.PENDING));
+        assertEquals(List.of(), nodeB.getBean(CrawlFrontierStore.class)
+                .enqueue(steamIds, CrawlFrontierEntry.DiscoverySource.TEAMMATE, 1, CrawlFrontierEntry.State.PENDING));
+        CrawlFrontierEntry pending = nodeA.getBean(CrawlFrontierRepository.class).findById(steamIds.getFirst()).orElseThrow();
+        assertEquals(CrawlFrontierEntry.State.PENDING, pending.getState());
+        assertNull(pending.getLeaseOwner());
+
+        Set<String> claimedByA = new HashSet<>();
+        Set<String> claimedByB = new HashSet<>();
+        boolean more = true;
+        while (more) {
+            List<CrawlFrontierEntry> a = nodeA.getBean(CrawlFrontierStore.class).claimBatch(5);
+            List<CrawlFrontierEntry> b = nodeB.getBean(CrawlFrontierStore.class).claimBatch(5);
+            a.forEach(e -> claimedByA.add(e.getSteamId()));
+            b.forEach(e -> claimedByB.add(e.getSteamId()));
+            more = !a.isEmpty() || !b.isEmpty();
+        }
+
+        assertTrue(Collections.disjoint(claimedByA, claimedByB));
+        Set<String> all = new HashSet<>(claimedByA);
+        all.addAll(claimedByB);
+        assertEquals(new HashSet<>(steamIds), all);
+
+        CrawlFrontierRepository repository = nodeA.getBean(CrawlFrontierRepository.class);
+        claimedByB.forEach(id -> assertEquals("node-b", repository.findById(id).orElseThrow().getLeaseOwner()));
+
+        nodeA.getBean(CrawlFrontierStore.class).markState(claimedByA, CrawlFrontierEntry.State.DONE);
+        nodeB.getBean(CrawlFrontierStore.class).markState(claimedByB, CrawlFrontierEntry.State.DONE);
+    }
+
+    @Test
+    void expiredLeasesAreReclaimedByAnotherNode() throws InterruptedException {
+        List<String> steamIds = IntStream.range(0, 5).mapToObj(i -> "7656119800000" + (2000 + i)).toList();
+        CrawlFrontierStore storeA = nodeA.getBean(CrawlFrontierStore.class);
+        storeA.enqueue(steamIds, CrawlFrontierEntry.DiscoverySource.MATCH, 1, CrawlFrontierEntry.State.IN_PROGRESS);
+
+        // Node A stops heart-beating; once its leases expire node B's heartbeat returns them to the pool
+        Thread.sleep(2500);
+        nodeB.getBean(WorkLeaseService.class).heartbeat();
+
+        Set<String> reclaimed = new HashSet<>();
+        nodeB.getBean(CrawlFrontierStore.class).claimBatch(10).forEach(e -> reclaimed.add(e.getSteamId()));
+        assertEquals(new HashSet<>(steamIds), reclaimed);
+        nodeB.getBean(CrawlFrontierStore.class).markState(reclaimed, CrawlFrontierEntry.State.DONE);
+    }
+
+    @Test
+    void overlappingLeasedEnqueuesReturnOnlyOwnedIds() {
+        List<String> idsA = IntStream.range(0, 10).mapToObj(i -> "7656119800000" + (3000 + i)).toList();
+        List<String> idsB = IntStream.range(5, 15).mapToObj(i -> "7656119800000" + (3000 + i)).toList();
+
+        List<String> ownedByA = nodeA.getBean(CrawlFrontierStore.class)
+                .enqueue(idsA, CrawlFrontierEntry.DiscoverySource.MATCH, 1, CrawlFrontierEntry.State.IN_PROGRESS);
+        List<String> ownedByB = nodeB.getBean(CrawlFrontierStore.class)
+                .enqueue(idsB, CrawlFrontierEntry.DiscoverySource.MATCH, 1, CrawlFrontierEntry.State.IN_PROGRESS);
+
+        assertEquals(idsA, ownedByA);
+        assertEquals(idsB.subList(5, 10), ownedByB);
+
+        nodeA.getBean(CrawlFrontierStore.class).markState(ownedByA, CrawlFrontierEntry.State.DONE);
+        nodeB.getBean(CrawlFrontierStore.class).markState(ownedByB, CrawlFrontierEntry.State.DONE);
+    }
+
+    @Test
+    void seedLeasedToAnotherNodeStaysWithThatNode() {
+        String seed = "76561198000004000";
+        CrawlFrontierStore storeA = nodeA.getBean(CrawlFrontierStore.class);
+        CrawlFrontierStore storeB = nodeB.getBean(CrawlFrontierStore.class);
+        CrawlFrontierRepository repository = nodeA.getBean(CrawlFrontierRepository.class);
+
+        assertTrue(storeA.claimSeed(seed));
+        assertFalse(storeB.claimSeed(seed));
+        // Only the lease holder can move the entry on
+        storeB.markState(List.of(seed), CrawlFrontierEntry.State.DONE);
+        assertEquals(CrawlFrontierEntry.State.IN_PROGRESS, repository.findById(seed).orElseThrow().getState());
+        assertEquals("node-a", repository.findById(seed).orElseThrow().getLeaseOwner());
+
+        // Once visited the seed can be re-opened by any node
+        storeA.markState(List.of(seed), CrawlFrontierEntry.State.DONE);
+        assertTrue(storeB.claimSeed(seed));
+        assertEquals("node-b", repository.findById(seed).orElseThrow().getLeaseOwner());
+        storeB.markState(List.of(seed), CrawlFrontierEntry.State.DONE);
+    }
+
+    @Test
+    void nodesLeaseDistinctVaclistPages() {
+        WorkLeaseService leasesA = nodeA.getBean(WorkLeaseService.class);
+        WorkLeaseService leasesB = nodeB.getBean(WorkLeaseService.class);
+
+        Set<Integer> pages = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(pages.add(leasesA.claimVaclistPage()));
+            assertTrue(pages.add(leasesB.claimVaclistPage()));
+        }
+        pages.forEach(leasesA::completeVaclistPage);
+    }
+
+    @Test
+    void releasedVaclistPageIsReclaimedAfterHeartbeat() {
+        WorkLeaseService leasesA = nodeA.getBean(WorkLeaseService.class);
+        WorkLeaseService leasesB = nodeB.getBean(WorkLeaseService.class);
+
+        int page = leasesA.claimVaclistPage();
+        leasesA.releaseVaclistPage(page);
+        // The releasing node's heartbeat must not renew a lease it gave back
+        leasesA.heartbeat();
+
+        assertEquals(page, leasesB.claimVaclistPage());
+        leasesB.completeVaclistPage(page);
+    }
+}
@@ -0,0 +1,89 @@
+package com.joey.cheaterbuster.service.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Loads the test model in {@code src/test/resources/model}. It was trained with xgboost4j 2.0.3 (37 trees of depth 5
+ * over the production features, base_score 0.37, 10% missing training values), and its fixtures hold xgboost4j's
+ * own predictions, so these tests check local scoring against XGBoost itself.
+ */
+class LocalModelScorerTests {
+
+    static final Path MODEL_DIR = Path.of("src/test/resources/model");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path modelCopy;
+
+    private LocalModelScorer load(Path modelDir, boolean allowUnchecked) {
+        LocalModelScorer scorer = new LocalModelScorer(objectMapper);
+        ReflectionTestUtils.setField(scorer, "enabled", true);
+        ReflectionTestUtils.setField(scorer, "modelDir", modelDir);
+        ReflectionTestUtils.setField(scorer, "tolerance", 1e-6);
+        ReflectionTestUtils.setField(scorer, "vectorApi", true);
+        ReflectionTestUtils.setField(scorer, "allowUnchecked", allowUnchecked);
+        scorer.load();
+        return scorer;
+    }
+
+    private void copyModel() throws Exception {
+        Files.copy(MODEL_DIR.resolve("model_config.json"), modelCopy.resolve("model_config.json"));
+        Files.copy(MODEL_DIR.resolve("xgboost_model.json"), modelCopy.resolve("xgboost_model.json"));
+    }
+
+    @Test
+    void scoresParityFixturesLikeXgboost() throws Exception {
+        LocalModelScorer scorer = load(MODEL_DIR, false);
+        assertTrue(scorer.isAvailable());
+        assertEquals(Optional.of("test-1"), scorer.modelVersion());
+
+        JsonNode fixtures = objectMapper.readTree(MODEL_DIR.resolve("parity_fixtures.json").toFile());
+        int numFeatures = scorer.featureNames().size();
+        float[] rows = new float[fixtures.size() * numFeatures];
+        for (int r = 0; r < fixtures.size(); r++) {
+            for (int i = 0; i < numFeatures; i++) {
+                rows[r * numFeatures + i] = (float) fixtures.get(r).path("features").get(i).asDouble();
+            }
+        }
+        double[] probabilities = new double[fixtures.size()];
+        assertTrue(scorer.scoreBatch(rows, fixtures.size(), probabilities));
+        for (int r = 0; r < fixtures.size(); r++) {
+            assertEquals(fixtures.get(r).path("probability").asDouble(), probabilities[r], 1e-6, "fixture " + r);
+        }
+    }
+
+    @Test
+    void refusesModelWithoutParityFixtures() throws Exception {
+        copyModel();
+        assertFalse(load(modelCopy, false).isAvailable());
+    }
+
+    @Test
+    void loadsUncheckedModelOnlyWhenAllowed() throws Exception {
+        copyModel();
+        assertTrue(load(modelCopy, true).isAvailable());
+    }
+
+    @Test
+    void refusesModelThatDisagreesWithFixtures() throws Exception {
+        copyModel();
+        JsonNode fixtures = objectMapper.readTree(MODEL_DIR.resolve("parity_fixtures.json").toFile());
+        ObjectNode first = (ObjectNode) fixtures.get(0);
+        first.put("probability", first.path("probability").asDouble() + 0.01);
+        objectMapper.writeValue(modelCopy.resolve("parity_fixtures.json").toFile(), fixtures);
+
+        assertFalse(load(modelCopy, false).isAvailable());
+    }
+}
@@ -0,0 +1,199 @@
+package com.joey.cheaterbuster.service.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joey.cheaterbuster.CheaterBusterApplication;
+import com.joey.cheaterbuster.dto.leetify.player.PlayerDataDTO;
+import com.joey.cheaterbuster.dto.model.PredictionResultDTO;
+import com.joey.cheaterbuster.service.ModelService;
+import com.joey.cheaterbuster.service.player.PlayerDataWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Scores stored profiles through a stub ML service, so every prediction that misses the cache is counted.
+ */
+class PredictionCacheTests {
+
+    private static final String PREDICTION = "{\"prediction\":0,\"probability\":0.25,\"confidence\":0.75,\"risk_level\":\"MINIMAL\"}";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final AtomicInteger scored = new AtomicInteger();
+    private static volatile String modelVersion = "v1";
+    private static HttpServer mlService;
+    private static ConfigurableApplicationContext context;
+
+    @BeforeAll
+    static void start() throws IOException {
+        mlService = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        mlService.createContext("/model-info", exchange -> respond(exchange, "{\"version\":\"" + modelVersion + "\"}"));
+        mlService.createContext("/predict", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            scored.incrementAndGet();
+            respond(exchange, PREDICTION);
+        });
+        mlService.createContext("/predict_batch", exchange -> {
+            int players = objectMapper.readTree(exchange.getRequestBody()).path("players").size();
+            scored.addAndGet(players);
+            respond(exchange, "{\"predictions\":[" + String.join(",", Collections.nCopies(players, PREDICTION)) + "]}");
+        });
+        mlService.start();
+
+        context = new SpringApplicationBuilder(CheaterBusterApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:predictions;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+                        "--ml.local.enabled=false",
+                        "--ml.service.url=http://127.0.0.1:" + mlService.getAddress().getPort(),
+                        "--ml.version.refresh-interval-ms=3600000",
+                        "--pipeline.persist.flush-interval-ms=50");
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+        mlService.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @BeforeEach
+    void useFirstModel() {
+        modelVersion = "v1";
+        context.getBean(ModelService.class).refreshModelVersion();
+        assertEquals("v1", context.getBean(ModelService.class).modelVersion());
+    }
+
+    private static PlayerDataDTO profile(String steamId, String name) {
+        PlayerDataDTO dto = new PlayerDataDTO();
+        dto.setSteamId(steamId);
+        dto.setName(name);
+        return dto;
+    }
+
+    /**
+     * Writes a profile through the fetch path and waits until it is stored and stamped with its updated_at.
+     */
+    private static PlayerDataDTO store(PlayerDataDTO dto) throws InterruptedException {
+        PlayerDataWriter writer = context.getBean(PlayerDataWriter.class);
+        writer.submit(dto);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (writer.getPending(dto.getSteamId()).isPresent() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertNotNull(dto.getUpdatedAt(), "profile was never stored");
+        return dto;
+    }
+
+    @Test
+    void predictionIsReusedOnlyForTheSameProfileAndModelVersion() throws Exception {
+        ModelService modelService = context.getBean(ModelService.class);
+        PlayerDataDTO first = store(profile("76561198000007001", "player"));
+        int before = scored.get();
+
+        modelService.getPrediction(first);
+        assertEquals(before + 1, scored.get());
+        modelService.getPrediction(first);
+        assertEquals(before + 1, scored.get());
+
+        // A re-fetch with unchanged content keeps the stored updated_at, so it still hits
+        PlayerDataDTO refetched = store(profile("76561198000007001", "player"));
+        assertEquals(first.getUpdatedAt(), refetched.getUpdatedAt());
+        modelService.getPrediction(refetched);
+        assertEquals(before + 1, scored.get());
+
+        // Changed content is a new profile version
+        PlayerDataDTO changed = store(profile("76561198000007001", "renamed player"));
+        assertNotEquals(first.getUpdatedAt(), changed.getUpdatedAt());
+        modelService.getPrediction(changed);
+        assertEquals(before + 2, scored.get());
+        modelService.getPrediction(changed);
+        assertEquals(before + 2, scored.get());
+
+        // A redeployed model misses for the same profile version, then caches under its own version
+        modelVersion = "v2";
+        modelService.refreshModelVersion();
+        modelService.getPrediction(changed);
+        assertEquals(before + 3, scored.get());
+        modelService.getPrediction(changed);
+        assertEquals(before + 3, scored.get());
+    }
+
+    @Test
+    void batchLookupOnlyScoresTheMisses() throws Exception {
+        ModelService modelService = context.getBean(ModelService.class);
+        PlayerDataDTO cached = store(profile("76561198000007101", "cached"));
+        PlayerDataDTO fresh = store(profile("76561198000007102", "fresh"));
+        PlayerDataDTO unstored = profile("76561198000007103", "not stored");
+        modelService.getPrediction(cached);
+        int before = scored.get();
+
+        List<PredictionResultDTO> results = modelService.getPredictions(List.of(cached, fresh, unstored));
+
+        assertEquals(3, results.size());
+        assertEquals(before + 2, scored.get());
+        // The unstored profile has no updated_at, so only the stored one was cached
+        modelService.getPredictions(List.of(cached, fresh, unstored));
+        assertEquals(before + 3, scored.get());
+    }
+
+    @Test
+    void storedPredictionsAreSharedThroughTheTable() {
+        PredictionCache nodeA = context.getBean(PredictionCache.class);
+        PlayerDataDTO profile = profile("76561198000007201", "player");
+        profile.setUpdatedAt(LocalDateTime.of(2026, 1, 2, 3, 4, 5, 123_456_000));
+        PredictionResultDTO result = new PredictionResultDTO(1, 0.9, 0.9, "HIGH");
+        nodeA.put(profile, "v1", result);
+
+        // A cache with nothing in memory, as on another node or after a restart
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PredictionCache nodeB = new PredictionCache(context.getBean(JdbcTemplate.class),
+                context.getBean(NamedParameterJdbcTemplate.class), meterRegistry);
+        ReflectionTestUtils.setField(nodeB, "maxSize", 100L);
+        nodeB.initCache();
+
+        assertEquals(result, nodeB.get(profile, "v1").orElseThrow());
+        assertEquals(1, meterRegistry.get("model.prediction.database-hits").counter().count());
+        assertTrue(nodeB.get(profile, "v2").isEmpty());
+        assertTrue(nodeB.get(profile, null).isEmpty());
+        PlayerDataDTO rewritten = profile("76561198000007201", "player");
+        rewritten.setUpdatedAt(profile.getUpdatedAt().plusSeconds(1));
+        assertTrue(nodeB.get(rewritten, "v1").isEmpty());
+
+        // A newer prediction replaces the player's old one rather than sitting next to it
+        nodeB.put(rewritten, "v2", result);
+        Integer rows = context.getBean(JdbcTemplate.class)
+                .queryForObject("SELECT COUNT(*) FROM player_prediction WHERE steam_id = ?", Integer.class, profile.getSteamId());
+        assertEquals(1, rows);
+        assertTrue(nodeA.get(profile, "v1").isPresent(), "memory still answers for the version it holds");
+        assertTrue(nodeB.get(profile, "v1").isEmpty());
+    }
+}
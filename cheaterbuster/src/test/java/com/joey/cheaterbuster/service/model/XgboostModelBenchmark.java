@@ -0,0 +1,149 @@
+package com.joey.cheaterbuster.service.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-row and batch scoring latency of the local XGBoost evaluator. Batches are scored row by row, blocked
+ * with scalar code, and blocked with the Vector API.
+ * <p>
+ * Scores the model exported to {@code -Dmodel.path=.../xgboost_model.json} if given, otherwise a generated model
+ * the shape of the production one: 300 trees up to depth 15 over 29 features. Run after {@code mvn test-compile}:
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     com.joey.cheaterbuster.service.model.XgboostModelBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class XgboostModelBenchmark {
+
+    private static final int FEATURES = 29;
+    private static final int TREES = 300;
+    private static final int MAX_DEPTH = 15;
+    private static final int BATCH_SIZE = 1000;
+
+    private XgboostModel model;
+    private XgboostModel vectorModel;
+    private double[][] rows;
+    private float[] flatRows;
+    private double[] probabilities;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String modelPath = System.getProperty("model.path");
+        JsonNode json = modelPath != null ? objectMapper.readTree(new File(modelPath)) : generateModel(objectMapper, new Random(42));
+        model = XgboostModel.fromJson(json);
+        vectorModel = XgboostModel.fromJson(json, true);
+
+        Random random = new Random(7);
+        rows = new double[BATCH_SIZE][model.numFeatures()];
+        for (double[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = random.nextDouble() < 0.02 ? Double.NaN : random.nextDouble() * 100;
+            }
+        }
+        flatRows = new float[BATCH_SIZE * model.numFeatures()];
+        for (int r = 0; r < BATCH_SIZE; r++) {
+            for (int i = 0; i < model.numFeatures(); i++) {
+                flatRows[r * model.numFeatures() + i] = (float) rows[r][i];
+            }
+        }
+        probabilities = new double[BATCH_SIZE];
+    }
+
+    @Benchmark
+    public double single() {
+        return model.predictProbability(rows[0]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void batchRowByRow(Blackhole blackhole) {
+        for (double[] row : rows) {
+            blackhole.consume(model.predictProbability(row));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public double[] batchBlocked() {
+        model.predictProbabilities(flatRows, BATCH_SIZE, probabilities);
+        return probabilities;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public double[] batchVector() {
+        vectorModel.predictProbabilities(flatRows, BATCH_SIZE, probabilities);
+        return probabilities;
+    }
+
+    /**
+     * Builds a model in XGBoost's JSON format with randomly grown trees, splitting less often deeper down
+     * the way trained trees thin out.
+     */
+    private static JsonNode generateModel(ObjectMapper objectMapper, Random random) {
+        ObjectNode root = objectMapper.createObjectNode();
+        ObjectNode learner = root.putObject("learner");
+        learner.putObject("objective").put("name", "binary:logistic");
+        learner.putObject("learner_model_param").put("num_feature", String.valueOf(FEATURES)).put("base_score", "5E-1");
+        ObjectNode booster = learner.putObject("gradient_booster");
+        booster.put("name", "gbtree");
+        ArrayNode trees = booster.putObject("model").putArray("trees");
+        for (int t = 0; t < TREES; t++) {
+            ObjectNode tree = trees.addObject();
+            tree.put("id", t);
+            ArrayNode left = tree.putArray("left_children");
+            ArrayNode right = tree.putArray("right_children");
+            ArrayNode indices = tree.putArray("split_indices");
+            ArrayNode conditions = tree.putArray("split_conditions");
+            ArrayNode defaults = tree.putArray("default_left");
+            grow(random, 0, left, right, indices, conditions, defaults);
+        }
+        return root;
+    }
+
+    private static int grow(Random random, int depth, ArrayNode left, ArrayNode right, ArrayNode indices,
+                            ArrayNode conditions, ArrayNode defaults) {
+        int node = left.size();
+        left.add(-1);
+        right.add(-1);
+        indices.add(0);
+        defaults.add(random.nextInt(2));
+        boolean split = depth < MAX_DEPTH && random.nextDouble() < 0.95 - depth * 0.045;
+        if (!split) {
+            conditions.add(random.nextGaussian() * 0.1);
+            return node;
+        }
+        indices.set(node, random.nextInt(FEATURES));
+        conditions.add(random.nextDouble() * 100);
+        left.set(node, grow(random, depth + 1, left, right, indices, conditions, defaults));
+        right.set(node, grow(random, depth + 1, left, right, indices, conditions, defaults));
+        return node;
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Accepts the usual JMH command line options, such as -wi 1 -i 3
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(XgboostModelBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,166 @@
+package com.joey.cheaterbuster.service.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that every evaluation path of {@link XgboostModel} gives the same results: the single-row walk of the
+ * flattened forest, the blocked scalar batch and the Vector API batch are compared with a plain walk of the trees
+ * in XGBoost's own JSON layout, and with xgboost4j's predictions for rows with many missing values.
+ * <p>
+ * The test model has 37 trees, so neither the tree count nor most of the row counts used divide evenly into vector
+ * lanes or blocks.
+ */
+class XgboostModelEquivalenceTests {
+
+    private static final int[] ROW_COUNTS = {1, 7, 15, 63, 64, 65, 200};
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static JsonNode modelJson;
+    private static int numFeatures;
+    private static List<Float> splitConditions;
+
+    @BeforeAll
+    static void loadModel() throws Exception {
+        modelJson = objectMapper.readTree(LocalModelScorerTests.MODEL_DIR.resolve("xgboost_model.json").toFile());
+        numFeatures = modelJson.path("learner").path("learner_model_param").path("num_feature").asInt();
+        splitConditions = new ArrayList<>();
+        for (JsonNode tree : trees(modelJson)) {
+            JsonNode left = tree.path("left_children");
+            for (int i = 0; i < left.size(); i++) {
+                if (left.get(i).asInt() != -1) {
+                    splitConditions.add((float) tree.path("split_conditions").get(i).asDouble());
+                }
+            }
+        }
+    }
+
+    private static JsonNode trees(JsonNode model) {
+        return model.path("learner").path("gradient_booster").path("model").path("trees");
+    }
+
+    /**
+     * Walks the first {@code treeLimit} trees node by node in XGBoost's layout: go left when the value is below the
+     * split, follow the node's default direction when it is missing.
+     */
+    private static double referenceProbability(float[] rows, int offset, int treeLimit) {
+        double baseScore = modelJson.path("learner").path("learner_model_param").path("base_score").asDouble();
+        double margin = 0;
+        JsonNode trees = trees(modelJson);
+        for (int t = 0; t < treeLimit; t++) {
+            JsonNode tree = trees.get(t);
+            int node = 0;
+            while (tree.path("left_children").get(node).asInt() != -1) {
+                float value = rows[offset + tree.path("split_indices").get(node).asInt()];
+                float split = (float) tree.path("split_conditions").get(node).asDouble();
+                boolean left = Float.isNaN(value) ? tree.path("default_left").get(node).asInt() != 0 : value < split;
+                node = left ? tree.path("left_children").get(node).asInt() : tree.path("right_children").get(node).asInt();
+            }
+            margin += (float) tree.path("split_conditions").get(node).asDouble();
+        }
+        return 1 / (1 + Math.exp(-(Math.log(baseScore / (1 - baseScore)) + margin)));
+    }
+
+    /**
+     * Random rows where a share of the values is missing and some sit exactly on a split threshold.
+     */
+    private static float[] randomRows(Random random, int rowCount, double missingShare) {
+        float[] rows = new float[rowCount * numFeatures];
+        for (int i = 0; i < rows.length; i++) {
+            double pick = random.nextDouble();
+            if (pick < missingShare) {
+                rows[i] = Float.NaN;
+            } else if (pick < missingShare + 0.1) {
+                rows[i] = splitConditions.get(random.nextInt(splitConditions.size()));
+            } else {
+                rows[i] = (float) (random.nextGaussian() * 20 + 50);
+            }
+        }
+        return rows;
+    }
+
+    private static void assertAllPathsMatchReference(JsonNode json, int treeLimit, float[] rows, int rowCount) {
+        XgboostModel scalar = XgboostModel.fromJson(json, false);
+        XgboostModel vector = XgboostModel.fromJson(json, true);
+        assertTrue(vector.usesVectorApi(), "surefire must run with --add-modules jdk.incubator.vector");
+        assertEquals(treeLimit, scalar.numTrees());
+
+        double[] blocked = new double[rowCount];
+        double[] vectorised = new double[rowCount];
+        scalar.predictProbabilities(rows, rowCount, blocked);
+        vector.predictProbabilities(rows, rowCount, vectorised);
+        for (int r = 0; r < rowCount; r++) {
+            double[] row = new double[numFeatures];
+            for (int i = 0; i < numFeatures; i++) {
+                row[i] = rows[r * numFeatures + i];
+            }
+            double expected = referenceProbability(rows, r * numFeatures, treeLimit);
+            // Every path adds the same float leaf values in the same tree order, so results are bit-identical
+            assertEquals(expected, scalar.predictProbability(row), 0, "single row " + r);
+            assertEquals(expected, blocked[r], 0, "blocked row " + r + " of " + rowCount);
+            assertEquals(expected, vectorised[r], 0, "vector row " + r + " of " + rowCount);
+        }
+    }
+
+    @Test
+    void allPathsMatchTreeWalkOnRandomRows() {
+        Random random = new Random(1);
+        for (double missingShare : new double[]{0, 0.4, 0.9}) {
+            for (int rowCount : ROW_COUNTS) {
+                assertAllPathsMatchReference(modelJson, trees(modelJson).size(), randomRows(random, rowCount, missingShare), rowCount);
+            }
+        }
+    }
+
+    @Test
+    void rowsWithEveryValueMissingTakeDefaultBranches() {
+        float[] rows = new float[65 * numFeatures];
+        Arrays.fill(rows, Float.NaN);
+        assertAllPathsMatchReference(modelJson, trees(modelJson).size(), rows, 65);
+    }
+
+    @Test
+    void bestIterationLimitsTheTreesEvaluated() {
+        ObjectNode truncated = modelJson.deepCopy();
+        ((ObjectNode) truncated.path("learner").path("attributes")).put("best_iteration", "9");
+        Random random = new Random(2);
+        for (int rowCount : ROW_COUNTS) {
+            assertAllPathsMatchReference(truncated, 10, randomRows(random, rowCount, 0.4), rowCount);
+        }
+    }
+
+    @Test
+    void matchesXgboostOnRowsWithMissingValues() throws Exception {
+        JsonNode fixtures = objectMapper.readTree(
+                LocalModelScorerTests.MODEL_DIR.resolve("missing_value_fixtures.json").toFile());
+        int rowCount = fixtures.size();
+        float[] rows = new float[rowCount * numFeatures];
+        for (int r = 0; r < rowCount; r++) {
+            JsonNode features = fixtures.get(r).path("features");
+            for (int i = 0; i < numFeatures; i++) {
+                rows[r * numFeatures + i] = features.get(i).isNull() ? Float.NaN : (float) features.get(i).asDouble();
+            }
+        }
+
+        ObjectNode truncated = modelJson.deepCopy();
+        ((ObjectNode) truncated.path("learner").path("attributes")).put("best_iteration", "9");
+        double[] full = new double[rowCount];
+        double[] firstTenTrees = new double[rowCount];
+        XgboostModel.fromJson(modelJson, true).predictProbabilities(rows, rowCount, full);
+        XgboostModel.fromJson(truncated, true).predictProbabilities(rows, rowCount, firstTenTrees);
+        for (int r = 0; r < rowCount; r++) {
+            assertEquals(fixtures.get(r).path("probability").asDouble(), full[r], 1e-6, "row " + r);
+            assertEquals(fixtures.get(r).path("probability_first_10_trees").asDouble(), firstTenTrees[r], 1e-6, "row " + r);
+        }
+    }
+}
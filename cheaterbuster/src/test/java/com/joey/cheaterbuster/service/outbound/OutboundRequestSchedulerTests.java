@@ -0,0 +1,192 @@
+package com.joey.cheaterbuster.service.outbound;
+
+import com.joey.cheaterbuster.exception.UpstreamThrottledException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the scheduler with a fake clock, so budget only accrues when a test moves time forward.
+ */
+class OutboundRequestSchedulerTests {
+
+    private static final Instant START = Instant.parse("2026-01-02T03:04:05Z");
+
+    private final AtomicLong nanos = new AtomicLong();
+    private OutboundRequestScheduler scheduler;
+
+    @BeforeEach
+    void createScheduler() {
+        scheduler = new OutboundRequestScheduler(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(scheduler, "nanoClock", (LongSupplier) nanos::get);
+        ReflectionTestUtils.setField(scheduler, "clock", Clock.fixed(START, ZoneOffset.UTC));
+        ReflectionTestUtils.setField(scheduler, "leetifyPermitsPerSecond", 1.0);
+        ReflectionTestUtils.setField(scheduler, "leetifyMinPermitsPerSecond", 0.2);
+        ReflectionTestUtils.setField(scheduler, "leetifyMaxPermitsPerSecond", 1.2);
+        ReflectionTestUtils.setField(scheduler, "leetifyBurst", 1);
+        ReflectionTestUtils.setField(scheduler, "vaclistPermitsPerSecond", 1.0);
+        ReflectionTestUtils.setField(scheduler, "vaclistMinPermitsPerSecond", 0.2);
+        ReflectionTestUtils.setField(scheduler, "vaclistMaxPermitsPerSecond", 1.0);
+        ReflectionTestUtils.setField(scheduler, "vaclistBurst", 1);
+        ReflectionTestUtils.setField(scheduler, "additiveIncrease", 0.05);
+        ReflectionTestUtils.setField(scheduler, "multiplicativeDecrease", 0.5);
+        scheduler.initLanes();
+    }
+
+    /**
+     * Moves the fake clock forward and wakes waiting requests, which otherwise sleep in real time.
+     */
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+        scheduler.reprioritise();
+    }
+
+    private <T> T send(Supplier<T> request) {
+        // A full bucket, so the call never waits
+        advance(Duration.ofSeconds(60));
+        return scheduler.execute(Upstream.LEETIFY, request);
+    }
+
+    private static HttpServerErrorException serverError(HttpStatus status, HttpHeaders headers) {
+        return HttpServerErrorException.create(status, status.getReasonPhrase(), headers, new byte[0], StandardCharsets.UTF_8);
+    }
+
+    private static HttpHeaders retryAfter(String value) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, value);
+        return headers;
+    }
+
+    @Test
+    void rateGrowsAdditivelyAndHalvesOnPushback() {
+        send(() -> "ok");
+        assertEquals(1.05, scheduler.getCurrentRate(Upstream.LEETIFY), 1e-9);
+        for (int i = 0; i < 20; i++) {
+            send(() -> "ok");
+        }
+        assertEquals(1.2, scheduler.getCurrentRate(Upstream.LEETIFY), 1e-9, "capped at the maximum");
+
+        // Every 5xx backs off and is retryable, not only 429 and 503
+        for (HttpStatus status : List.of(HttpStatus.INTERNAL_SERVER_ERROR, HttpStatus.BAD_GATEWAY, HttpStatus.GATEWAY_TIMEOUT)) {
+            double before = scheduler.getCurrentRate(Upstream.LEETIFY);
+            assertThrows(UpstreamThrottledException.class, () -> send(() -> {
+                throw serverError(status, null);
+            }));
+            assertEquals(Math.max(0.2, before * 0.5), scheduler.getCurrentRate(Upstream.LEETIFY), 1e-9, status.toString());
+        }
+        assertEquals(0.2, scheduler.getCurrentRate(Upstream.LEETIFY), 1e-9, "floored at the minimum");
+
+        // A 404 is about the player, not our rate
+        assertThrows(HttpClientErrorException.class, () -> send(() -> {
+            throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, new byte[0], StandardCharsets.UTF_8);
+        }));
+        assertEquals(0.2 + 0.05 / 0.2, scheduler.getCurrentRate(Upstream.LEETIFY), 1e-9);
+    }
+
+    @Test
+    void retryAfterIsReadAsSecondsOrAnHttpDate() {
+        assertEquals(Duration.ofSeconds(7), scheduler.parseRetryAfter(retryAfter("7"), Duration.ZERO));
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.ofInstant(START.plusSeconds(30), ZoneOffset.UTC));
+        assertEquals(Duration.ofSeconds(30), scheduler.parseRetryAfter(retryAfter(date), Duration.ZERO));
+        String past = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.ofInstant(START.minusSeconds(30), ZoneOffset.UTC));
+        assertEquals(Duration.ZERO, scheduler.parseRetryAfter(retryAfter(past), Duration.ofSeconds(1)));
+        assertEquals(Duration.ofSeconds(1), scheduler.parseRetryAfter(retryAfter("soon"), Duration.ZERO));
+        assertEquals(Duration.ofSeconds(5), scheduler.parseRetryAfter(new HttpHeaders(), Duration.ofSeconds(5)));
+
+        UpstreamThrottledException throttled = assertThrows(UpstreamThrottledException.class, () -> send(() -> {
+            throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", retryAfter("7"),
+                    new byte[0], StandardCharsets.UTF_8);
+        }));
+        assertEquals(Duration.ofSeconds(7), throttled.getRetryAfter());
+        // Without a header, only overload responses pause the lane
+        assertEquals(Duration.ofSeconds(1), assertThrows(UpstreamThrottledException.class, () -> send(() -> {
+            throw serverError(HttpStatus.SERVICE_UNAVAILABLE, null);
+        })).getRetryAfter());
+        assertEquals(Duration.ZERO, assertThrows(UpstreamThrottledException.class, () -> send(() -> {
+            throw serverError(HttpStatus.BAD_GATEWAY, null);
+        })).getRetryAfter());
+    }
+
+    @Test
+    void retryAfterPausesTheLane() throws Exception {
+        assertThrows(UpstreamThrottledException.class, () -> send(() -> {
+            throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", retryAfter("7"),
+                    new byte[0], StandardCharsets.UTF_8);
+        }));
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<String> next = CompletableFuture.supplyAsync(
+                    () -> scheduler.execute(Upstream.LEETIFY, () -> "after the pause"), callers);
+            awaitQueued(RequestPriority.INTERACTIVE, 1);
+            // No budget accrues during the pause, however long the bucket had been idle
+            advance(Duration.ofSeconds(6));
+            Thread.sleep(50);
+            assertFalse(next.isDone());
+
+            // Back to half the rate once the pause is over, so the first token takes two more seconds
+            advance(Duration.ofSeconds(2));
+            Thread.sleep(50);
+            assertFalse(next.isDone());
+            advance(Duration.ofSeconds(1));
+            assertEquals("after the pause", next.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void interactiveRequestsGoBeforeQueuedBackgroundRequests() throws Exception {
+        send(() -> "spend the burst");
+        List<String> sent = Collections.synchronizedList(new ArrayList<>());
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<Void> crawl = CompletableFuture.runAsync(() -> RequestPriority.BACKGROUND.runAs(
+                    () -> scheduler.execute(Upstream.LEETIFY, () -> sent.add("crawl"))), callers);
+            awaitQueued(RequestPriority.BACKGROUND, 1);
+            CompletableFuture<Void> user = CompletableFuture.runAsync(
+                    () -> scheduler.execute(Upstream.LEETIFY, () -> sent.add("user")), callers);
+            awaitQueued(RequestPriority.INTERACTIVE, 1);
+
+            advance(Duration.ofSeconds(1));
+            user.get(5, TimeUnit.SECONDS);
+            Thread.sleep(50);
+            assertFalse(crawl.isDone(), "one token only pays for one request");
+            assertEquals(1, scheduler.getQueueDepth(Upstream.LEETIFY, RequestPriority.BACKGROUND));
+
+            advance(Duration.ofSeconds(1));
+            crawl.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(List.of("user", "crawl"), sent);
+    }
+
+    private void awaitQueued(RequestPriority priority, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.getQueueDepth(Upstream.LEETIFY, priority) < expected) {
+            assertTrue(System.nanoTime() < deadline, "request never queued");
+            Thread.sleep(5);
+        }
+    }
+}
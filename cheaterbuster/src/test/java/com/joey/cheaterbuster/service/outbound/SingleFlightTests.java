@@ -0,0 +1,169 @@
+package com.joey.cheaterbuster.service.outbound;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTests {
+
+    private static final int WAITERS = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> flight = new SingleFlight<>("test", meterRegistry);
+
+    @Test
+    void concurrentCallsForOneKeyShareTheFirstCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<String> call = () -> {
+            calls.incrementAndGet();
+            await(release);
+            return "profile";
+        };
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> owner = callers.submit(() -> flight.execute("76561198000000001", call));
+            awaitCalls(calls, 1);
+            List<Future<String>> waiters = new ArrayList<>();
+            for (int i = 0; i < WAITERS; i++) {
+                waiters.add(callers.submit(() -> flight.execute("76561198000000001", call)));
+            }
+            awaitCoalesced(WAITERS);
+
+            // A different key is not held up by the call in flight
+            assertEquals("other", flight.execute("76561198000000002", () -> "other"));
+
+            release.countDown();
+            assertEquals("profile", owner.get(5, TimeUnit.SECONDS));
+            for (Future<String> waiter : waiters) {
+                assertEquals("profile", waiter.get(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void waitersGetTheOwnersException() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        IllegalStateException failure = new IllegalStateException("rate limited");
+        Supplier<String> call = () -> {
+            calls.incrementAndGet();
+            await(release);
+            throw failure;
+        };
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> owner = callers.submit(() -> flight.execute("76561198000000001", call));
+            awaitCalls(calls, 1);
+            List<Future<String>> waiters = new ArrayList<>();
+            for (int i = 0; i < WAITERS; i++) {
+                waiters.add(callers.submit(() -> flight.execute("76561198000000001", call)));
+            }
+            awaitCoalesced(WAITERS);
+
+            release.countDown();
+            // The exception itself is rethrown, not wrapped, so waiters handle it exactly like the owner
+            assertSame(failure, assertThrows(ExecutionException.class, () -> owner.get(5, TimeUnit.SECONDS)).getCause());
+            for (Future<String> waiter : waiters) {
+                assertSame(failure, assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS)).getCause());
+            }
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void completedCallsAreNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+        assertEquals("1", flight.execute("76561198000000001", () -> String.valueOf(calls.incrementAndGet())));
+        assertEquals("2", flight.execute("76561198000000001", () -> String.valueOf(calls.incrementAndGet())));
+
+        // A failed call is not remembered either
+        assertThrows(IllegalStateException.class, () -> flight.execute("76561198000000001", () -> {
+            throw new IllegalStateException("timed out");
+        }));
+        assertEquals("3", flight.execute("76561198000000001", () -> String.valueOf(calls.incrementAndGet())));
+        assertEquals(0.0, meterRegistry.get("outbound.coalesced").tag("call", "test").counter().count());
+    }
+
+    @Test
+    void interactiveCallerPromotesTheBackgroundCallItJoins() throws Exception {
+        OutboundRequestScheduler scheduler = new OutboundRequestScheduler(meterRegistry);
+        ReflectionTestUtils.setField(scheduler, "leetifyPermitsPerSecond", 2.0);
+        ReflectionTestUtils.setField(scheduler, "leetifyMinPermitsPerSecond", 2.0);
+        ReflectionTestUtils.setField(scheduler, "leetifyMaxPermitsPerSecond", 2.0);
+        ReflectionTestUtils.setField(scheduler, "leetifyBurst", 1);
+        scheduler.initLanes();
+        SingleFlight<String, String> profiles = new SingleFlight<>("profiles", scheduler, meterRegistry);
+        // Spend the burst, so every request below waits for budget
+        scheduler.execute(Upstream.LEETIFY, () -> "first");
+        List<String> sent = Collections.synchronizedList(new ArrayList<>());
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> crawl = callers.submit(() -> RequestPriority.BACKGROUND.callAs(
+                    () -> scheduler.execute(Upstream.LEETIFY, () -> send(sent, "crawl"))));
+            awaitQueued(scheduler, 1);
+            Future<String> refresh = callers.submit(() -> RequestPriority.BACKGROUND.callAs(() -> profiles.execute(
+                    "76561198000000001", () -> scheduler.execute(Upstream.LEETIFY, () -> send(sent, "profile")))));
+            awaitQueued(scheduler, 2);
+
+            // A user asking for the same profile joins the queued refresh, which moves ahead of the crawl
+            Future<String> user = callers.submit(() -> profiles.execute("76561198000000001", () -> send(sent, "second request")));
+            assertEquals("profile", user.get(5, TimeUnit.SECONDS));
+            assertEquals("profile", refresh.get(5, TimeUnit.SECONDS));
+            assertEquals("crawl", crawl.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of("profile", "crawl"), sent);
+    }
+
+    private static String send(List<String> sent, String request) {
+        sent.add(request);
+        return request;
+    }
+
+    private static void awaitQueued(OutboundRequestScheduler scheduler, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.getQueueDepth(Upstream.LEETIFY, RequestPriority.BACKGROUND) < expected) {
+            assertTrue(System.nanoTime() < deadline, "requests never queued");
+            Thread.sleep(5);
+        }
+    }
+
+    private void awaitCoalesced(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("outbound.coalesced").tag("call", "test").counter().count() < expected) {
+            assertTrue(System.nanoTime() < deadline, "callers never joined the call in flight");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void awaitCalls(AtomicInteger calls, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls.get() < expected) {
+            assertTrue(System.nanoTime() < deadline, "the first call never started");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.joey.cheaterbuster.service.pipeline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineStageTests {
+
+    @Test
+    void fullQueueBlocksProducersUntilWorkersCatchUp() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CountDownLatch handling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+        PipelineStage<Integer> stage = new PipelineStage<>("backpressure", 2, 1, 1, 0, batch -> {
+            handling.countDown();
+            await(release);
+            handled.addAll(batch);
+        }, meterRegistry);
+        stage.start();
+
+        // The worker holds item 0 while items 1 and 2 fill the queue
+        assertTrue(stage.submit(0));
+        assertTrue(handling.await(5, TimeUnit.SECONDS));
+        assertTrue(stage.submit(1));
+        assertTrue(stage.submit(2));
+        assertEquals(2, stage.size());
+        assertEquals(2.0, meterRegistry.get("pipeline.stage.queue").tag("stage", "backpressure").gauge().value());
+
+        try (ExecutorService producers = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> stage.submit(3), producers);
+            Thread.sleep(100);
+            assertFalse(blocked.isDone());
+
+            release.countDown();
+            assertTrue(blocked.get(5, TimeUnit.SECONDS));
+        }
+        stage.stop(5000);
+
+        assertEquals(List.of(0, 1, 2, 3), handled);
+        assertEquals(1, meterRegistry.get("pipeline.stage.stall").tag("stage", "backpressure").timer().count());
+        assertEquals(4.0, meterRegistry.get("pipeline.stage.items").tag("stage", "backpressure").counter().count());
+    }
+
+    @Test
+    void stopDrainsQueuedItemsAndRejectsNewOnes() {
+        CountDownLatch release = new CountDownLatch(1);
+        List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        // A long batch wait, so the drain only finishes promptly if stopping cuts it short
+        PipelineStage<Integer> stage = new PipelineStage<>("drain", 100, 2, 4, 60_000, batch -> {
+            await(release);
+            batches.add(batch);
+        }, new SimpleMeterRegistry());
+        stage.start();
+        IntStream.range(0, 10).forEach(i -> assertTrue(stage.submit(i)));
+
+        release.countDown();
+        long start = System.nanoTime();
+        stage.stop(10_000);
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertEquals(0, stage.size());
+        List<Integer> handled = batches.stream().flatMap(List::stream).sorted().toList();
+        assertEquals(IntStream.range(0, 10).boxed().toList(), handled);
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 4));
+        assertFalse(stage.submit(10));
+    }
+
+    @Test
+    void stopReleasesProducersBlockedOnAFullQueue() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PipelineStage<Integer> stage = new PipelineStage<>("blocked", 1, 1, 1, 0, batch -> await(release),
+                new SimpleMeterRegistry());
+        stage.start();
+        assertTrue(stage.submit(0));
+        try (ExecutorService producers = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Item 1 waits for the worker to take item 0, then fills the queue while the worker is held
+            assertTrue(stage.submit(1));
+            CompletableFuture<Boolean> blocked = CompletableFuture.supplyAsync(() -> stage.submit(2), producers);
+            Thread.sleep(100);
+            assertFalse(blocked.isDone());
+
+            CompletableFuture<Void> stopping = CompletableFuture.runAsync(() -> stage.stop(10_000), producers);
+            assertFalse(blocked.get(5, TimeUnit.SECONDS));
+            release.countDown();
+            stopping.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void failedBatchIsDroppedAndTheWorkerKeepsGoing() {
+        List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+        PipelineStage<Integer> stage = new PipelineStage<>("failing", 10, 1, 1, 0, batch -> {
+            if (batch.contains(1)) {
+                throw new IllegalStateException("poison item");
+            }
+            handled.addAll(batch);
+        }, new SimpleMeterRegistry());
+        stage.start();
+        IntStream.range(0, 3).forEach(stage::submit);
+        stage.stop(5000);
+
+        assertEquals(List.of(0, 2), handled);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.joey.cheaterbuster.service.player;
+
+import com.joey.cheaterbuster.entity.CrawlFrontierEntry;
+import com.joey.cheaterbuster.entity.CrawlFrontierEntry.DiscoverySource;
+import com.joey.cheaterbuster.entity.CrawlFrontierEntry.State;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Refills a durable frontier from a store whose claim is slow or fails.
+ */
+class CrawlFrontierTests {
+
+    @Test
+    void workersKeepGoingWhileTheFrontierRefills() throws Exception {
+        CountDownLatch claimStarted = new CountDownLatch(1);
+        CountDownLatch claimRelease = new CountDownLatch(1);
+        CrawlFrontierStore store = mock(CrawlFrontierStore.class);
+        when(store.claimBatch(anyInt()))
+                .thenAnswer(invocation -> {
+                    claimStarted.countDown();
+                    claimRelease.await();
+                    return List.of(entry("76561198000000001"), entry("76561198000000002"));
+                })
+                .thenReturn(List.of());
+        when(store.enqueue(anyCollection(), any(), anyInt(), any())).thenAnswer(invocation -> List.copyOf(invocation.getArgument(0)));
+        CrawlFrontier frontier = new CrawlFrontier(store, 1);
+        ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+        CompletableFuture<CrawlFrontier.CrawlTarget> refiller = CompletableFuture.supplyAsync(() -> take(frontier), workers);
+        assertTrue(claimStarted.await(5, TimeUnit.SECONDS));
+
+        // The claim runs without the lock, so other workers can use the frontier meanwhile
+        CompletableFuture<Integer> offered = CompletableFuture.supplyAsync(
+                () -> frontier.offerAll(List.of("76561198000000003"), DiscoverySource.TEAMMATE, 1), workers);
+        assertEquals(1, offered.get(5, TimeUnit.SECONDS));
+        assertEquals("76561198000000003", take(frontier).steamId());
+        // With nothing queued and nothing in flight, a worker still waits for the refill instead of giving up
+        CompletableFuture<CrawlFrontier.CrawlTarget> waiting = CompletableFuture.supplyAsync(() -> take(frontier), workers);
+        frontier.complete(new CrawlFrontier.CrawlTarget("76561198000000003", 1), State.DONE);
+        Thread.sleep(100);
+        assertFalse(waiting.isDone());
+
+        claimRelease.countDown();
+        Set<String> refilled = Set.of(refiller.get(5, TimeUnit.SECONDS).steamId(), waiting.get(5, TimeUnit.SECONDS).steamId());
+        assertEquals(Set.of("76561198000000001", "76561198000000002"), refilled);
+        verify(store, times(1)).claimBatch(1);
+        workers.shutdown();
+    }
+
+    @Test
+    void failedRefillIsRetriedAfterABackoff() throws Exception {
+        CrawlFrontierStore store = mock(CrawlFrontierStore.class);
+        when(store.claimBatch(anyInt()))
+                .thenThrow(new IllegalStateException("connection refused"))
+                .thenThrow(new IllegalStateException("connection refused"))
+                .thenReturn(List.of(entry("76561198000000001")))
+                .thenReturn(List.of());
+        CrawlFrontier frontier = new CrawlFrontier(store, 1);
+        frontier.refillBackoffNanos = TimeUnit.MILLISECONDS.toNanos(10);
+
+        assertEquals("76561198000000001", frontier.take().steamId());
+        verify(store, times(3)).claimBatch(1);
+    }
+
+    @Test
+    void refillGivesUpAfterRepeatedFailures() throws Exception {
+        CrawlFrontierStore store = mock(CrawlFrontierStore.class);
+        when(store.claimBatch(anyInt())).thenThrow(new IllegalStateException("connection refused"));
+        CrawlFrontier frontier = new CrawlFrontier(store, 1);
+        frontier.refillBackoffNanos = TimeUnit.MILLISECONDS.toNanos(1);
+
+        // The crawl ends instead of the worker dying with the exception
+        assertNull(frontier.take());
+        verify(store, times(5)).claimBatch(1);
+    }
+
+    private static CrawlFrontierEntry entry(String steamId) {
+        return CrawlFrontierEntry.builder().steamId(steamId).depth(2).build();
+    }
+
+    private static CrawlFrontier.CrawlTarget take(CrawlFrontier frontier) {
+        try {
+            return frontier.take();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
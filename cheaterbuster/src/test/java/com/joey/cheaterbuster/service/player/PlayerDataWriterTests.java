@@ -0,0 +1,142 @@
+package com.joey.cheaterbuster.service.player;
+
+import com.joey.cheaterbuster.CheaterBusterApplication;
+import com.joey.cheaterbuster.dto.leetify.player.PlayerDataDTO;
+import com.joey.cheaterbuster.repository.PlayerDataRepository;
+import com.joey.cheaterbuster.service.player.PlayerDataWriter.ArchivedProfile;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the writer against an in-memory database with a short replay interval, so spool replays happen within a test.
+ */
+class PlayerDataWriterTests {
+
+    private static final Path SPOOL_DIRECTORY = Path.of(System.getProperty("java.io.tmpdir"),
+            "cheaterbuster-writer-spool-" + System.nanoTime());
+
+    private static ConfigurableApplicationContext context;
+
+    @BeforeAll
+    static void start() {
+        context = new SpringApplicationBuilder(CheaterBusterApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:writer;DB_CLOSE_DELAY=-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+                        "--spool.directory=" + SPOOL_DIRECTORY,
+                        "--spool.replay-interval-ms=100",
+                        "--spool.max-replay-attempts=2",
+                        "--pipeline.persist.flush-interval-ms=50");
+    }
+
+    @AfterAll
+    static void stop() {
+        context.close();
+    }
+
+    private static PlayerDataDTO profile(String steamId) {
+        PlayerDataDTO dto = new PlayerDataDTO();
+        dto.setSteamId(steamId);
+        dto.setName("player " + steamId);
+        return dto;
+    }
+
+    @Test
+    void profileThatNeverStoresIsDeadLetteredWithoutHoldingBackItsBatch() throws Exception {
+        PlayerDataWriter writer = context.getBean(PlayerDataWriter.class);
+        // Longer than the steam_id column, so every write of this profile fails while the database is fine
+        String poisonId = "7".repeat(30);
+        List<String> goodIds = List.of("76561198000005001", "76561198000005002", "76561198000005003");
+
+        writer.submit(profile(goodIds.get(0)));
+        writer.submit(profile(poisonId));
+        writer.submit(profile(goodIds.get(1)));
+        writer.submit(profile(goodIds.get(2)));
+
+        MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+        long deadline = System.currentTimeMillis() + 10_000;
+        // The record is acknowledged in the spool just before the dead-letter counter moves, so wait for both
+        while ((meterRegistry.get("spool.records.pending").gauge().value() > 0
+                || meterRegistry.get("spool.dead-lettered").counter().count() < 1) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertEquals(0, meterRegistry.get("spool.records.pending").gauge().value());
+        assertEquals(0, meterRegistry.get("spool.bytes").gauge().value());
+        assertEquals(1, meterRegistry.get("spool.dead-lettered").counter().count());
+        PlayerDataRepository repository = context.getBean(PlayerDataRepository.class);
+        goodIds.forEach(id -> assertTrue(repository.existsById(id), id));
+        assertTrue(writer.getPending(poisonId).isEmpty());
+
+        List<String> deadLetters = readDeadLetters();
+        assertEquals(1, deadLetters.size());
+        assertTrue(deadLetters.get(0).contains(poisonId));
+    }
+
+    @Test
+    void archiveReplayKeepsCheckedAtAndSkipsProfilesOlderThanTheRow() throws Exception {
+        PlayerDataWriter writer = context.getBean(PlayerDataWriter.class);
+        String steamId = "76561198000005101";
+        writer.submit(profile(steamId));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (writer.getPending(steamId).isPresent() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Map<String, Object> fetched = row(steamId);
+
+        // Unchanged content rewrites the row but moves neither timestamp
+        LocalDateTime later = LocalDateTime.now().plusMinutes(1);
+        assertEquals(1, writer.upsert(List.of(new ArchivedProfile(profile(steamId), later)), Duration.ZERO));
+        assertEquals(fetched, row(steamId));
+
+        // Changed content moves updated_at, but the row was still last checked by the fetch
+        PlayerDataDTO renamed = profile(steamId);
+        renamed.setName("renamed");
+        assertEquals(1, writer.upsert(List.of(new ArchivedProfile(renamed, later)), Duration.ZERO));
+        Map<String, Object> replayed = row(steamId);
+        assertEquals("renamed", replayed.get("name"));
+        assertEquals(fetched.get("checked_at"), replayed.get("checked_at"));
+        assertNotEquals(fetched.get("updated_at"), replayed.get("updated_at"));
+
+        // A response fetched before the row was checked is older than what is stored, unless within the write lag
+        PlayerDataDTO stale = profile(steamId);
+        stale.setName("stale");
+        LocalDateTime before = ((Timestamp) fetched.get("checked_at")).toLocalDateTime().minusMinutes(2);
+        assertEquals(0, writer.upsert(List.of(new ArchivedProfile(stale, before)), Duration.ofMinutes(1)));
+        assertEquals(replayed, row(steamId));
+        assertEquals(1, writer.upsert(List.of(new ArchivedProfile(stale, before)), Duration.ofMinutes(5)));
+        assertEquals("stale", row(steamId).get("name"));
+
+        // A player only in the archive is stored as checked when it was fetched
+        String archivedId = "76561198000005102";
+        LocalDateTime fetchedAt = LocalDateTime.of(2026, 1, 2, 3, 4, 5);
+        assertEquals(1, writer.upsert(List.of(new ArchivedProfile(profile(archivedId), fetchedAt)), Duration.ZERO));
+        assertEquals(Timestamp.valueOf(fetchedAt), row(archivedId).get("checked_at"));
+    }
+
+    private static Map<String, Object> row(String steamId) {
+        return context.getBean(JdbcTemplate.class).queryForMap(
+                "SELECT name, checked_at, updated_at FROM player_data WHERE steam_id = ?", steamId);
+    }
+
+    private static List<String> readDeadLetters() throws IOException {
+        return Files.readAllLines(SPOOL_DIRECTORY.resolve("dead-letter.jsonl"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.joey.cheaterbuster.service.player;
+
+import com.joey.cheaterbuster.config.LeetifyConfig;
+import com.joey.cheaterbuster.dto.VaclistProfileDTO;
+import com.joey.cheaterbuster.exception.VaclistApiException;
+import com.joey.cheaterbuster.service.cluster.WorkLeaseService;
+import com.joey.cheaterbuster.service.outbound.OutboundRequestScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Restarts the prefetcher while its first thread is still waiting on VacList.
+ */
+class VaclistPagePrefetcherTests {
+
+    @Test
+    void prefetcherReplacedMidFetchReleasesItsPageAndExits() throws Exception {
+        CountDownLatch firstFetchStarted = new CountDownLatch(1);
+        CountDownLatch firstFetchRelease = new CountDownLatch(1);
+        AtomicInteger fetches = new AtomicInteger();
+        RestTemplate restTemplate = mock(RestTemplate.class);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(VaclistProfileDTO[].class)))
+                .thenAnswer(invocation -> {
+                    int fetch = fetches.incrementAndGet();
+                    if (fetch == 1) {
+                        firstFetchStarted.countDown();
+                        firstFetchRelease.await();
+                    }
+                    VaclistProfileDTO profile = new VaclistProfileDTO();
+                    profile.setSteamId(String.valueOf(76561198000000000L + fetch));
+                    return ResponseEntity.ok(new VaclistProfileDTO[]{profile});
+                });
+        OutboundRequestScheduler scheduler = mock(OutboundRequestScheduler.class);
+        when(scheduler.execute(any(), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        WorkLeaseService workLeaseService = mock(WorkLeaseService.class);
+        AtomicInteger nextPage = new AtomicInteger(1);
+        when(workLeaseService.claimVaclistPage()).thenAnswer(invocation -> nextPage.getAndIncrement());
+        when(workLeaseService.findVaclistPageLastSteamId(anyInt())).thenReturn(Optional.empty());
+
+        VaclistPagePrefetcher prefetcher = new VaclistPagePrefetcher(restTemplate, mock(LeetifyConfig.class), scheduler,
+                workLeaseService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(prefetcher, "prefetchPages", 1);
+        ReflectionTestUtils.setField(prefetcher, "prefetchTimeoutMs", 200L);
+        prefetcher.initMetrics();
+
+        // The first prefetcher leases page 1 and hangs on VacList until it's replaced
+        assertThrows(VaclistApiException.class, prefetcher::take);
+        assertTrue(firstFetchStarted.await(5, TimeUnit.SECONDS));
+        prefetcher.stop();
+
+        ReflectionTestUtils.setField(prefetcher, "prefetchTimeoutMs", 5000L);
+        assertEquals(2, prefetcher.take().page());
+
+        // The stale prefetcher finishes page 1 next to the new one: it hands the lease back instead of buffering it
+        firstFetchRelease.countDown();
+        verify(workLeaseService, timeout(5000)).releaseVaclistPage(1);
+
+        assertEquals(List.of(3, 4), List.of(prefetcher.take().page(), prefetcher.take().page()));
+        prefetcher.stop();
+        verify(workLeaseService, never()).releaseVaclistPage(2);
+    }
+}
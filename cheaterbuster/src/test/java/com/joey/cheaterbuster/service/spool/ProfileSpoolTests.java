@@ -0,0 +1,149 @@
+package com.joey.cheaterbuster.service.spool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Opens spools directly on a temporary directory, reopening the same directory to simulate a restart.
+ */
+class ProfileSpoolTests {
+
+    // Fits three 16 byte payloads (8 byte header each) per segment
+    private static final int SEGMENT_SIZE = 72;
+
+    @TempDir
+    Path directory;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ProfileSpool open() throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        ProfileSpool spool = new ProfileSpool(meterRegistry);
+        ReflectionTestUtils.setField(spool, "directory", directory.toString());
+        ReflectionTestUtils.setField(spool, "segmentSize", SEGMENT_SIZE);
+        ReflectionTestUtils.setField(spool, "maxBytes", 1024L);
+        spool.open();
+        return spool;
+    }
+
+    private static byte[] record(int i) {
+        return String.format("profile-%08d", i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private double spoolBytes() {
+        return meterRegistry.get("spool.bytes").gauge().value();
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".spool")).count();
+        }
+    }
+
+    @Test
+    void appendedRecordsReadBackAcrossSegments() throws IOException {
+        ProfileSpool spool = open();
+        long[] positions = new long[7];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = spool.append(record(i));
+        }
+
+        for (int i = 0; i < positions.length; i++) {
+            assertArrayEquals(record(i), spool.read(positions[i]));
+        }
+        assertEquals(3, segmentFiles());
+        assertEquals(7 * 24, spoolBytes());
+        spool.close();
+    }
+
+    @Test
+    void unacknowledgedRecordsAreRecoveredAfterRestart() throws IOException {
+        ProfileSpool spool = open();
+        long first = spool.append(record(0));
+        long second = spool.append(record(1));
+        long third = spool.append(record(2));
+        spool.acknowledge(List.of(first));
+        spool.close();
+
+        ProfileSpool reopened = open();
+        List<Long> recovered = reopened.takeRecoveredPositions();
+        assertEquals(List.of(second, third), recovered);
+        assertArrayEquals(record(1), reopened.read(second));
+        assertArrayEquals(record(2), reopened.read(third));
+        assertTrue(reopened.takeRecoveredPositions().isEmpty());
+
+        // Appends after a restart go to a new segment, so the recovered one is never written again
+        long appended = reopened.append(record(3));
+        assertTrue(appended >>> 32 > third >>> 32);
+        reopened.close();
+    }
+
+    @Test
+    void acknowledgingEverythingDeletesSealedSegments() throws IOException {
+        ProfileSpool spool = open();
+        List<Long> positions = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            positions.add(spool.append(record(i)));
+        }
+
+        // Acknowledging out of order keeps the checkpoint at the oldest unacknowledged record
+        spool.acknowledge(positions.subList(1, 7));
+        assertEquals(3, segmentFiles());
+        assertEquals(7 * 24, spoolBytes());
+
+        spool.acknowledge(List.of(positions.get(0)));
+        assertEquals(1, segmentFiles());
+        assertEquals(0, spoolBytes());
+        spool.close();
+
+        assertTrue(open().takeRecoveredPositions().isEmpty());
+    }
+
+    @Test
+    void tornTailIsNotRecovered() throws IOException {
+        ProfileSpool spool = open();
+        long first = spool.append(record(0));
+        long second = spool.append(record(1));
+        spool.close();
+
+        // Corrupt the second record's payload, as if the process died halfway through writing it
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(path -> path.getFileName().toString().endsWith(".spool")).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), (int) second + 8 + 3);
+        }
+
+        ProfileSpool reopened = open();
+        assertEquals(List.of(first), reopened.takeRecoveredPositions());
+        reopened.close();
+    }
+
+    @Test
+    void deadLetteredRecordIsWrittenOutAndAcknowledged() throws IOException {
+        ProfileSpool spool = open();
+        long position = spool.append(record(0));
+        spool.deadLetter(position);
+        spool.close();
+
+        assertEquals(List.of(new String(record(0), StandardCharsets.UTF_8)),
+                Files.readAllLines(directory.resolve("dead-letter.jsonl")));
+        assertTrue(open().takeRecoveredPositions().isEmpty());
+    }
+}
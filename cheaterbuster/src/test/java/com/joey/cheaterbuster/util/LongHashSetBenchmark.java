@@ -0,0 +1,144 @@
+package com.joey.cheaterbuster.util;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Memory and lookup cost of the known player index's {@link LongHashSet} against the {@code HashSet<String>} it
+ * replaced and a boxed {@code HashSet<Long>}. Half of the looked up IDs are in the set and half are not, the mix the
+ * crawler sees for newly discovered players.
+ * <p>
+ * The retained heap of each set is printed once per trial, measured as the used heap after a GC with and without it.
+ * Run after {@code mvn test-compile}:
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     com.joey.cheaterbuster.util.LongHashSetBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LongHashSetBenchmark {
+
+    private static final long FIRST_STEAM_ID = 76561197960265728L;
+    private static final int LOOKUPS = 1024;
+
+    @Param({"100000", "1000000"})
+    private int size;
+
+    private LongHashSet longSet;
+    private Set<Long> boxedSet;
+    private Set<String> stringSet;
+    private long[] lookupIds;
+    private String[] lookupStrings;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        long[] ids = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = FIRST_STEAM_ID + (random.nextLong() & 0x3FFFFFFFL);
+        }
+
+        longSet = measure("LongHashSet", () -> {
+            LongHashSet set = new LongHashSet();
+            for (long id : ids) {
+                set.add(id);
+            }
+            return set;
+        });
+        boxedSet = measure("HashSet<Long>", () -> {
+            Set<Long> set = new HashSet<>();
+            for (long id : ids) {
+                set.add(id);
+            }
+            return set;
+        });
+        stringSet = measure("HashSet<String>", () -> {
+            Set<String> set = new HashSet<>();
+            for (long id : ids) {
+                set.add(Long.toString(id));
+            }
+            return set;
+        });
+
+        lookupIds = new long[LOOKUPS];
+        lookupStrings = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            // Misses come from above the range the set was filled from
+            lookupIds[i] = i % 2 == 0 ? ids[random.nextInt(size)] : FIRST_STEAM_ID + 0x40000000L + random.nextInt(Integer.MAX_VALUE);
+            lookupStrings[i] = Long.toString(lookupIds[i]);
+        }
+    }
+
+    private <T> T measure(String name, Supplier<T> build) {
+        long before = usedHeap();
+        T set = build.get();
+        long retained = usedHeap() - before;
+        System.out.printf("%n%s: %d IDs retain %d KB (%.1f bytes per ID)%n", name, size, retained / 1024, (double) retained / size);
+        return set;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void longHashSet(Blackhole blackhole) {
+        for (long id : lookupIds) {
+            blackhole.consume(longSet.contains(id));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void boxedHashSet(Blackhole blackhole) {
+        for (long id : lookupIds) {
+            blackhole.consume(boxedSet.contains(id));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void stringHashSet(Blackhole blackhole) {
+        for (String id : lookupStrings) {
+            blackhole.consume(stringSet.contains(id));
+        }
+    }
+
+    /**
+     * The index's real lookup path, which parses the Steam ID string first.
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void longHashSetFromString(Blackhole blackhole) {
+        for (String id : lookupStrings) {
+            blackhole.consume(longSet.contains(Utils.parseSteamId(id)));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Accepts the usual JMH command line options, such as -wi 1 -i 3
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(LongHashSetBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,90 @@
+package com.joey.cheaterbuster.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTests {
+
+    private static final long FIRST_STEAM_ID = 76561197960265728L;
+
+    @Test
+    void zeroIsStoredAlongsideOtherValues() {
+        LongHashSet set = new LongHashSet();
+        assertFalse(set.contains(0));
+
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.add(FIRST_STEAM_ID));
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(FIRST_STEAM_ID));
+        assertEquals(2, set.size());
+
+        Set<Long> seen = new HashSet<>();
+        set.forEach(seen::add);
+        assertEquals(Set.of(0L, FIRST_STEAM_ID), seen);
+
+        set.clear();
+        assertFalse(set.contains(0));
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        LongHashSet set = new LongHashSet(4);
+        long initialBytes = set.memoryBytes();
+        Random random = new Random(1);
+        Set<Long> expected = new HashSet<>();
+        while (expected.size() < 100_000) {
+            long id = FIRST_STEAM_ID + (random.nextLong() & 0xFFFFFFFL);
+            assertEquals(expected.add(id), set.add(id));
+        }
+
+        assertEquals(expected.size(), set.size());
+        assertTrue(set.memoryBytes() > initialBytes);
+        // Still at most half full after growing
+        assertTrue(set.memoryBytes() >= 2L * set.size() * Long.BYTES);
+        expected.forEach(id -> assertTrue(set.contains(id)));
+        for (int i = 0; i < 1000; i++) {
+            long absent = FIRST_STEAM_ID + 0x10000000L + i;
+            assertFalse(set.contains(absent));
+        }
+        Set<Long> seen = new HashSet<>();
+        set.forEach(seen::add);
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void collidingValuesProbeToFreeSlotsAndWrapAround() {
+        // 16 slots, so up to 7 values fit without a resize
+        LongHashSet set = new LongHashSet(8);
+        int mask = (int) (set.memoryBytes() / Long.BYTES) - 1;
+        assertEquals(15, mask);
+
+        // Values that all hash to the last slot, so their probe chain wraps to the start of the table
+        List<Long> colliding = new ArrayList<>();
+        for (long id = FIRST_STEAM_ID; colliding.size() < 6; id++) {
+            if ((LongHashSet.mix(id) & mask) == mask) {
+                colliding.add(id);
+            }
+        }
+        colliding.forEach(id -> assertTrue(set.add(id)));
+        colliding.forEach(id -> assertFalse(set.add(id)));
+        colliding.forEach(id -> assertTrue(set.contains(id)));
+        assertEquals(colliding.size(), set.size());
+        assertEquals(16 * Long.BYTES, set.memoryBytes());
+
+        // An absent value hashing to the same slot walks the whole chain and stops at the first free slot
+        long absent = colliding.get(colliding.size() - 1) + 1;
+        while ((LongHashSet.mix(absent) & mask) != mask) {
+            absent++;
+        }
+        assertFalse(set.contains(absent));
+    }
+}
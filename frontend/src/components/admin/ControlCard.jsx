@@ -26,6 +26,9 @@ function ControlCard({ status, onStart, onStop, actionLoading }) {
               >
                 <option value="RANDOM">Random</option>
                 <option value="BANNED">Banned</option>
+                <option value="REPLAY">Replay archive</option>
+                <option value="REFRESH">Refresh stale</option>
+                <option value="SCORE">Score all players</option>
               </select>
             </div>
 
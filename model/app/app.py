@@ -41,6 +41,56 @@ def load_artifacts():
         logger.error(f"Error loading model artifacts: {e}")
         raise
 
+def extract_features(data):
+    """Feature values in model column order, 0 for missing features"""
+    features = []
+    missing_features = []
+
+    for feature_name in feature_names:
+        value = data.get(feature_name)
+        if value is None:
+            missing_features.append(feature_name)
+            value = 0  # Default to 0 for missing values
+        features.append(float(value))
+
+    if missing_features:
+        logger.warning(f"Missing features (using 0): {missing_features}")
+
+    return features
+
+def predict_probabilities(X):
+    """Cheater probability for each row of X"""
+    # Apply imputation if imputer is available
+    if imputer is not None:
+        # Convert zeros to NaN for imputation (matching training preprocessing)
+        X_with_nan = X.copy()
+        X_with_nan[X_with_nan == 0] = np.nan
+        X = imputer.transform(X_with_nan)
+
+    return model.predict_proba(X)[:, 1]
+
+def to_result(probability):
+    # XGBoost's predict labels probabilities above 0.5 as cheaters
+    prediction = int(probability > 0.5)
+    confidence = max(probability, 1 - probability)
+
+    # Determine risk level based on probability
+    if probability >= 0.8:
+        risk_level = "HIGH"
+    elif probability >= 0.5:
+        risk_level = "MEDIUM"
+    elif probability >= 0.3:
+        risk_level = "LOW"
+    else:
+        risk_level = "MINIMAL"
+
+    return {
+        'prediction': prediction,
+        'probability': probability,
+        'confidence': confidence,
+        'risk_level': risk_level
+    }
+
 @app.route('/health', methods=['GET'])
 def health_check():
     """Health check endpoint for ECS/ALB"""
@@ -78,53 +128,9 @@ def predict():
         if not data:
             return jsonify({'error': 'No data provided'}), 400
 
-        # Extract features in correct order
-        features = []
-        missing_features = []
-
-        for feature_name in feature_names:
-            value = data.get(feature_name)
-            if value is None:
-                missing_features.append(feature_name)
-                value = 0  # Default to 0 for missing values
-            features.append(float(value))
-
-        if missing_features:
-            logger.warning(f"Missing features (using 0): {missing_features}")
-
-        # Convert to numpy array
-        X = np.array([features])
-
-        # Apply imputation if imputer is available
-        if imputer is not None:
-            # Convert zeros to NaN for imputation (matching training preprocessing)
-            X_with_nan = X.copy()
-            X_with_nan[X_with_nan == 0] = np.nan
-            X = imputer.transform(X_with_nan)
-
-        # Make prediction
-        prediction = int(model.predict(X)[0])
-        prediction_proba = model.predict_proba(X)[0]
-
-        probability = float(prediction_proba[1])  # Probability of being cheater
-        confidence = float(max(prediction_proba))
-
-        # Determine risk level based on probability
-        if probability >= 0.8:
-            risk_level = "HIGH"
-        elif probability >= 0.5:
-            risk_level = "MEDIUM"
-        elif probability >= 0.3:
-            risk_level = "LOW"
-        else:
-            risk_level = "MINIMAL"
-
-        result = {
-            'prediction': prediction,
-            'probability': probability,
-            'confidence': confidence,
-            'risk_level': risk_level
-        }
+        X = np.array([extract_features(data)])
+        probability = float(predict_probabilities(X)[0])
+        result = to_result(probability)
 
         logger.info(f"Prediction: {result}")
 
@@ -134,6 +140,48 @@ def predict():
         logger.error(f"Prediction error: {e}", exc_info=True)
         return jsonify({'error': str(e)}), 500
 
+@app.route('/predict_batch', methods=['POST'])
+def predict_batch():
+    """
+    Predict cheat probability for many players in one vectorised pass
+
+    Expected JSON body:
+    {
+        "players": [
+            {"accuracy_enemy_spotted": 32.5, ...},
+            ...
+        ]
+    }
+
+    Response, in request order:
+    {
+        "predictions": [
+            {"prediction": 1, "probability": 0.95, "confidence": 0.95, "risk_level": "HIGH"},
+            ...
+        ]
+    }
+    """
+    try:
+        data = request.get_json()
+
+        if not data or not isinstance(data.get('players'), list):
+            return jsonify({'error': 'No players provided'}), 400
+
+        players = data['players']
+        if not players:
+            return jsonify({'predictions': []}), 200
+
+        X = np.array([extract_features(player) for player in players])
+        predictions = [to_result(float(p)) for p in predict_probabilities(X)]
+
+        logger.info(f"Batch prediction for {len(predictions)} players")
+
+        return jsonify({'predictions': predictions}), 200
+
+    except Exception as e:
+        logger.error(f"Batch prediction error: {e}", exc_info=True)
+        return jsonify({'error': str(e)}), 500
+
 @app.route('/model-info', methods=['GET'])
 def model_info():
     config_path = os.path.join(MODEL_DIR, 'model_config.json')
@@ -0,0 +1,86 @@
+"""
+Export the trained model for the Java scoring engine in the cheaterbuster service.
+
+Writes next to the pickled artifacts in models/:
+  xgboost_model.json     the booster in XGBoost's JSON model format
+  parity_fixtures.json   sample rows with this service's predictions, checked by the Java engine at startup
+and records in model_config.json whether an imputer is applied, since the Java engine can only score rows
+the imputer would leave unchanged. The config's version gets a suffix hashed from xgboost_model.json, so both
+scorers report a new version whenever the booster changes and predictions cached under the old one are not reused.
+
+Usage: python export_model.py [--rows 200] [--seed 42]
+"""
+import argparse
+import hashlib
+import json
+import os
+
+import joblib
+import numpy as np
+
+MODEL_DIR = os.path.join(os.path.dirname(__file__), 'models')
+
+
+def predict_like_service(model, imputer, X):
+    """Mirrors the preprocessing in app.predict"""
+    if imputer is not None:
+        X = X.copy()
+        X[X == 0] = np.nan
+        X = imputer.transform(X)
+    return model.predict_proba(X)[:, 1]
+
+
+def versioned(version, model_path):
+    """The configured version with the booster's content hash in place of any earlier one"""
+    with open(model_path, 'rb') as f:
+        digest = hashlib.sha256(f.read()).hexdigest()[:12]
+    base = str(version).split('+')[0] if version else 'model'
+    return f"{base}+{digest}"
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__, formatter_class=argparse.RawDescriptionHelpFormatter)
+    parser.add_argument('--rows', type=int, default=200, help='number of parity fixture rows')
+    parser.add_argument('--seed', type=int, default=42)
+    args = parser.parse_args()
+
+    model = joblib.load(os.path.join(MODEL_DIR, 'xgboost_model.pkl'))
+    imputer_path = os.path.join(MODEL_DIR, 'knn_imputer.pkl')
+    imputer = joblib.load(imputer_path) if os.path.exists(imputer_path) else None
+
+    config_path = os.path.join(MODEL_DIR, 'model_config.json')
+    with open(config_path, 'r') as f:
+        config = json.load(f)
+    features = config['features']
+
+    model_path = os.path.join(MODEL_DIR, 'xgboost_model.json')
+    model.get_booster().save_model(model_path)
+    print(f"Model saved to: {model_path}")
+
+    # Fixture rows span the training range seen by the imputer when there is one, with some zeros
+    # so the Java engine's fallback for rows that need imputation is exercised too
+    rng = np.random.default_rng(args.seed)
+    if imputer is not None and hasattr(imputer, '_fit_X'):
+        fit_X = np.nan_to_num(imputer._fit_X)
+        X = fit_X[rng.integers(0, len(fit_X), args.rows)]
+    else:
+        X = rng.uniform(0, 100, size=(args.rows, len(features)))
+    X[rng.random(X.shape) < 0.02] = 0
+
+    probabilities = predict_like_service(model, imputer, X)
+    fixtures = [{'features': row.tolist(), 'probability': float(p)} for row, p in zip(X, probabilities)]
+    fixtures_path = os.path.join(MODEL_DIR, 'parity_fixtures.json')
+    with open(fixtures_path, 'w') as f:
+        json.dump(fixtures, f)
+    print(f"{len(fixtures)} parity fixtures saved to: {fixtures_path}")
+
+    config['uses_imputer'] = imputer is not None
+    config['xgboost_json'] = os.path.basename(model_path)
+    config['version'] = versioned(config.get('version'), model_path)
+    with open(config_path, 'w') as f:
+        json.dump(config, f, indent=2)
+    print(f"Feature config updated: {config_path} (version {config['version']})")
+
+
+if __name__ == '__main__':
+    main()